@@ -1,6 +1,7 @@
 package rocks.inspectit.releaseplugin;
 
 import hudson.EnvVars;
+import hudson.Launcher;
 import hudson.model.Action;
 import hudson.model.BuildListener;
 import hudson.model.ItemGroup;
@@ -16,6 +17,7 @@ import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Builder;
 import hudson.util.ListBoxModel;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,6 +27,10 @@ import org.apache.commons.lang.text.StrSubstitutor;
 import org.kohsuke.stapler.AncestorInPath;
 
 import rocks.inspectit.releaseplugin.credentials.JIRAProjectCredentials;
+import rocks.inspectit.releaseplugin.http.BuildRequestSummary;
+import rocks.inspectit.releaseplugin.http.Deadline;
+import rocks.inspectit.releaseplugin.http.CircuitOpenException;
+import rocks.inspectit.releaseplugin.http.DeadlineExceededException;
 
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
@@ -77,6 +83,38 @@ public abstract class AbstractJIRAAction extends Builder {
 		return null;
 	}
 
+	@Override
+	public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+		BuildRequestSummary requests = BuildRequestSummary.start();
+		Deadline deadline = Deadline.start(requests);
+		try {
+			return performStep(build, launcher, listener);
+		} catch (DeadlineExceededException e) {
+			listener.getLogger().println(e.getMessage());
+			return false;
+		} catch (CircuitOpenException e) {
+			listener.getLogger().println(e.getMessage());
+			return false;
+		} finally {
+			deadline.end();
+			requests.finish(build, listener.getLogger());
+		}
+	}
+
+	/**
+	 * Executes the build step.
+	 * All REST requests issued by the calling thread are summarized in the build log and attached to the build.
+	 * The requests are subject to a common {@link Deadline}, if it is exceeded the step fails with a report of the consumed time.
+	 * 
+	 * @param build the current build
+	 * @param launcher the launcher
+	 * @param listener the listener of the current build
+	 * @return true, if the build can continue
+	 * @throws InterruptedException if the build is interrupted
+	 * @throws IOException if accessing the workspace fails
+	 */
+	protected abstract boolean performStep(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException;
+
 	/**
 	 * Returns a StringSubstitutor replacing variables e.g. ${varName} with
 	 * their content.
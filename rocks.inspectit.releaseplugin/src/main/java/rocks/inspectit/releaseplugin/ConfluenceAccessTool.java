@@ -1,17 +1,46 @@
 package rocks.inspectit.releaseplugin;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
-import com.google.gson.JsonArray;
+import org.apache.http.HttpStatus;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import rocks.inspectit.releaseplugin.JsonHTTPClientWrapper.JsonStreamHandler;
+import rocks.inspectit.releaseplugin.confluence.Attachment;
+import rocks.inspectit.releaseplugin.confluence.Page;
+import rocks.inspectit.releaseplugin.confluence.PageProperty;
+import rocks.inspectit.releaseplugin.confluence.PageSpec;
+import rocks.inspectit.releaseplugin.confluence.PublishedPage;
+import rocks.inspectit.releaseplugin.http.HttpStatusException;
+import rocks.inspectit.releaseplugin.http.ConnectionSettings;
+import rocks.inspectit.releaseplugin.http.JsonEntity.JsonWriterCallback;
+import rocks.inspectit.releaseplugin.http.MultipartFileEntity;
+import rocks.inspectit.releaseplugin.http.MultipartFileEntity.ContentSource;
+import rocks.inspectit.releaseplugin.http.StepExecutor;
 
 /**
  * Type encapsulating the REST-API based access to a confluence Server. Allows
- * searching for pages and creating new pages at the moment.
+ * searching for pages, creating new pages and updating pages whose content has changed.
  * 
  * @author Jonas Kunz
  *
@@ -24,16 +53,114 @@ public class ConfluenceAccessTool {
 	 */
 	private JsonHTTPClientWrapper client;
 
+	/**
+	 * The url of confluence, identifies the server in the {@link #PAGE_IDS} cache.
+	 */
+	private String url;
+
+	/**
+	 * The ids of the pages resolved by title, shared by all builds. Indexed by server url, space key and title.
+	 * Only used for pages which are referenced but not written, e.g. parent pages.
+	 */
+	private static final Cache<String, Long> PAGE_IDS = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(10, TimeUnit.MINUTES)
+			.build();
+
+	/**
+	 * Whitespace between two tags, which is not part of the content.
+	 */
+	private static final Pattern WHITESPACE_BETWEEN_TAGS = Pattern.compile(">\\s+<");
+
+	/**
+	 * Any sequence of whitespace.
+	 */
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	/**
+	 * The number of attachments queried per request.
+	 */
+	private static final int ATTACHMENT_PAGE_SIZE = 100;
+
+	/**
+	 * The number of pages queried per CQL search request.
+	 */
+	private static final int SEARCH_PAGE_SIZE = 100;
+
+	/**
+	 * Reads the id of a content object, skipping everything else.
+	 */
+	private static final JsonStreamHandler<Long> PAGE_ID_HANDLER = new JsonStreamHandler<Long>() {
+		@Override
+		public Long handle(JsonReader reader) throws IOException {
+			return readPageID(reader);
+		}
+	};
+
+	/**
+	 * The outcomes of {@link ConfluenceAccessTool#upsertPage(String, String, String, Long)}.
+	 */
+	public enum UpsertOutcome {
+		/**
+		 * The page did not exist and has been created.
+		 */
+		CREATED,
+		/**
+		 * The content of the page has changed and a new version has been stored.
+		 */
+		UPDATED,
+		/**
+		 * The content of the page is up to date, nothing has been written.
+		 */
+		UNCHANGED
+	}
+
+	/**
+	 * The result of {@link ConfluenceAccessTool#upsertPage(String, String, String, Long)}.
+	 */
+	public static final class UpsertResult {
+
+		/**
+		 * The id of the page.
+		 */
+		private final long pageID;
+
+		/**
+		 * What has been done.
+		 */
+		private final UpsertOutcome outcome;
+
+		/**
+		 * Creates a new result.
+		 * @param pageID the id of the page
+		 * @param outcome what has been done
+		 */
+		private UpsertResult(long pageID, UpsertOutcome outcome) {
+			this.pageID = pageID;
+			this.outcome = outcome;
+		}
+
+		public long getPageID() {
+			return pageID;
+		}
+
+		public UpsertOutcome getOutcome() {
+			return outcome;
+		}
+	}
+
 	/**
 	 * Initializes a new connection with the given connection information.
 	 * @param url the url of confluence
 	 * @param user the username
 	 * @param password the password
 	 * @param proxy the proxy to use for building the connection
+	 * @param settings the connection specific settings (can be null)
 	 */
-	public ConfluenceAccessTool(String url, String user, String password, String proxy) {
+	public ConfluenceAccessTool(String url, String user, String password, String proxy, ConnectionSettings settings) {
 		super();
-		client = new JsonHTTPClientWrapper(url, user, password, proxy);
+		this.url = url;
+		client = new JsonHTTPClientWrapper(url, user, password, proxy, settings);
 	}
 
 
@@ -63,17 +190,30 @@ public class ConfluenceAccessTool {
 			Map<String, String> params = new HashMap<>();
 			params.put("spaceKey", space);
 			params.put("title", title);
+			//only the ids are needed
+			params.put("expand", "");
 			
-			JsonElement je = client.getJson("/rest/api/content", params);
+			final List<Long> results = new ArrayList<Long>();
 			
-			JsonArray resultsArray = je.getAsJsonObject().get("results").getAsJsonArray();
-
-			List<Long> results = new ArrayList<Long>();
-
-			for (int i = 0; i < resultsArray.size(); i++) {
-				results.add(resultsArray.get(i).getAsJsonObject().get("id")
-						.getAsLong());
-			}
+			client.getJson("/rest/api/content", params, new JsonStreamHandler<Void>() {
+				@Override
+				public Void handle(JsonReader reader) throws IOException {
+					reader.beginObject();
+					while (reader.hasNext()) {
+						if ("results".equals(reader.nextName())) {
+							reader.beginArray();
+							while (reader.hasNext()) {
+								results.add(readPageID(reader));
+							}
+							reader.endArray();
+						} else {
+							reader.skipValue();
+						}
+					}
+					reader.endObject();
+					return null;
+				}
+			});
 
 			return results;
 		} catch (Exception e) {
@@ -81,6 +221,407 @@ public class ConfluenceAccessTool {
 		}
 	}
 
+	/**
+	 * 
+	 * Resolves the id of the page with the given title in the given space.
+	 * The id is cached for a limited time, if a request using it fails because the page has been removed or replaced in the meantime,
+	 * {@link #invalidatePageID(String, String)} has to be called.
+	 * 
+	 * @param title
+	 *            the title of the page
+	 * @param space
+	 *            the key of the space
+	 * @return the id of the page, null if there is no page with the given title
+	 * @throws RuntimeException
+	 *             if there are multiple pages with the given title
+	 */
+	public Long resolvePageID(String title, String space) {
+		String key = getPageIDCacheKey(title, space);
+		Long id = PAGE_IDS.getIfPresent(key);
+		if (id != null) {
+			return id;
+		}
+		List<Long> results = getPageIDByTitle(title, space);
+		if (results.size() > 1) {
+			throw new RuntimeException("Multiple pages with title '" + title + "' found!");
+		}
+		if (results.isEmpty()) {
+			return null;
+		}
+		id = results.get(0);
+		PAGE_IDS.put(key, id);
+		return id;
+	}
+
+	/**
+	 * Removes the cached id of the page with the given title, so that it is resolved again by the next call to {@link #resolvePageID(String, String)}.
+	 * 
+	 * @param title
+	 *            the title of the page
+	 * @param space
+	 *            the key of the space
+	 */
+	public void invalidatePageID(String title, String space) {
+		PAGE_IDS.invalidate(getPageIDCacheKey(title, space));
+	}
+
+	/**
+	 * @param title
+	 *            the title of a page
+	 * @param space
+	 *            the key of the space
+	 * @return the key of the page in the {@link #PAGE_IDS} cache
+	 */
+	private String getPageIDCacheKey(String title, String space) {
+		return url + "\n" + space + "\n" + title;
+	}
+
+	/**
+	 * Reads a single content object of a search result, skipping everything except the id.
+	 * 
+	 * @param reader
+	 *            the reader positioned at the beginning of the content object
+	 * @return the id of the page
+	 * @throws IOException
+	 *             if reading fails
+	 */
+	private static Long readPageID(JsonReader reader) throws IOException {
+		Long id = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if ("id".equals(reader.nextName())) {
+				id = Long.parseLong(reader.nextString());
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return id;
+	}
+
+	/**
+	 * 
+	 * Queries the page with the given title in the given space, including its version and the hash of the content published by this plugin.
+	 * 
+	 * @param title
+	 *            the title of the page
+	 * @param space
+	 *            the key of the space
+	 * @return the page, null if there is no page with the given title
+	 */
+	public Page findPage(String title, String space) {
+		Map<String, String> params = new HashMap<>();
+		params.put("spaceKey", space);
+		params.put("title", title);
+		params.put("expand", Page.EXPAND);
+
+		return client.getJson("/rest/api/content", params, new JsonStreamHandler<Page>() {
+			@Override
+			public Page handle(JsonReader reader) throws IOException {
+				Page page = null;
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if ("results".equals(reader.nextName())) {
+						reader.beginArray();
+						while (reader.hasNext()) {
+							if (page == null) {
+								page = Page.read(reader);
+							} else {
+								reader.skipValue();
+							}
+						}
+						reader.endArray();
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+				return page;
+			}
+		});
+	}
+
+	/**
+	 * 
+	 * Queries all pages with the given titles in the given space using a single CQL search,
+	 * including their versions and the hashes of the content published by this plugin.
+	 * 
+	 * @param titles
+	 *            the titles of the pages to look for
+	 * @param space
+	 *            the key of the space
+	 * @return the pages found, indexed by title
+	 */
+	public Map<String, Page> findPages(final Collection<String> titles, String space) {
+		final Map<String, Page> pages = new HashMap<String, Page>();
+		if (titles.isEmpty()) {
+			return pages;
+		}
+		StringBuilder cql = new StringBuilder();
+		cql.append("space = ").append(quoteCQL(space)).append(" and type = page and title in (");
+		boolean first = true;
+		for (String title : titles) {
+			if (!first) {
+				cql.append(", ");
+			}
+			cql.append(quoteCQL(title));
+			first = false;
+		}
+		cql.append(")");
+
+		int start = 0;
+		while (true) {
+			Map<String, String> params = new HashMap<>();
+			params.put("cql", cql.toString());
+			params.put("expand", Page.EXPAND);
+			params.put("start", String.valueOf(start));
+			params.put("limit", String.valueOf(SEARCH_PAGE_SIZE));
+			ResultPage<Page> result = client.getJson("/rest/api/content/search", params, new ResultPageHandler<Page>() {
+				@Override
+				protected Page readResult(JsonReader reader) throws IOException {
+					return Page.read(reader);
+				}
+			});
+			if (result == null) {
+				return pages;
+			}
+			for (Page page : result.results) {
+				//the title comparison of CQL is not case sensitive
+				if (titles.contains(page.getTitle())) {
+					pages.put(page.getTitle(), page);
+				}
+			}
+			if (!result.hasNext()) {
+				return pages;
+			}
+			start += result.results.size();
+		}
+	}
+
+	/**
+	 * Quotes a value for use in a CQL query.
+	 * 
+	 * @param value
+	 *            the value
+	 * @return the quoted value
+	 */
+	private static String quoteCQL(String value) {
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	/**
+	 * Queries the direct child pages of a page, including their versions and the hashes of the content published by this plugin.
+	 * 
+	 * @param pageID
+	 *            the id of the page
+	 * @return the child pages
+	 */
+	public List<Page> getChildPages(long pageID) {
+		List<Page> children = new ArrayList<Page>();
+		int start = 0;
+		while (true) {
+			Map<String, String> params = new HashMap<>();
+			params.put("expand", Page.EXPAND);
+			params.put("start", String.valueOf(start));
+			params.put("limit", String.valueOf(SEARCH_PAGE_SIZE));
+			ResultPage<Page> result = client.getJson("/rest/api/content/" + pageID + "/child/page", params, new ResultPageHandler<Page>() {
+				@Override
+				protected Page readResult(JsonReader reader) throws IOException {
+					return Page.read(reader);
+				}
+			});
+			if (result == null) {
+				return children;
+			}
+			children.addAll(result.results);
+			if (!result.hasNext()) {
+				return children;
+			}
+			start += result.results.size();
+		}
+	}
+
+	/**
+	 * Deletes a page, moving it to the trash of its space. A page which does not exist (anymore) is ignored.
+	 * 
+	 * @param pageID
+	 *            the id of the page
+	 */
+	public void deletePage(long pageID) {
+		try {
+			client.delete("/rest/api/content/" + pageID);
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof HttpStatusException && ((HttpStatusException) e.getCause()).getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+				return;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * A single page of a paged result list.
+	 * 
+	 * @param <T>
+	 *            the type the results are read into
+	 */
+	private static final class ResultPage<T> {
+
+		/**
+		 * The results of this page.
+		 */
+		private final List<T> results = new ArrayList<T>();
+
+		/**
+		 * True, if the response links to a next page.
+		 */
+		private boolean next;
+
+		/**
+		 * @return true, if there are further results and this page is not empty
+		 */
+		public boolean hasNext() {
+			return next && !results.isEmpty();
+		}
+	}
+
+	/**
+	 * Handler for one page of a paged result list, reads each result using {@link #readResult(JsonReader)}.
+	 * Confluence may return fewer results than requested even if more are available,
+	 * therefore the end of the list is detected by the absence of the link to the next page.
+	 * Each attempt to read the response produces a new page, so that a request repeated after a partially read response
+	 * does not leave the results of the failed attempt behind.
+	 * 
+	 * @param <T>
+	 *            the type the results are read into
+	 * @author Jonas Kunz
+	 *
+	 */
+	private abstract static class ResultPageHandler<T> implements JsonStreamHandler<ResultPage<T>> {
+
+		@Override
+		public ResultPage<T> handle(JsonReader reader) throws IOException {
+			ResultPage<T> page = new ResultPage<T>();
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("results".equals(name)) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						page.results.add(readResult(reader));
+					}
+					reader.endArray();
+				} else if ("_links".equals(name)) {
+					reader.beginObject();
+					while (reader.hasNext()) {
+						if ("next".equals(reader.nextName())) {
+							page.next = true;
+						}
+						reader.skipValue();
+					}
+					reader.endObject();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+			return page;
+		}
+
+		/**
+		 * Reads a single result.
+		 * 
+		 * @param reader
+		 *            the reader positioned at the beginning of the result
+		 * @return the result
+		 * @throws IOException
+		 *             if reading fails
+		 */
+		protected abstract T readResult(JsonReader reader) throws IOException;
+	}
+
+	/**
+	 * 
+	 * Publishes a tree of pages.
+	 * All existing pages and all parent pages outside of the tree are resolved up front with a single query.
+	 * Afterwards the pages are published level by level: each page is published after its parent,
+	 * the pages of the same level are published concurrently.
+	 * Existing pages are only updated if their content has changed, see {@link #upsertPage(String, String, String, Long)}.
+	 * 
+	 * @param specs
+	 *            the pages to publish, a page may name any other page of the list as parent
+	 * @param space
+	 *            the key of the space
+	 * @param parallelism
+	 *            the maximum number of pages published at the same time
+	 * @return the published pages, parents before their children
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while the pages are published
+	 * @throws RuntimeException
+	 *             if a title is used twice, the parents form a cycle or a parent page outside of the tree does not exist
+	 */
+	public List<PublishedPage> publishPageTree(List<PageSpec> specs, final String space, int parallelism) throws InterruptedException {
+		Map<String, PageSpec> specsByTitle = new LinkedHashMap<String, PageSpec>();
+		for (PageSpec spec : specs) {
+			if (specsByTitle.put(spec.getTitle(), spec) != null) {
+				throw new RuntimeException("The page '" + spec.getTitle() + "' is specified more than once!");
+			}
+		}
+		Set<String> titles = new LinkedHashSet<String>(specsByTitle.keySet());
+		for (PageSpec spec : specs) {
+			if (spec.getParentTitle() != null) {
+				titles.add(spec.getParentTitle());
+			}
+		}
+		final Map<String, Page> existing = findPages(titles, space);
+
+		Map<String, Long> pageIDs = new HashMap<String, Long>();
+		List<List<PageSpec>> levels = new ArrayList<List<PageSpec>>();
+		for (PageSpec spec : specs) {
+			String parentTitle = spec.getParentTitle();
+			if (parentTitle != null && !specsByTitle.containsKey(parentTitle)) {
+				Page parent = existing.get(parentTitle);
+				if (parent == null) {
+					throw new RuntimeException("Parent page '" + parentTitle + "' of page '" + spec.getTitle() + "' not found in space '" + space + "'!");
+				}
+				pageIDs.put(parentTitle, parent.getId());
+			}
+			int depth = 0;
+			while (parentTitle != null && specsByTitle.containsKey(parentTitle)) {
+				depth++;
+				if (depth > specs.size()) {
+					throw new RuntimeException("The parents of page '" + spec.getTitle() + "' form a cycle!");
+				}
+				parentTitle = specsByTitle.get(parentTitle).getParentTitle();
+			}
+			while (levels.size() <= depth) {
+				levels.add(new ArrayList<PageSpec>());
+			}
+			levels.get(depth).add(spec);
+		}
+
+		List<PublishedPage> results = new ArrayList<PublishedPage>();
+		for (int depth = 0; depth < levels.size(); depth++) {
+			final int level = depth;
+			List<Callable<PublishedPage>> tasks = new ArrayList<Callable<PublishedPage>>();
+			for (final PageSpec spec : levels.get(depth)) {
+				final Long parentPageID = spec.getParentTitle() == null ? null : pageIDs.get(spec.getParentTitle());
+				tasks.add(new Callable<PublishedPage>() {
+					@Override
+					public PublishedPage call() {
+						long start = System.currentTimeMillis();
+						UpsertResult result = upsertPage(existing.get(spec.getTitle()), spec.getTitle(), spec.getHtmlContent(), space, parentPageID);
+						return new PublishedPage(spec.getTitle(), result.getPageID(), result.getOutcome(), level, System.currentTimeMillis() - start);
+					}
+				});
+			}
+			for (PublishedPage page : StepExecutor.invokeAll("Confluence page tree", tasks, parallelism)) {
+				pageIDs.put(page.getTitle(), page.getPageID());
+				results.add(page);
+			}
+		}
+		return results;
+	}
+
 	/**
 	 * 
 	 * Creates a new page in the given space.
@@ -95,37 +636,285 @@ public class ConfluenceAccessTool {
 	 *            the id of the parent page, under which the new page should be
 	 *            inserted as child. If parentPageID is null, the new page will
 	 *            be placed at the spaces root.
+	 * @return the id of the new page
+	 */
+	public Long createPage(final String title, final String htmlContent, final String space, final Long parentPageID) {
+
+		//the page is written directly to the connection, as the content may be large
+		return client.postJson("/rest/api/content", new JsonWriterCallback() {
+			@Override
+			public void write(JsonWriter writer) throws IOException {
+				writePage(writer, title, htmlContent, space, parentPageID, null);
+			}
+		}, PAGE_ID_HANDLER);
+
+	}
+
+	/**
+	 * 
+	 * Creates or updates the page with the given title in the given space.
+	 * The hash of the normalized content is stored as page property, an existing page is only updated if the hash differs.
+	 * This way, republishing unchanged content costs a single read instead of a new page version.
+	 * The hash is compared instead of the content itself, as Confluence reformats the stored content.
+	 * 
+	 * @param title
+	 *            the title of the page
+	 * @param htmlContent
+	 *            the html content of the page
+	 * @param space
+	 *            the key of the space where the page shall be placed
+	 * @param parentPageID
+	 *            the id of the parent page, under which the page should be
+	 *            placed as child. If parentPageID is null, the page will
+	 *            be placed at the spaces root.
+	 * @return the id of the page and what has been done
+	 */
+	public UpsertResult upsertPage(String title, String htmlContent, String space, Long parentPageID) {
+		return upsertPage(findPage(title, space), title, htmlContent, space, parentPageID);
+	}
+
+	/**
+	 * 
+	 * Creates or updates a page which has already been queried, see {@link #upsertPage(String, String, String, Long)}.
+	 * 
+	 * @param existing
+	 *            the existing page with the given title including its content hash, null if there is none
+	 * @param title
+	 *            the title of the page
+	 * @param htmlContent
+	 *            the html content of the page
+	 * @param space
+	 *            the key of the space where the page shall be placed
+	 * @param parentPageID
+	 *            the id of the parent page, null for the root of the space
+	 * @return the id of the page and what has been done
 	 */
-	public void createPage(String title, String htmlContent, String space, Long parentPageID) {
+	public UpsertResult upsertPage(Page existing, final String title, final String htmlContent, final String space, final Long parentPageID) {
+		String contentHash = hashContent(htmlContent);
+		if (existing == null) {
+			Long id = createPage(title, htmlContent, space, parentPageID);
+			writeContentHash(id, contentHash, 0);
+			return new UpsertResult(id, UpsertOutcome.CREATED);
+		}
+		if (contentHash.equals(existing.getContentHash())) {
+			return new UpsertResult(existing.getId(), UpsertOutcome.UNCHANGED);
+		}
+		final int nextVersion = existing.getVersion() + 1;
+		client.putJson("/rest/api/content/" + existing.getId(), new JsonWriterCallback() {
+			@Override
+			public void write(JsonWriter writer) throws IOException {
+				writePage(writer, title, htmlContent, space, parentPageID, nextVersion);
+			}
+		}, PAGE_ID_HANDLER);
+		writeContentHash(existing.getId(), contentHash, existing.getContentHashVersion());
+		return new UpsertResult(existing.getId(), UpsertOutcome.UPDATED);
+	}
 
-		JsonObject page = new JsonObject();
-		page.addProperty("type", "page");
-		page.addProperty("title", title);
+	/**
+	 * Writes a page object as expected for creating and updating pages.
+	 * 
+	 * @param writer
+	 *            the writer
+	 * @param title
+	 *            the title of the page
+	 * @param htmlContent
+	 *            the html content of the page
+	 * @param space
+	 *            the key of the space
+	 * @param parentPageID
+	 *            the id of the parent page, can be null
+	 * @param version
+	 *            the new version number when updating a page, null when creating it
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	private static void writePage(JsonWriter writer, String title, String htmlContent, String space, Long parentPageID, Integer version) throws IOException {
+		writer.beginObject();
+		writer.name("type").value("page");
+		writer.name("title").value(title);
 		if (parentPageID != null) {
-			JsonObject parentPage = new JsonObject();
-			parentPage.addProperty("type", "page");
-			parentPage.addProperty("id", parentPageID);
-			
-			JsonArray ancestors = new JsonArray();
-			ancestors.add(parentPage);
-			page.add("ancestors", ancestors);
-			
+			writer.name("ancestors").beginArray();
+			writer.beginObject();
+			writer.name("type").value("page");
+			writer.name("id").value(parentPageID);
+			writer.endObject();
+			writer.endArray();
 		}
-		JsonObject spaceObj = new JsonObject();
-		spaceObj.addProperty("key", space);
-		page.add("space", spaceObj);
-		
-		JsonObject body = new JsonObject();
-		JsonObject storage = new JsonObject();
-		storage.addProperty("value", htmlContent);
-		storage.addProperty("representation", "storage");
-		body.add("storage", storage);
-		
-		page.add("body", body);
-		
-		client.postJson("/rest/api/content", page);
-			
+		writer.name("space").beginObject();
+		writer.name("key").value(space);
+		writer.endObject();
+		if (version != null) {
+			writer.name("version").beginObject();
+			writer.name("number").value(version);
+			writer.endObject();
+		}
+
+		writer.name("body").beginObject();
+		writer.name("storage").beginObject();
+		writer.name("value").value(htmlContent);
+		writer.name("representation").value("storage");
+		writer.endObject();
+		writer.endObject();
+		writer.endObject();
+	}
+
+	/**
+	 * Stores the hash of the published content as page property.
+	 * 
+	 * @param pageID
+	 *            the id of the page
+	 * @param contentHash
+	 *            the hash of the content
+	 * @param propertyVersion
+	 *            the current version number of the property, 0 if it does not exist yet
+	 */
+	private void writeContentHash(long pageID, String contentHash, int propertyVersion) {
+		setPageProperty(pageID, Page.CONTENT_HASH_PROPERTY, new JsonPrimitive(contentHash), propertyVersion);
+	}
+
+	/**
+	 * Queries a content property of a page.
+	 * 
+	 * @param pageID
+	 *            the id of the page
+	 * @param key
+	 *            the key of the property
+	 * @return the property, null if the page has no property with the given key
+	 */
+	public PageProperty getPageProperty(long pageID, String key) {
+		try {
+			return client.getJson("/rest/api/content/" + pageID + "/property/" + key, new HashMap<String, String>(),
+					new JsonStreamHandler<PageProperty>() {
+						@Override
+						public PageProperty handle(JsonReader reader) throws IOException {
+							return PageProperty.read(reader);
+						}
+					});
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof HttpStatusException && ((HttpStatusException) e.getCause()).getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+				return null;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates or updates a content property of a page.
+	 * Properties are stored with the page without creating a new page version.
+	 * 
+	 * @param pageID
+	 *            the id of the page
+	 * @param key
+	 *            the key of the property
+	 * @param value
+	 *            the new value
+	 * @param currentVersion
+	 *            the current version number of the property, 0 if it does not exist yet
+	 */
+	public void setPageProperty(long pageID, String key, JsonElement value, int currentVersion) {
+		JsonObject property = new JsonObject();
+		property.addProperty("key", key);
+		property.add("value", value);
+		if (currentVersion == 0) {
+			client.postJson("/rest/api/content/" + pageID + "/property", property);
+		} else {
+			JsonObject version = new JsonObject();
+			version.addProperty("number", currentVersion + 1);
+			property.add("version", version);
+			client.putJson("/rest/api/content/" + pageID + "/property/" + key, property);
+		}
+	}
 
+	/**
+	 * Queries the attachments of a page.
+	 * 
+	 * @param pageID
+	 *            the id of the page
+	 * @return the latest version of all attachments, indexed by file name
+	 */
+	public Map<String, Attachment> getAttachments(long pageID) {
+		Map<String, Attachment> attachments = new LinkedHashMap<String, Attachment>();
+		int start = 0;
+		while (true) {
+			Map<String, String> params = new HashMap<>();
+			params.put("start", String.valueOf(start));
+			params.put("limit", String.valueOf(ATTACHMENT_PAGE_SIZE));
+			ResultPage<Attachment> result = client.getJson("/rest/api/content/" + pageID + "/child/attachment", params,
+					new ResultPageHandler<Attachment>() {
+						@Override
+						protected Attachment readResult(JsonReader reader) throws IOException {
+							return Attachment.read(reader);
+						}
+					});
+			if (result == null) {
+				return attachments;
+			}
+			for (Attachment attachment : result.results) {
+				attachments.put(attachment.getTitle(), attachment);
+			}
+			if (!result.hasNext()) {
+				return attachments;
+			}
+			start += result.results.size();
+		}
+	}
+
+	/**
+	 * Attaches a file to a page, unless the latest version of the existing attachment already has the same content.
+	 * The file is streamed from the given source, the MD5 hash of the file is stored in the comment of the attachment
+	 * so that later uploads of the same file can be skipped.
+	 * 
+	 * @param pageID
+	 *            the id of the page
+	 * @param existing
+	 *            the existing attachment with the same file name, null if there is none
+	 * @param fileName
+	 *            the name of the file
+	 * @param mimeType
+	 *            the content type of the file
+	 * @param length
+	 *            the length of the file in bytes
+	 * @param md5
+	 *            the hex encoded MD5 hash of the file
+	 * @param source
+	 *            the source of the file content
+	 * @return true, if the file has been uploaded, false if it was skipped because it is unchanged
+	 */
+	public boolean uploadAttachment(long pageID, Attachment existing, String fileName, String mimeType, long length, String md5, ContentSource source) {
+		if (existing != null && existing.hasContent(length, md5)) {
+			return false;
+		}
+		Map<String, String> fields = new LinkedHashMap<String, String>();
+		fields.put("comment", Attachment.MD5_COMMENT_PREFIX + md5);
+		fields.put("minorEdit", "true");
+		MultipartFileEntity body = new MultipartFileEntity("file", fileName, mimeType, length, source, fields);
+		String path = "/rest/api/content/" + pageID + "/child/attachment";
+		if (existing != null) {
+			//adds a new version to the existing attachment
+			path += "/" + existing.getId() + "/data";
+		}
+		client.postMultipart(path, body, new JsonStreamHandler<Void>() {
+			@Override
+			public Void handle(JsonReader reader) throws IOException {
+				reader.skipValue();
+				return null;
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Computes the hash of the given page content.
+	 * The content is normalized first, so that differences in line breaks and in the whitespace between tags do not count as change.
+	 * 
+	 * @param htmlContent
+	 *            the html content of a page
+	 * @return the hex encoded SHA-256 hash of the normalized content
+	 */
+	static String hashContent(String htmlContent) {
+		String normalized = WHITESPACE_BETWEEN_TAGS.matcher(htmlContent.trim()).replaceAll("><");
+		normalized = WHITESPACE.matcher(normalized).replaceAll(" ");
+		return Hashing.sha256().hashString(normalized, Charsets.UTF_8).toString();
 	}
 
 }
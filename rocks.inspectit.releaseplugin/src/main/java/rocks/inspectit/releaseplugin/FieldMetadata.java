@@ -1,7 +1,9 @@
 package rocks.inspectit.releaseplugin;
 
-import com.atlassian.jira.rest.client.api.domain.Field;
-import com.atlassian.jira.rest.client.api.domain.FieldSchema;
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 /**
  * Class used for storing the meta information about a JIRA field.
@@ -35,27 +37,68 @@ public class FieldMetadata {
 	
 	/**
 	 * Constructor.
-	 * @param f the field to use for extracting the metadata.
+	 * @param id the id of the field
+	 * @param name the name of the field
+	 * @param schemaType the type declared by the schema of the field, null if the field has no schema
+	 * @param schemaItems the element type declared by the schema of array fields
 	 */
-	public FieldMetadata(Field f) {
-		internalName = f.getId();
-		humanReadableName = f.getName();
+	public FieldMetadata(String id, String name, String schemaType, String schemaItems) {
+		internalName = id;
+		humanReadableName = name;
 		
-		FieldSchema schema = f.getSchema();
-		if (schema != null) {
+		if (schemaType != null) {
 			isModifiable = true;
-			if (schema.getType().equalsIgnoreCase("array")) {
+			if (schemaType.equalsIgnoreCase("array")) {
 				isArray = true;
-				elementType = schema.getItems();
+				elementType = schemaItems;
 			} else {
 				isArray = false;
-				elementType = schema.getType();
+				elementType = schemaType;
 			}
 			
 		} else {
 			isModifiable = false;
 		}
 	}
+	
+	/**
+	 * Reads a field object as returned by /rest/api/2/field.
+	 * @param reader the reader positioned at the beginning of the field object
+	 * @return the metadata of the field
+	 * @throws IOException if reading fails
+	 */
+	public static FieldMetadata read(JsonReader reader) throws IOException {
+		String id = null;
+		String name = null;
+		String schemaType = null;
+		String schemaItems = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String property = reader.nextName();
+			if ("id".equals(property)) {
+				id = reader.nextString();
+			} else if ("name".equals(property)) {
+				name = reader.nextString();
+			} else if ("schema".equals(property) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String schemaProperty = reader.nextName();
+					if ("type".equals(schemaProperty)) {
+						schemaType = reader.nextString();
+					} else if ("items".equals(schemaProperty)) {
+						schemaItems = reader.nextString();
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new FieldMetadata(id, name, schemaType, schemaItems);
+	}
 
 	public String getInternalName() {
 		return internalName;
@@ -0,0 +1,83 @@
+package rocks.inspectit.releaseplugin;
+
+import rocks.inspectit.releaseplugin.jira.IssueType;
+import rocks.inspectit.releaseplugin.jira.Priority;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Utility class for building the data sent to /issue POST requests to create issues.
+ * See the JIRA Rest API documentation for more information.
+ * 
+ * @author Jonas Kunz
+ *
+ */
+public class IssueInputBuilder {
+
+	/**
+	 * The field values set so far.
+	 */
+	private JsonObject fields;
+
+	/**
+	 * Constructor.
+	 * @param projectKey the key of the project in which the issue is created
+	 * @param type the type of the new issue
+	 */
+	public IssueInputBuilder(String projectKey, IssueType type) {
+		fields = new JsonObject();
+		fields.add("project", buildReference("key", projectKey));
+		fields.add("issuetype", buildReference("id", type.getId()));
+	}
+
+	/**
+	 * @param summary the summary (title) of the issue
+	 */
+	public void setSummary(String summary) {
+		fields.addProperty("summary", summary);
+	}
+
+	/**
+	 * @param description the description of the issue
+	 */
+	public void setDescription(String description) {
+		fields.addProperty("description", description);
+	}
+
+	/**
+	 * @param priority the priority of the issue
+	 */
+	public void setPriority(Priority priority) {
+		fields.add("priority", buildReference("id", priority.getId()));
+	}
+
+	/**
+	 * @param parentKey the key of the parent issue, required for subtasks
+	 */
+	public void setParent(String parentKey) {
+		fields.add("parent", buildReference("key", parentKey));
+	}
+
+	/**
+	 * Builds a reference to another entity.
+	 * @param property the identifying property, e.g. id or key
+	 * @param value the value of the property
+	 * @return a JSON object representing the reference
+	 */
+	private JsonObject buildReference(String property, String value) {
+		JsonObject reference = new JsonObject();
+		reference.addProperty(property, value);
+		return reference;
+	}
+
+	/**
+	 * Returns the data to send with the post - request for creating the issue.
+	 * @return the finished request
+	 */
+	public JsonElement getRequestData() {
+		JsonObject data = new JsonObject();
+		data.add("fields", fields);
+		return data;
+	}
+}
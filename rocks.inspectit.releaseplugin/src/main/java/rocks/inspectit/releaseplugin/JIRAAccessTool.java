@@ -1,44 +1,44 @@
 package rocks.inspectit.releaseplugin;
-import java.net.URI;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
-import com.atlassian.jira.rest.client.api.JiraRestClient;
-import com.atlassian.jira.rest.client.api.MetadataRestClient;
-import com.atlassian.jira.rest.client.api.VersionRestClient;
-import com.atlassian.jira.rest.client.api.domain.BasicIssue;
-import com.atlassian.jira.rest.client.api.domain.BasicIssueType;
-import com.atlassian.jira.rest.client.api.domain.BasicPriority;
-import com.atlassian.jira.rest.client.api.domain.Field;
-import com.atlassian.jira.rest.client.api.domain.Issue;
-import com.atlassian.jira.rest.client.api.domain.IssueType;
-import com.atlassian.jira.rest.client.api.domain.Priority;
-import com.atlassian.jira.rest.client.api.domain.Project;
-import com.atlassian.jira.rest.client.api.domain.SearchResult;
-import com.atlassian.jira.rest.client.api.domain.Transition;
-import com.atlassian.jira.rest.client.api.domain.Version;
-import com.atlassian.jira.rest.client.api.domain.input.IssueInputBuilder;
-import com.atlassian.jira.rest.client.api.domain.input.TransitionInput;
-import com.atlassian.jira.rest.client.api.domain.input.VersionInputBuilder;
-import com.atlassian.jira.rest.client.internal.async.AsynchronousJiraRestClientFactory;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+
+import rocks.inspectit.releaseplugin.JsonHTTPClientWrapper.JsonStreamHandler;
+import rocks.inspectit.releaseplugin.http.ConnectionSettings;
+import rocks.inspectit.releaseplugin.jira.Issue;
+import rocks.inspectit.releaseplugin.jira.IssueType;
+import rocks.inspectit.releaseplugin.jira.Priority;
+import rocks.inspectit.releaseplugin.jira.Transition;
+import rocks.inspectit.releaseplugin.jira.Version;
 
 
 /**
  * 
  * Tool encapsulating the access to a JIRA Server using the REST-API.
+ * All requests are executed by the shared, pooled JSON client, the responses are streamed into minimal domain objects
+ * containing only the information used by the build steps.
  * 
  * @author Jonas Kunz
  *
  */
 public class JIRAAccessTool {
 	
-	
 	/**
-	 * The JIRA API client.
+	 * Matches the ORDER BY keywords of a JQL query.
 	 */
-	private JiraRestClient restClient;
+	private static final Pattern ORDER_BY = Pattern.compile("order\\s+by\\b", Pattern.CASE_INSENSITIVE);
 	
 	/**
 	 * The credentials id this connection was created with.
@@ -69,7 +69,12 @@ public class JIRAAccessTool {
 	private String projectKey;
 	
 	/**
-	 * As some features are not supported by the java rest wrapper for jira, we use an additional plain http client for these features.
+	 * The connection specific settings, e.g. whether compression is used.
+	 */
+	private ConnectionSettings settings;
+	
+	/**
+	 * The http client used for all requests.
 	 */
 	private JsonHTTPClientWrapper jsonClient;
 	
@@ -105,14 +110,16 @@ public class JIRAAccessTool {
 	 * @param proxy the proxy to use (can be null)
 	 * @param projectKey the key of the project
 	 * @param jenkinsCredentialsId the id of the jenkins crednetials used for this jira
+	 * @param settings the connection specific settings (can be null)
 	 */
-	public JIRAAccessTool(String url, String user, String password, String proxy, String projectKey, String jenkinsCredentialsId) {
+	public JIRAAccessTool(String url, String user, String password, String proxy, String projectKey, String jenkinsCredentialsId, ConnectionSettings settings) {
 		this.url = url;
 		this.user = user;
 		this.password = password;
 		this.proxy = proxy;
 		this.projectKey = projectKey;
 		this.jenkinsCredentialsId = jenkinsCredentialsId;
+		this.settings = settings;
 		connect();
 	}
 	
@@ -125,7 +132,7 @@ public class JIRAAccessTool {
 	 */
 	public List<String> getAvailableIssueTypes() {
 		List<String> names = new ArrayList<String>();
-		for (IssueType type : restClient.getMetadataClient().getIssueTypes().claim()) {
+		for (IssueType type : getIssueTypes()) {
 			names.add(type.getName());
 		}
 		return names;
@@ -137,7 +144,7 @@ public class JIRAAccessTool {
 	 */
 	public List<String> getAvailableIssuePriorities() {
 		List<String> names = new ArrayList<String>();
-		for (Priority priority : restClient.getMetadataClient().getPriorities().claim()) {
+		for (Priority priority : getPriorities()) {
 			names.add(priority.getName());
 		}
 		return names;
@@ -162,8 +169,7 @@ public class JIRAAccessTool {
 	 */
 	public List<String> getAvailableVersions() {
 		List<String> names = new ArrayList<String>();
-		Project project = restClient.getProjectClient().getProject(projectKey).claim();
-		for (Version version : project.getVersions()) {
+		for (Version version : getVersions()) {
 			names.add(version.getName());
 		}
 		return names;
@@ -177,13 +183,7 @@ public class JIRAAccessTool {
 	 */
 	private void connect() {
 		
-		jsonClient = new JsonHTTPClientWrapper(url, user, password, proxy);
-		
-		final AsynchronousJiraRestClientFactory factory = new AsynchronousJiraRestClientFactory();
-		//TODO: create rest client with proxy
-		
-		restClient = factory.createWithBasicHttpAuthentication(URI.create(url), user, password);
-		//restClient = factory.create(URI.create(url), jsonClient.getHttpClient());
+		jsonClient = new JsonHTTPClientWrapper(url, user, password, proxy, settings);
 		
 	}
 	
@@ -200,15 +200,13 @@ public class JIRAAccessTool {
 	 */
 	public Version createUpdateVersion(String versionName, BuildingLambda<VersionInputBuilder> buildingLambda) {
 		
-		VersionRestClient cl = restClient.getVersionRestClient();
-		
 		Version existingVersion = getVersionByName(versionName);
 
 		//cannot upload released versions directly, we first have to upload the version and then update it
 		if (existingVersion == null) {
 			VersionInputBuilder builder = new VersionInputBuilder(projectKey);
 			builder.setName(versionName);
-			existingVersion = cl.createVersion(builder.build()).claim();
+			existingVersion = jsonClient.postJson("/rest/api/2/version", builder.getRequestData(), VERSION_HANDLER);
 		}
 		
 		VersionInputBuilder versBuilder = new VersionInputBuilder(projectKey);
@@ -218,7 +216,7 @@ public class JIRAAccessTool {
 
 		buildingLambda.build(versBuilder);
 		
-		return cl.updateVersion(existingVersion.getSelf(), versBuilder.build()).claim();
+		return jsonClient.putJson("/rest/api/2/version/" + existingVersion.getId(), versBuilder.getRequestData(), VERSION_HANDLER);
 	}
 	
 	
@@ -232,9 +230,8 @@ public class JIRAAccessTool {
 	 * 		an instance representing the given version or null if no such version exists.
 	 */
 	public Version getVersionByName(String versionName) {
-		Project project = restClient.getProjectClient().getProject(projectKey).claim();
 		Version existingVersion = null;
-		for (Version vers : project.getVersions()) {
+		for (Version vers : getVersions()) {
 			if (vers.getName().equalsIgnoreCase(versionName)) {
 				existingVersion = vers;
 			}
@@ -266,17 +263,258 @@ public class JIRAAccessTool {
 	 * 		a list of all issues with this version as affected version.
 	 */
 	public List<Issue> getTicketsByJQL(String jqlQuery) {
-		SearchResult result = restClient.getSearchClient().searchJql("(" + jqlQuery + ") AND project = \"" + projectKey + "\"").claim();
+		final List<Issue> issues = new ArrayList<Issue>();
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("jql", restrictJQL(jqlQuery, "project = \"" + projectKey + "\""));
+		params.put("fields", Issue.FIELDS);
+		params.put("maxResults", String.valueOf(ISSUE_SEARCH_PAGE_SIZE));
 		
-		ArrayList<Issue> issues = new ArrayList<Issue>();
-		for (Issue is : result.getIssues()) {
-			issues.add(is);
+		int startAt = 0;
+		while (true) {
+			params.put("startAt", String.valueOf(startAt));
+			SearchPage<Issue> page = jsonClient.getJson("/rest/api/2/search", params, new SearchPageHandler<Issue>() {
+				@Override
+				protected Issue readIssue(JsonReader reader) throws IOException {
+					return Issue.read(reader);
+				}
+			});
+			if (page == null) {
+				break;
+			}
+			issues.addAll(page.issues);
+			startAt += page.issues.size();
+			if (page.issues.isEmpty() || startAt >= page.total) {
+				break;
+			}
 		}
-		
 		return issues;
 
 	}
 	
+	/**
+	 * Counts the Tickets matching the given JQL Query without fetching them.
+	 * Limits the search to the project this tool was constructed with.
+	 * @param jqlQuery
+	 * 		the query to filter for
+	 * @return
+	 * 		the number of matching issues
+	 */
+	public int countTicketsByJQL(String jqlQuery) {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("jql", restrictJQL(jqlQuery, "project = \"" + projectKey + "\""));
+		params.put("fields", "key");
+		params.put("maxResults", "0");
+		Integer total = jsonClient.getJson("/rest/api/2/search", params, new JsonStreamHandler<Integer>() {
+			@Override
+			public Integer handle(JsonReader reader) throws IOException {
+				int total = 0;
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if ("total".equals(reader.nextName())) {
+						total = reader.nextInt();
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+				return total;
+			}
+		});
+		return total == null ? 0 : total;
+	}
+	
+	/**
+	 * Combines a JQL query with an additional condition, both have to be fulfilled.
+	 * An ORDER BY clause of the query is kept at the end of the combined query.
+	 * @param jqlQuery
+	 * 		the query, may end with an ORDER BY clause
+	 * @param condition
+	 * 		the condition to add, without ORDER BY clause
+	 * @return
+	 * 		the combined query
+	 */
+	public static String restrictJQL(String jqlQuery, String condition) {
+		int orderBy = findOrderBy(jqlQuery);
+		String queryCondition = getJQLCondition(jqlQuery);
+		String order = orderBy < 0 ? "" : " " + jqlQuery.substring(orderBy).trim();
+		if (queryCondition.isEmpty()) {
+			return condition + order;
+		}
+		return "(" + queryCondition + ") AND " + condition + order;
+	}
+	
+	/**
+	 * @param jqlQuery
+	 * 		a JQL query, may end with an ORDER BY clause
+	 * @return
+	 * 		the condition of the query without ORDER BY clause, empty if the query matches all tickets
+	 */
+	public static String getJQLCondition(String jqlQuery) {
+		int orderBy = findOrderBy(jqlQuery);
+		return (orderBy < 0 ? jqlQuery : jqlQuery.substring(0, orderBy)).trim();
+	}
+	
+	/**
+	 * Finds the ORDER BY clause of a JQL query, ignoring quoted values.
+	 * @param jqlQuery
+	 * 		the query
+	 * @return
+	 * 		the index of the ORDER BY keywords, -1 if the query has no ORDER BY clause
+	 */
+	private static int findOrderBy(String jqlQuery) {
+		char quote = 0;
+		for (int i = 0; i < jqlQuery.length(); i++) {
+			char c = jqlQuery.charAt(i);
+			if (quote != 0) {
+				if (c == '\\') {
+					i++;
+				} else if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if ((i == 0 || !Character.isLetterOrDigit(jqlQuery.charAt(i - 1)))
+					&& ORDER_BY.matcher(jqlQuery).region(i, jqlQuery.length()).lookingAt()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Number of tickets requested per page when searching for tickets including their details.
+	 */
+	private static final int ISSUE_SEARCH_PAGE_SIZE = 100;
+	
+	/**
+	 * Number of tickets requested per page when searching only for ticket keys.
+	 */
+	private static final int KEY_SEARCH_PAGE_SIZE = 500;
+	
+	/**
+	 * Finds the keys of all Tickets matching the given JQL Query.
+	 * Limits the search to the project this tool was constructed with.
+	 * 
+	 * In contrast to {@link #getTicketsByJQL(String)} only the keys are fetched and the result pages are streamed,
+	 * so that no issue details are held in memory. All result pages are fetched.
+	 * 
+	 * @param jqlQuery
+	 * 		the query to filter for
+	 * @return
+	 * 		the keys of all matching issues, in the order returned by JIRA
+	 */
+	public Set<String> getTicketKeysByJQL(String jqlQuery) {
+		final Set<String> keys = new LinkedHashSet<String>();
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("jql", restrictJQL(jqlQuery, "project = \"" + projectKey + "\""));
+		params.put("fields", "key");
+		params.put("maxResults", String.valueOf(KEY_SEARCH_PAGE_SIZE));
+		
+		int startAt = 0;
+		while (true) {
+			params.put("startAt", String.valueOf(startAt));
+			SearchPage<String> page = jsonClient.getJson("/rest/api/2/search", params, new SearchPageHandler<String>() {
+				@Override
+				protected String readIssue(JsonReader reader) throws IOException {
+					return readIssueKey(reader);
+				}
+			});
+			if (page == null) {
+				break;
+			}
+			keys.addAll(page.issues);
+			//advanced by the records received, as the same key may be returned on two pages if tickets change meanwhile
+			startAt += page.issues.size();
+			if (page.issues.isEmpty() || startAt >= page.total) {
+				break;
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * A single page of the results of an issue search.
+	 *
+	 * @param <T> the type the issues are read into
+	 */
+	private static final class SearchPage<T> {
+
+		/**
+		 * The total number of issues matching the search.
+		 */
+		private int total;
+
+		/**
+		 * The issues of this page.
+		 */
+		private final List<T> issues = new ArrayList<T>();
+	}
+
+	/**
+	 * Reads a page of the results of an issue search.
+	 * Each attempt to read the response produces a new page, so that a request repeated after a partially read response
+	 * does not leave the issues of the failed attempt behind.
+	 *
+	 * @param <T> the type the issues are read into
+	 */
+	private abstract static class SearchPageHandler<T> implements JsonStreamHandler<SearchPage<T>> {
+
+		@Override
+		public SearchPage<T> handle(JsonReader reader) throws IOException {
+			SearchPage<T> page = new SearchPage<T>();
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("total".equals(name)) {
+					page.total = reader.nextInt();
+				} else if ("issues".equals(name)) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						page.issues.add(readIssue(reader));
+					}
+					reader.endArray();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+			return page;
+		}
+
+		/**
+		 * Reads a single issue.
+		 * @param reader
+		 * 		the reader positioned at the beginning of the issue object
+		 * @return
+		 * 		the issue
+		 * @throws IOException
+		 * 		if reading fails
+		 */
+		protected abstract T readIssue(JsonReader reader) throws IOException;
+	}
+	
+	/**
+	 * Reads a single issue object of a search result, skipping everything except the key.
+	 * @param reader
+	 * 		the reader positioned at the beginning of the issue object
+	 * @return
+	 * 		the key of the issue
+	 * @throws IOException
+	 * 		if reading fails
+	 */
+	private static String readIssueKey(JsonReader reader) throws IOException {
+		String key = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if ("key".equals(reader.nextName())) {
+				key = reader.nextString();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return key;
+	}
 	
 	/**
 	 * Builds a html page listing all the given Tickets (including links to JIRA).
@@ -287,28 +525,56 @@ public class JIRAAccessTool {
 	 */
 	public String buildReleaseNotesHTML(List<Issue> issuesToShow) {
 		
+		StringBuilder resultHtml = new StringBuilder();
+		//build a header and list for each issue type
+		for (Map.Entry<String, List<Issue>> group : groupByIssueType(issuesToShow).entrySet()) {
+			resultHtml.append("<h2>").append(group.getKey()).append("</h2>");
+			resultHtml.append(buildIssueListHTML(group.getValue()));
+		}
+		
+		return resultHtml.toString();
+	}
+
+	/**
+	 * Groups the given tickets by the name of their issue type.
+	 * @param issues
+	 * 		the issues to group
+	 * @return
+	 * 		the issues per type, the types are sorted by name ignoring the case, the issues keep their order
+	 */
+	public Map<String, List<Issue>> groupByIssueType(List<Issue> issues) {
 		Set<String> issueTypesSet = new HashSet<String>();
-		for (Issue is : issuesToShow) {
+		for (Issue is : issues) {
 			issueTypesSet.add(is.getIssueType().getName());
 		}
 		ArrayList<String> sortedIssueTypes = new ArrayList<String>(issueTypesSet);
-		sortedIssueTypes.sort(String.CASE_INSENSITIVE_ORDER);
-		
-		String resultHtml = "";
-		//build a header and list for each issue type
+		Collections.sort(sortedIssueTypes, String.CASE_INSENSITIVE_ORDER);
+
+		Map<String, List<Issue>> groups = new LinkedHashMap<String, List<Issue>>();
 		for (String issueType : sortedIssueTypes) {
-			resultHtml += "<h2>" + issueType + "</h2>";
-			resultHtml += "<ul>";
-			for (Issue is : issuesToShow) {
-				if (is.getIssueType().getName().equals(issueType)) {
-					
-					resultHtml += "<li>[<a href='" + url + "/browse/" + is.getKey() + "'>" + is.getKey() + "</a>] - " + is.getSummary() + "</li>";
-				}
-			}
-			resultHtml += "</ul>";
+			groups.put(issueType, new ArrayList<Issue>());
 		}
-		
-		return resultHtml;
+		for (Issue is : issues) {
+			groups.get(is.getIssueType().getName()).add(is);
+		}
+		return groups;
+	}
+
+	/**
+	 * Builds a html list of the given tickets (including links to JIRA).
+	 * @param issues
+	 * 		the issues to list
+	 * @return
+	 * 		a String containing the html code of the list
+	 */
+	public String buildIssueListHTML(List<Issue> issues) {
+		StringBuilder html = new StringBuilder("<ul>");
+		for (Issue is : issues) {
+			html.append("<li>[<a href='").append(url).append("/browse/").append(is.getKey()).append("'>").append(is.getKey()).append("</a>] - ")
+					.append(is.getSummary()).append("</li>");
+		}
+		html.append("</ul>");
+		return html.toString();
 	}
 	
 	/**
@@ -318,15 +584,15 @@ public class JIRAAccessTool {
 	 * 		the lambda providing the information of the new ticket.
 	 * @param type
 	 * 		the issue type (e.g. Task, bug, etc)
-	 * @return the created issue
+	 * @return the key of the created issue
 	 */
-	public BasicIssue addTicket(BuildingLambda<IssueInputBuilder> buildingFunction, BasicIssueType type) {
+	public String addTicket(BuildingLambda<IssueInputBuilder> buildingFunction, IssueType type) {
 
-		Project project = restClient.getProjectClient().getProject(projectKey).claim();
-		IssueInputBuilder builder = new IssueInputBuilder(project, type);
+		IssueInputBuilder builder = new IssueInputBuilder(projectKey, type);
 		
 		buildingFunction.build(builder);
-		return restClient.getIssueClient().createIssue(builder.build()).claim();
+		JsonElement created = jsonClient.postJson("/rest/api/2/issue", builder.getRequestData());
+		return created.getAsJsonObject().get("key").getAsString();
 	}
 	
 	/**
@@ -349,9 +615,8 @@ public class JIRAAccessTool {
 	 * 		an IssueType instance representing the given issue type.
 	 */
 	public IssueType getIssueTypeByName(String typeName) {
-		MetadataRestClient metadata = restClient.getMetadataClient();
 		IssueType type = null;
-		for (IssueType type2 : metadata.getIssueTypes().claim()) {
+		for (IssueType type2 : getIssueTypes()) {
 			if (type2.getName().equalsIgnoreCase(typeName)) {
 				type = type2;
 			}
@@ -364,12 +629,11 @@ public class JIRAAccessTool {
 	 * @param priorityName
 	 * 		the name of the priority to scan for, e.g. high, medium, etc
 	 * @return
-	 * 		an BasicPriority instance representing the given issue priority.
+	 * 		a Priority instance representing the given issue priority.
 	 */
-	public BasicPriority getIssuePriorityByName(String priorityName) {
-		MetadataRestClient metadata = restClient.getMetadataClient();
-		BasicPriority prio = null;
-		for (BasicPriority prio2 : metadata.getPriorities().claim()) {
+	public Priority getIssuePriorityByName(String priorityName) {
+		Priority prio = null;
+		for (Priority prio2 : getPriorities()) {
 			if (prio2.getName().equalsIgnoreCase(priorityName)) {
 				prio = prio2;
 			}
@@ -378,52 +642,131 @@ public class JIRAAccessTool {
 	}
 	
 	/**
-	 * Closes the connection.
+	 * @return all versions of the project this tool operates on
 	 */
-	public void destroy() {
-		try {
-			restClient.close();
-			jsonClient.destroy();
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
+	private List<Version> getVersions() {
+		return jsonClient.getJson("/rest/api/2/project/" + projectKey + "/versions", new HashMap<String, String>(), listOf(VERSION_HANDLER));
 	}
-
-
-
+	
+	/**
+	 * @return all issue types
+	 */
+	private List<IssueType> getIssueTypes() {
+		return jsonClient.getJson("/rest/api/2/issuetype", new HashMap<String, String>(), listOf(new JsonStreamHandler<IssueType>() {
+			@Override
+			public IssueType handle(JsonReader reader) throws IOException {
+				return IssueType.read(reader);
+			}
+		}));
+	}
+	
+	/**
+	 * @return all issue priorities
+	 */
+	private List<Priority> getPriorities() {
+		return jsonClient.getJson("/rest/api/2/priority", new HashMap<String, String>(), listOf(new JsonStreamHandler<Priority>() {
+			@Override
+			public Priority handle(JsonReader reader) throws IOException {
+				return Priority.read(reader);
+			}
+		}));
+	}
+	
+	/**
+	 * Handler reading a single version object.
+	 */
+	private static final JsonStreamHandler<Version> VERSION_HANDLER = new JsonStreamHandler<Version>() {
+		@Override
+		public Version handle(JsonReader reader) throws IOException {
+			return Version.read(reader);
+		}
+	};
+	
 	/**
-	 * Fetches an Issue object using the key of the issue.
+	 * Creates a handler reading a JSON array.
 	 * 
-	 * @param ticketKey
-	 * 		the key of the issue to fetch.
+	 * @param <T>
+	 * 		the type of the elements
+	 * @param elementHandler
+	 * 		the handler reading a single element
 	 * @return
-	 * 		the corresponding ticket.
+	 * 		the handler reading the whole array into a list
+	 */
+	private static <T> JsonStreamHandler<List<T>> listOf(final JsonStreamHandler<T> elementHandler) {
+		return new JsonStreamHandler<List<T>>() {
+			@Override
+			public List<T> handle(JsonReader reader) throws IOException {
+				List<T> elements = new ArrayList<T>();
+				reader.beginArray();
+				while (reader.hasNext()) {
+					elements.add(elementHandler.handle(reader));
+				}
+				reader.endArray();
+				return elements;
+			}
+		};
+	}
+	
+	/**
+	 * Closes the connection.
 	 */
-	public Issue getTicketByKey(String ticketKey) {
-		return restClient.getIssueClient().getIssue(ticketKey).claim();
+	public void destroy() {
+		jsonClient.destroy();
 	}
 
+
+
 	/**
 	 * Lists all transitions available from the view of the user for the given ticket. 
-	 * @param issue
-	 * 		the issue whose transitions shall be fetched.
+	 * @param ticketKey
+	 * 		the key of the issue whose transitions shall be fetched.
 	 * @return
 	 * 		a list of possible transitions.
 	 */
-	public Iterable<Transition> getAvailableTransitions(Issue issue) {
-		return restClient.getIssueClient().getTransitions(issue).claim();
+	public List<Transition> getAvailableTransitions(String ticketKey) {
+		return jsonClient.getJson("/rest/api/2/issue/" + ticketKey + "/transitions", new HashMap<String, String>(), new JsonStreamHandler<List<Transition>>() {
+			@Override
+			public List<Transition> handle(JsonReader reader) throws IOException {
+				List<Transition> transitions = new ArrayList<Transition>();
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if ("transitions".equals(reader.nextName())) {
+						reader.beginArray();
+						while (reader.hasNext()) {
+							transitions.add(Transition.read(reader));
+						}
+						reader.endArray();
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+				return transitions;
+			}
+		});
 	}
 	
 	
 	/**
 	 * Performs a transition on the given ticket.
-	 * @param issue
-	 * 		the issue on which the transition shall be performed.
-	 * @param transition
-	 * 		the transition to be performed
+	 * @param ticketKey
+	 * 		the key of the issue on which the transition shall be performed.
+	 * @param transitionId
+	 * 		the id of the transition to be performed
+	 * @param comment
+	 * 		the comment to add together with the transition, null for no comment
 	 */
-	public void performTransition(Issue issue, TransitionInput transition) {
-		restClient.getIssueClient().transition(issue, transition).claim();
+	public void performTransition(String ticketKey, int transitionId, String comment) {
+		JsonObject transition = new JsonObject();
+		transition.addProperty("id", String.valueOf(transitionId));
+		JsonObject data = new JsonObject();
+		data.add("transition", transition);
+		if (comment != null) {
+			IssueUpdateBuilder update = new IssueUpdateBuilder();
+			update.addComment(comment);
+			data.add("update", update.getRequestData().getAsJsonObject().get("update"));
+		}
+		jsonClient.postJson("/rest/api/2/issue/" + ticketKey + "/transitions", data);
 	}
 
 	/**
@@ -432,12 +775,12 @@ public class JIRAAccessTool {
 	 * @return a List of the field metadata.
 	 */
 	public List<FieldMetadata> getAvailableFields() {
-		List<FieldMetadata> result = new ArrayList<FieldMetadata>();
-		for (Field f : restClient.getMetadataClient().getFields().claim()) {
-			
-			result.add(new FieldMetadata(f));
-		}
-		return result;
+		return jsonClient.getJson("/rest/api/2/field", new HashMap<String, String>(), listOf(new JsonStreamHandler<FieldMetadata>() {
+			@Override
+			public FieldMetadata handle(JsonReader reader) throws IOException {
+				return FieldMetadata.read(reader);
+			}
+		}));
 	}
 	
 }
@@ -79,6 +79,21 @@ public final class JIRAMetadataCache {
 	 * key used for internal storage.
 	 */
 	private static final String FIELD_METADATA = "FIELD_METADATA";
+
+	/**
+	 * key used for internal storage.
+	 */
+	private static final String PROJECT_VERSIONS_INDEX = "PROJECT_VERSIONS_INDEX";
+
+	/**
+	 * key used for internal storage.
+	 */
+	private static final String FIELD_METADATA_INDEX = "FIELD_METADATA_INDEX";
+
+	/**
+	 * The maximum number of results returned by the search methods.
+	 */
+	public static final int SEARCH_RESULT_LIMIT = 20;
 	
 	/**
 	 * The actual cache.
@@ -196,7 +211,48 @@ public final class JIRAMetadataCache {
 	 */
 	public List<String> getAvailableVersions(final String credentialsID) {
 		
-		List<String> result = getCreateCacheEntry(credentialsID, PROJECT_VERSIONS, new Supplier<List<String>>() {
+		List<String> result = loadAvailableVersions(credentialsID);
+		return result == null ? new ArrayList<String>() : result;
+		
+	}
+	
+	/**
+	 * Searches the versions of the project for the best matches of the given query.
+	 * @param credentialsID
+	 * 		the id of the credentials of the JIRA project.
+	 * @param query
+	 * 		the text entered so far.
+	 * @return
+	 * 		the names of at most {@link #SEARCH_RESULT_LIMIT} best matching versions.
+	 */
+	public List<String> searchVersions(final String credentialsID, String query) {
+		MetadataSearchIndex<String> index = getCreateCacheEntry(credentialsID, PROJECT_VERSIONS_INDEX, new Supplier<MetadataSearchIndex<String>>() {
+			@Override
+			public MetadataSearchIndex<String> get() {
+				List<String> versions = loadAvailableVersions(credentialsID);
+				if (versions == null) {
+					return null;
+				}
+				return new MetadataSearchIndex<String>(versions, new Function<String, String>() {
+					@Override
+					public String apply(String version) {
+						return version;
+					}
+				});
+			}
+		});
+		return index == null ? new ArrayList<String>() : index.search(query, SEARCH_RESULT_LIMIT, null);
+	}
+	
+	/**
+	 * Fetches the versions of the project, if they are not cached yet.
+	 * @param credentialsID
+	 * 		the id of the credentials of the JIRA project.
+	 * @return
+	 * 		a list with the names of the versions or null if they could not be fetched.
+	 */
+	private List<String> loadAvailableVersions(final String credentialsID) {
+		return getCreateCacheEntry(credentialsID, PROJECT_VERSIONS, new Supplier<List<String>>() {
 			@Override
 			public List<String> get() {
 				return unsafeExecuteJiraCommands(credentialsID, new Function<JIRAAccessTool, List<String>>() {
@@ -208,8 +264,6 @@ public final class JIRAMetadataCache {
 				});
 			}
 		});
-		return result == null ? new ArrayList<String>() : result;
-		
 	}
 
 	
@@ -222,7 +276,50 @@ public final class JIRAMetadataCache {
 	 */
 	public List<FieldMetadata> getFieldMetadata(final String credentialsID) {
 		
-		List<FieldMetadata> result = getCreateCacheEntry(credentialsID, FIELD_METADATA, new Supplier<List<FieldMetadata>>() {
+		List<FieldMetadata> result = loadFieldMetadata(credentialsID);
+		return result == null ? new ArrayList<FieldMetadata>() : result;
+		
+	}
+	
+	/**
+	 * Searches the available fields for the best matches of the given query.
+	 * @param credentialsID
+	 * 		the id of the credentials of the JIRA project.
+	 * @param query
+	 * 		the text entered so far, matched against the human readable names of the fields.
+	 * @param filter
+	 * 		filter deciding which fields may be returned, can be null.
+	 * @return
+	 * 		at most {@link #SEARCH_RESULT_LIMIT} best matching fields.
+	 */
+	public List<FieldMetadata> searchFields(final String credentialsID, String query, Function<FieldMetadata, Boolean> filter) {
+		MetadataSearchIndex<FieldMetadata> index = getCreateCacheEntry(credentialsID, FIELD_METADATA_INDEX, new Supplier<MetadataSearchIndex<FieldMetadata>>() {
+			@Override
+			public MetadataSearchIndex<FieldMetadata> get() {
+				List<FieldMetadata> fields = loadFieldMetadata(credentialsID);
+				if (fields == null) {
+					return null;
+				}
+				return new MetadataSearchIndex<FieldMetadata>(fields, new Function<FieldMetadata, String>() {
+					@Override
+					public String apply(FieldMetadata field) {
+						return field.getHumanReadableName();
+					}
+				});
+			}
+		});
+		return index == null ? new ArrayList<FieldMetadata>() : index.search(query, SEARCH_RESULT_LIMIT, filter);
+	}
+	
+	/**
+	 * Fetches the metadata of all available fields, if it is not cached yet.
+	 * @param credentialsID
+	 * 		the id of the credentials of the JIRA project.
+	 * @return
+	 * 		a list with the metadata or null if it could not be fetched.
+	 */
+	private List<FieldMetadata> loadFieldMetadata(final String credentialsID) {
+		return getCreateCacheEntry(credentialsID, FIELD_METADATA, new Supplier<List<FieldMetadata>>() {
 			@Override
 			public List<FieldMetadata> get() {
 				return unsafeExecuteJiraCommands(credentialsID, new Function<JIRAAccessTool, List<FieldMetadata>>() {
@@ -234,8 +331,6 @@ public final class JIRAMetadataCache {
 				});
 			}
 		});
-		return result == null ? new ArrayList<FieldMetadata>() : result;
-		
 	}
 	
 	/**
@@ -295,7 +390,7 @@ public final class JIRAMetadataCache {
 		JIRAProjectCredentials cred = JIRAProjectCredentials.getByID(credentialsID);
 		JIRAAccessTool jira = null;
     	try {
-    		jira = new JIRAAccessTool(cred.getUrl(), cred.getUrlUsername(), cred.getUrlPassword(), null, cred.getProjectKey(), credentialsID);
+    		jira = new JIRAAccessTool(cred.getUrl(), cred.getUrlUsername(), cred.getUrlPassword(), null, cred.getProjectKey(), credentialsID, cred.getConnectionSettings());
     		return commands.apply(jira);
     	} catch (Exception e) {
     		return null;
@@ -1,36 +1,62 @@
 package rocks.inspectit.releaseplugin;
 
-import java.io.UnsupportedEncodingException;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.http.HttpHost;
+import org.apache.http.Consts;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.UsernamePasswordCredentials;
-import org.apache.http.client.AuthCache;
-import org.apache.http.client.CredentialsProvider;
+import org.apache.http.HttpStatus;
+import org.apache.http.StatusLine;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipCompressingEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.auth.BasicScheme;
-import org.apache.http.impl.client.BasicAuthCache;
-import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.BasicResponseHandler;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
 
-import com.google.gson.Gson;
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import rocks.inspectit.releaseplugin.http.AuthSession;
+import rocks.inspectit.releaseplugin.http.BuildRequestSummary;
+import rocks.inspectit.releaseplugin.http.CircuitBreaker;
+import rocks.inspectit.releaseplugin.http.CircuitOpenException;
+import rocks.inspectit.releaseplugin.http.ConnectionSettings;
+import rocks.inspectit.releaseplugin.http.Deadline;
+import rocks.inspectit.releaseplugin.http.DeadlineExceededException;
+import rocks.inspectit.releaseplugin.http.HttpStatusException;
+import rocks.inspectit.releaseplugin.http.HttpTransport;
+import rocks.inspectit.releaseplugin.http.JsonEntity;
+import rocks.inspectit.releaseplugin.http.JsonEntity.JsonWriterCallback;
+import rocks.inspectit.releaseplugin.http.MultipartFileEntity;
+import rocks.inspectit.releaseplugin.http.RequestCoalescer.Flight;
+import rocks.inspectit.releaseplugin.http.RequestMetrics;
+import rocks.inspectit.releaseplugin.http.RequestTimer;
+import rocks.inspectit.releaseplugin.http.ResponseCache;
+import rocks.inspectit.releaseplugin.http.ResponseCache.CachedResponse;
+import rocks.inspectit.releaseplugin.http.ResponseCache.RecordingEntity;
+import rocks.inspectit.releaseplugin.http.RetryPolicy;
 
 /**
  * Wrapper class around the apache http client, allows sending and recieving requests / responses in JSON format. 
@@ -53,18 +79,35 @@ public class JsonHTTPClientWrapper {
 	 */
 	private String password;
 	
+	/**
+	 * The user and a hash of the password, identifies the responses which can be shared between requests.
+	 */
+	private String credentialsKey;
+	
 	/**
 	 * The proxy to use.
 	 */
 	private String proxy;
 	/**
-	 * the underlying http client.
+	 * the shared, pooled transport to the server.
+	 */
+	private HttpTransport transport;
+	/**
+	 * the underlying http client, shared with all other wrappers accessing the same server.
 	 */
 	private CloseableHttpClient client;
 	/**
-	 * The credentialsprovider for the connection.
+	 * The authentication state, shared with all other wrappers accessing the same server as the same user.
+	 */
+	private AuthSession authSession;
+	/**
+	 * The connection specific settings, e.g. whether compression is used.
 	 */
-	private CredentialsProvider credsProvider;
+	private ConnectionSettings settings;
+	/**
+	 * Decides which failed requests are repeated, the retry budget is shared by all requests of this connection.
+	 */
+	private RetryPolicy retryPolicy;
 
 	
 	/**
@@ -73,29 +116,28 @@ public class JsonHTTPClientWrapper {
 	 * @param user the username
 	 * @param password the password
 	 * @param proxy the proxy to use
+	 * @param settings the connection specific settings, null to use the defaults
 	 */
-	public JsonHTTPClientWrapper(String url, String user, String password, String proxy) {
+	public JsonHTTPClientWrapper(String url, String user, String password, String proxy, ConnectionSettings settings) {
 		this.url = url;
 		this.password = password;
 		this.user = user;
+		this.credentialsKey = user + ":" + Hashing.sha256().hashString(Strings.nullToEmpty(password), Charsets.UTF_8);
 		this.proxy = proxy;
+		this.settings = settings == null ? ConnectionSettings.DEFAULT : settings;
+		this.retryPolicy = RetryPolicy.fromConfiguration();
 		connect();
 	}
 	
 
 	/**
 	 * private method for creating the connection.
+	 * The connection pool is shared with all other wrappers accessing the same server.
 	 */
 	private void connect() {
-		credsProvider = new BasicCredentialsProvider();
-		credsProvider.setCredentials(
-				AuthScope.ANY,
-				new UsernamePasswordCredentials(user, password));
-		HttpClientBuilder clientFactory = HttpClients.custom();
-		if (proxy != null) {
-			clientFactory.setProxy(HttpHost.create(proxy));
-		}
-		client = clientFactory.setDefaultCredentialsProvider(credsProvider).build();
+		transport = HttpTransport.forUrl(url, proxy);
+		client = transport.getClient();
+		authSession = AuthSession.get(transport, url, user, password);
 
 	}
 
@@ -104,19 +146,57 @@ public class JsonHTTPClientWrapper {
 	public String getProxy() {
 		return proxy;
 	}
+	
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+	
+	/**
+	 * @return the shared transport to the server
+	 */
+	public HttpTransport getTransport() {
+		return transport;
+	}
 
 
 	/**
 	 * closes the connection.
+	 * The pooled connections are kept open for reuse by other wrappers accessing the same server.
 	 */
 	public void destroy() {
-		try {
-			client.close();
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
+		client = null;
 	}
 
+	/**
+	 * Callback for consuming a JSON response as a stream, e.g. for processing large result arrays element by element.
+	 * 
+	 * @author Jonas Kunz
+	 *
+	 * @param <T> the type of the result produced from the response
+	 */
+	public interface JsonStreamHandler<T> {
+		/**
+		 * Consumes the response.
+		 * @param reader
+		 * 		the reader positioned at the beginning of the response document.
+		 * @return
+		 * 		the result of the processing.
+		 * @throws IOException
+		 * 		if reading the response fails
+		 */
+		T handle(JsonReader reader) throws IOException;
+	}
+	
+	/**
+	 * Handler parsing the whole response into a JSON tree.
+	 */
+	private static final JsonStreamHandler<JsonElement> TREE_HANDLER = new JsonStreamHandler<JsonElement>() {
+		@Override
+		public JsonElement handle(JsonReader reader) throws IOException {
+			return new JsonParser().parse(reader);
+		}
+	};
+
 	/**
 	 * Executes the given request, throws an error if the status is any
 	 * different from 200.
@@ -125,32 +205,320 @@ public class JsonHTTPClientWrapper {
 	 * @return the response parsed into a JSON element
 	 */
 	private JsonElement executeRequest(HttpUriRequest request) {
+		return executeRequest(request, TREE_HANDLER);
+	}
+
+	/**
+	 * Executes the given request, throws an error if the status is any
+	 * different from 2xx.
+	 * Transient failures are retried according to the {@link RetryPolicy} of this connection.
+	 * No attempt is started after the {@link Deadline} of the calling thread has been reached.
+	 * The response is streamed from the connection into the given handler, it is never buffered as a whole.
+	 * A GET request identical to one already in flight is not sent, instead the response of the request in flight is used.
+	 * 
+	 * @param <T> the result type of the handler
+	 * @param request the request to execute.
+	 * @param handler the handler consuming the response
+	 * @return the result of the handler or null if the response has no body
+	 */
+	private <T> T executeRequest(HttpUriRequest request, JsonStreamHandler<T> handler) {
+		String call = request.getMethod() + " " + request.getURI().getPath();
+		Flight flight = null;
+		if (HttpGet.METHOD_NAME.equals(request.getMethod())) {
+			flight = transport.getCoalescer().join(getRequestKey(request));
+			if (!flight.isLeader()) {
+				CachedResponse shared = flight.await(Deadline.current(), call);
+				if (shared != null) {
+					try {
+						return readEntity(shared.toEntity(), handler);
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+				//the response could not be shared, so the request is executed on its own
+				flight = null;
+			}
+		}
 		try {
-			java.net.URI uri = request.getURI();
-			AuthCache authCache = new BasicAuthCache();
-			BasicScheme basicAuth = new BasicScheme();
-			HttpHost host = new HttpHost(uri.getHost(), uri.getPort(),
-					uri.getScheme());
-			authCache.put(host, basicAuth);
+			int retries = 0;
+			while (true) {
+				Deadline.current().check(call);
+				//only JSON is compressed, uploaded files are usually compressed already
+				boolean compressBody = settings.isCompressRequests() && !transport.isRequestCompressionRejected()
+						&& (!(request instanceof HttpEntityEnclosingRequest) || ((HttpEntityEnclosingRequest) request).getEntity() instanceof JsonEntity);
+				try {
+					return executeRequest(request, handler, compressBody, true, flight);
+				} catch (RuntimeException e) {
+					long delay = retryPolicy.getRetryDelay(request.getMethod(), e.getCause(), retries);
+					if (delay < 0) {
+						if (flight != null) {
+							flight.fail(e);
+						}
+						throw e;
+					}
+					RequestMetrics.countRetry(getMetricsHost(), request.getMethod(), request.getURI().getPath(), BuildRequestSummary.current());
+					retryPolicy.waitForRetry(delay);
+					retries++;
+				}
+			}
+		} finally {
+			if (flight != null) {
+				flight.end();
+			}
+		}
+	}
+
+	/**
+	 * @param request the request
+	 * @return the key identifying the request with these credentials, used for caching and coalescing GET requests
+	 */
+	private String getRequestKey(HttpUriRequest request) {
+		return credentialsKey + " " + request.getURI();
+	}
 
-			HttpClientContext context = HttpClientContext.create();
-			context.setCredentialsProvider(credsProvider);
-			context.setAuthCache(authCache);
+	/**
+	 * Executes the given request, throws an error if the status is any
+	 * different from 2xx.
+	 * If the request body is sent compressed and the server rejects it, the request is repeated uncompressed.
+	 * In case this succeeds, all further requests to the server are sent uncompressed.
+	 * If the request is rejected as unauthorized because the session has expired, the request is repeated with a new session.
+	 * GET requests for which a response is cached are sent as conditional requests, if the resource has not been modified the cached body is used.
+	 * 
+	 * @param <T> the result type of the handler
+	 * @param request the request to execute.
+	 * @param handler the handler consuming the response
+	 * @param compressBody true, if the request body shall be sent gzip compressed
+	 * @param reauthenticate true, if the request may be repeated with a new session
+	 * @param flight the flight of identical requests waiting for the response, null if the request is not coalesced
+	 * @return the result of the handler or null if the response has no body
+	 */
+	private <T> T executeRequest(HttpUriRequest request, JsonStreamHandler<T> handler, boolean compressBody, boolean reauthenticate, Flight flight) {
+		HttpEntity body = null;
+		if (request instanceof HttpEntityEnclosingRequest) {
+			body = ((HttpEntityEnclosingRequest) request).getEntity();
+		}
+		if (body != null) {
+			HttpEntity countedBody = transport.getStatistics().countUncompressedRequest(body);
+			((HttpEntityEnclosingRequest) request).setEntity(compressBody ? new GzipCompressingEntity(countedBody) : countedBody);
+		} else {
+			compressBody = false;
+		}
+		ResponseCache cache = transport.getResponseCache();
+		String cacheKey = null;
+		CachedResponse cached = null;
+		if (HttpGet.METHOD_NAME.equals(request.getMethod()) && cache.isEnabled()) {
+			cacheKey = getRequestKey(request);
+			cached = cache.get(cacheKey);
+			if (cached != null && cached.getEtag() != null) {
+				request.setHeader(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+			}
+			if (cached != null && cached.getLastModified() != null) {
+				request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+			}
+		}
+		boolean retryAuthenticated = false;
+		try {
+			HttpClientContext context = authSession.createContext(settings);
+			Deadline deadline = Deadline.current();
+			context.setRequestConfig(createRequestConfig(deadline));
 
-			HttpResponse response = client.execute(request, context);
-			String jsonResponse = new BasicResponseHandler()
-					.handleResponse(response);
-			if (jsonResponse != null) {
-				return new JsonParser().parse(jsonResponse);
-			} else {
-				return null;
+			//the breaker and the limiter are shared with all builds accessing the server
+			CircuitBreaker breaker = transport.getCircuitBreaker();
+			//the limiter is acquired first, so that a call permitted by the breaker (e.g. the probe call) is always sent
+			deadline.acquire(transport.getLimiter(), request.getMethod() + " " + request.getURI().getPath());
+			try {
+				breaker.acquire(request.getMethod() + " " + request.getURI().getPath());
+			} catch (CircuitOpenException e) {
+				transport.getLimiter().release();
+				throw e;
+			}
+			RequestTimer timer = RequestMetrics.start(getMetricsHost(), request.getMethod(), request.getURI().getPath());
+			context.setAttribute(RequestTimer.CONTEXT_ATTRIBUTE, timer);
+			int statusCode = 0;
+			try {
+				CloseableHttpResponse response;
+				try {
+					response = client.execute(request, context);
+				} catch (IOException e) {
+					breaker.recordFailure();
+					throw e;
+				}
+				try {
+					StatusLine status = response.getStatusLine();
+					statusCode = status.getStatusCode();
+					breaker.record(statusCode);
+					if (reauthenticate && status.getStatusCode() == HttpStatus.SC_UNAUTHORIZED && authSession.invalidate(context)) {
+						retryAuthenticated = true;
+					} else if (compressBody && (status.getStatusCode() == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE
+							|| status.getStatusCode() == HttpStatus.SC_BAD_REQUEST)) {
+						//the request is repeated uncompressed below
+					} else if (cached != null && status.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+						cache.countHit();
+						if (flight != null) {
+							flight.share(cached);
+						}
+						return readEntity(cached.toEntity(), handler);
+					} else if (cacheKey != null || flight != null) {
+						return readAndRecordResponse(response, handler, cacheKey, cached != null, flight);
+					} else {
+						return readResponse(response, handler);
+					}
+				} finally {
+					//make sure the connection is returned to the pool
+					EntityUtils.consumeQuietly(response.getEntity());
+					response.close();
+				}
+			} finally {
+				timer.finish(statusCode);
+				transport.getLimiter().release();
 			}
 
+		} catch (DeadlineExceededException e) {
+			throw e;
+		} catch (CircuitOpenException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			if (body != null) {
+				((HttpEntityEnclosingRequest) request).setEntity(body);
+			}
+			request.removeHeaders(HttpHeaders.IF_NONE_MATCH);
+			request.removeHeaders(HttpHeaders.IF_MODIFIED_SINCE);
 		}
+		
+		if (retryAuthenticated) {
+			return executeRequest(request, handler, compressBody, false, flight);
+		}
+		T result = executeRequest(request, handler, false, reauthenticate, flight);
+		//the uncompressed request succeeded, so the server does not understand compressed bodies
+		transport.rejectRequestCompression();
+		return result;
 	}
 	
+	/**
+	 * Creates the configuration of a single request.
+	 * The timeouts of the connection settings are capped by the time left until the given deadline.
+	 * 
+	 * @param deadline the deadline the request has to meet
+	 * @return the configuration
+	 */
+	private RequestConfig createRequestConfig(Deadline deadline) {
+		return RequestConfig.custom()
+				.setContentCompressionEnabled(settings.isCompressResponses())
+				.setConnectTimeout(deadline.limitTimeout(settings.getConnectTimeoutMillis()))
+				//waiting for a pooled connection is bounded like establishing a new one
+				.setConnectionRequestTimeout(deadline.limitTimeout(settings.getConnectTimeoutMillis()))
+				.setSocketTimeout(deadline.limitTimeout(settings.getResponseTimeoutMillis()))
+				.build();
+	}
+
+	/**
+	 * Checks the status of the given response and passes its body to the handler.
+	 * 
+	 * @param <T> the result type of the handler
+	 * @param response the response to read
+	 * @param handler the handler consuming the response
+	 * @return the result of the handler or null if the response has no body
+	 * @throws IOException if the status is any different from 2xx or reading the response failed
+	 */
+	private static <T> T readResponse(HttpResponse response, JsonStreamHandler<T> handler) throws IOException {
+		StatusLine status = response.getStatusLine();
+		if (status.getStatusCode() >= HttpStatus.SC_MULTIPLE_CHOICES) {
+			Header retryAfter = response.getFirstHeader("Retry-After");
+			throw new HttpStatusException(status.getStatusCode(), status.getReasonPhrase(), retryAfter == null ? null : retryAfter.getValue());
+		}
+		return readEntity(response.getEntity(), handler);
+	}
+
+	/**
+	 * Passes the given response body to the handler.
+	 * 
+	 * @param <T> the result type of the handler
+	 * @param entity the response body, can be null
+	 * @param handler the handler consuming the response
+	 * @return the result of the handler or null if there is no body
+	 * @throws IOException if reading the response failed
+	 */
+	private static <T> T readEntity(HttpEntity entity, JsonStreamHandler<T> handler) throws IOException {
+		if (entity == null) {
+			return null;
+		}
+		Charset charset = Consts.UTF_8;
+		ContentType contentType = ContentType.get(entity);
+		if (contentType != null && contentType.getCharset() != null) {
+			charset = contentType.getCharset();
+		}
+		JsonReader reader = new JsonReader(new InputStreamReader(entity.getContent(), charset));
+		try {
+			return handler.handle(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reads a response to a GET request, caches it if it carries a validator and shares it with the identical requests waiting for it.
+	 * The body is recorded while it is streamed to the handler, if it is neither cached nor awaited it is only streamed.
+	 * 
+	 * @param <T> the result type of the handler
+	 * @param response the response to read
+	 * @param handler the handler consuming the response
+	 * @param cacheKey the key under which the response is cached, null if the cache is disabled
+	 * @param conditional true, if the request was sent as conditional request
+	 * @param flight the flight of identical requests waiting for the response, null if the request is not coalesced
+	 * @return the result of the handler or null if the response has no body
+	 * @throws IOException if the status is any different from 2xx or reading the response failed
+	 */
+	private <T> T readAndRecordResponse(HttpResponse response, JsonStreamHandler<T> handler, String cacheKey, boolean conditional, Flight flight)
+			throws IOException {
+		ResponseCache cache = transport.getResponseCache();
+		Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+		Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+		HttpEntity entity = response.getEntity();
+		//identical requests arriving from now on are executed on their own
+		boolean shared = flight != null && flight.startReading();
+		if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK || entity == null) {
+			if (cacheKey != null) {
+				cache.remove(cacheKey);
+			}
+			return readResponse(response, handler);
+		}
+		boolean cacheable = cacheKey != null && (etag != null || lastModified != null);
+		if (cacheKey != null && !cacheable) {
+			cache.remove(cacheKey);
+		}
+		if (!cacheable && !shared) {
+			return readResponse(response, handler);
+		}
+		if (conditional && cacheable) {
+			cache.countMiss();
+		}
+		RecordingEntity recordingEntity = cacheable ? cache.record(entity) : flight.record(entity);
+		response.setEntity(recordingEntity);
+		T result = readResponse(response, handler);
+		byte[] recordedBody = recordingEntity.getRecordedBody();
+		if (recordedBody != null) {
+			Header contentType = entity.getContentType();
+			CachedResponse recorded = new CachedResponse(etag == null ? null : etag.getValue(), lastModified == null ? null : lastModified.getValue(),
+					contentType == null ? null : contentType.getValue(), recordedBody);
+			if (cacheable) {
+				cache.put(cacheKey, recorded);
+			}
+			if (shared) {
+				flight.share(recorded);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the server name under which the requests of this client are recorded in the {@link RequestMetrics}
+	 */
+	private String getMetricsHost() {
+		return transport.getTarget().toHostString();
+	}
+
 	/**
 	 * Issues a put request, using the given data.
 	 * 
@@ -162,6 +530,86 @@ public class JsonHTTPClientWrapper {
 	 * 		null if the resposne was empty, an JSonElement representing the parsed response otherwise
 	 */
 	public JsonElement putJson(String path, JsonElement element) {
+		return putJson(path, new JsonEntity(element));
+	}
+	
+	/**
+	 * Issues a put request, the data is written by the given callback directly to the connection.
+	 * 
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param writer
+	 * 		the callback writing the put-data, might be invoked more than once
+	 * @return
+	 * 		null if the resposne was empty, an JSonElement representing the parsed response otherwise
+	 */
+	public JsonElement putJson(String path, JsonWriterCallback writer) {
+		return putJson(path, new JsonEntity(writer));
+	}
+	
+	/**
+	 * Issues a put request, using the given data.
+	 * The response is not parsed into a tree but streamed into the given handler.
+	 * 
+	 * @param <T>
+	 * 		the result type of the handler
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param element
+	 * 		the put-data
+	 * @param handler
+	 * 		the handler consuming the response
+	 * @return
+	 * 		null if the response was empty, the result of the handler otherwise
+	 */
+	public <T> T putJson(String path, JsonElement element, JsonStreamHandler<T> handler) {
+		return executeRequest(createPutRequest(path, new JsonEntity(element)), handler);
+	}
+	
+	/**
+	 * Issues a put request, the data is written by the given callback directly to the connection.
+	 * The response is not parsed into a tree but streamed into the given handler.
+	 * 
+	 * @param <T>
+	 * 		the result type of the handler
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param writer
+	 * 		the callback writing the put-data, might be invoked more than once
+	 * @param handler
+	 * 		the handler consuming the response
+	 * @return
+	 * 		null if the response was empty, the result of the handler otherwise
+	 */
+	public <T> T putJson(String path, JsonWriterCallback writer, JsonStreamHandler<T> handler) {
+		return executeRequest(createPutRequest(path, new JsonEntity(writer)), handler);
+	}
+	
+	/**
+	 * Issues a put request with the given body.
+	 * 
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param body
+	 * 		the put-data
+	 * @return
+	 * 		null if the resposne was empty, an JSonElement representing the parsed response otherwise
+	 */
+	private JsonElement putJson(String path, JsonEntity body) {
+		return executeRequest(createPutRequest(path, body));
+	}
+	
+	/**
+	 * Creates a put request with the given body.
+	 * 
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param body
+	 * 		the put-data
+	 * @return
+	 * 		the request
+	 */
+	private HttpPut createPutRequest(String path, JsonEntity body) {
 		URI requestTarget;
 		try {
 			requestTarget = new URIBuilder(url + path).build();
@@ -169,14 +617,29 @@ public class JsonHTTPClientWrapper {
 			throw new RuntimeException(e);
 		}
 		HttpPut putReq = new HttpPut(requestTarget);
-		putReq.addHeader("content-type", "application/json");
 		putReq.addHeader("Accept", "application/json");
+		putReq.setEntity(body);
+		return putReq;
+	}
+	
+	/**
+	 * Issues a delete request.
+	 * 
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @return
+	 * 		null if the response was empty, an JSonElement representing the parsed response otherwise
+	 */
+	public JsonElement delete(String path) {
+		URI requestTarget;
 		try {
-			putReq.setEntity(new StringEntity(new Gson().toJson(element)));
-		} catch (UnsupportedEncodingException e) {
+			requestTarget = new URIBuilder(url + path).build();
+		} catch (URISyntaxException e) {
 			throw new RuntimeException(e);
 		}
-		return executeRequest(putReq);
+		HttpDelete deleteReq = new HttpDelete(requestTarget);
+		deleteReq.addHeader("Accept", "application/json");
+		return executeRequest(deleteReq);
 	}
 	
 	/**
@@ -190,6 +653,108 @@ public class JsonHTTPClientWrapper {
 	 * 		null if the response was empty, an JSonElement representing the parsed response otherwise
 	 */
 	public JsonElement postJson(String path, JsonElement element) {
+		return postJson(path, new JsonEntity(element));
+	}
+	
+	/**
+	 * Issues a post request, the data is written by the given callback directly to the connection.
+	 * 
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param writer
+	 * 		the callback writing the post-data, might be invoked more than once
+	 * @return
+	 * 		null if the response was empty, an JSonElement representing the parsed response otherwise
+	 */
+	public JsonElement postJson(String path, JsonWriterCallback writer) {
+		return postJson(path, new JsonEntity(writer));
+	}
+	
+	/**
+	 * Issues a post request, using the given data.
+	 * The response is not parsed into a tree but streamed into the given handler.
+	 * 
+	 * @param <T>
+	 * 		the result type of the handler
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param element
+	 * 		the post-data
+	 * @param handler
+	 * 		the handler consuming the response
+	 * @return
+	 * 		null if the response was empty, the result of the handler otherwise
+	 */
+	public <T> T postJson(String path, JsonElement element, JsonStreamHandler<T> handler) {
+		return executeRequest(createPostRequest(path, new JsonEntity(element)), handler);
+	}
+	
+	/**
+	 * Issues a post request, the data is written by the given callback directly to the connection.
+	 * The response is not parsed into a tree but streamed into the given handler.
+	 * 
+	 * @param <T>
+	 * 		the result type of the handler
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param writer
+	 * 		the callback writing the post-data, might be invoked more than once
+	 * @param handler
+	 * 		the handler consuming the response
+	 * @return
+	 * 		null if the response was empty, the result of the handler otherwise
+	 */
+	public <T> T postJson(String path, JsonWriterCallback writer, JsonStreamHandler<T> handler) {
+		return executeRequest(createPostRequest(path, new JsonEntity(writer)), handler);
+	}
+	
+	/**
+	 * Issues a post request with the given body.
+	 * 
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param body
+	 * 		the post-data
+	 * @return
+	 * 		null if the response was empty, an JSonElement representing the parsed response otherwise
+	 */
+	private JsonElement postJson(String path, JsonEntity body) {
+		return executeRequest(createPostRequest(path, body));
+	}
+	
+	/**
+	 * Issues a post request uploading a file as multipart form data.
+	 * The file is streamed to the connection, the response is streamed into the given handler.
+	 * 
+	 * @param <T>
+	 * 		the result type of the handler
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param body
+	 * 		the multipart body containing the file
+	 * @param handler
+	 * 		the handler consuming the response
+	 * @return
+	 * 		null if the response was empty, the result of the handler otherwise
+	 */
+	public <T> T postMultipart(String path, MultipartFileEntity body, JsonStreamHandler<T> handler) {
+		HttpPost postReq = createPostRequest(path, body);
+		//Atlassian servers reject multipart requests without this header as possible XSRF
+		postReq.addHeader("X-Atlassian-Token", "no-check");
+		return executeRequest(postReq, handler);
+	}
+	
+	/**
+	 * Creates a post request with the given body.
+	 * 
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param body
+	 * 		the post-data
+	 * @return
+	 * 		the request
+	 */
+	private HttpPost createPostRequest(String path, HttpEntity body) {
 		URI requestTarget;
 		try {
 			requestTarget = new URIBuilder(url + path).build();
@@ -197,14 +762,9 @@ public class JsonHTTPClientWrapper {
 			throw new RuntimeException(e);
 		}
 		HttpPost postReq = new HttpPost(requestTarget);
-		postReq.addHeader("content-type", "application/json");
 		postReq.addHeader("Accept", "application/json");
-		try {
-			postReq.setEntity(new StringEntity(new Gson().toJson(element)));
-		} catch (UnsupportedEncodingException e) {
-			throw new RuntimeException(e);
-		}
-		return executeRequest(postReq);
+		postReq.setEntity(body);
+		return postReq;
 	}
 	
 	
@@ -231,6 +791,39 @@ public class JsonHTTPClientWrapper {
 	 * 		null if the response was empty, an JSonElement representing the parsed response otherwise
 	 */
 	public JsonElement getJson(String path, Map<String, String> parameters) {
+		return getJson(path, parameters, TREE_HANDLER);
+	}
+
+	/**
+	 * Issues a get request, urlencoding the given parameters.
+	 * The response is not parsed into a tree but streamed into the given handler.
+	 * 
+	 * @param <T>
+	 * 		the result type of the handler
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param parameters
+	 * 		a map where the keys are paramternames and the values are the values.
+	 * @param handler
+	 * 		the handler consuming the response
+	 * @return
+	 * 		null if the response was empty, the result of the handler otherwise
+	 */
+	public <T> T getJson(String path, Map<String, String> parameters, JsonStreamHandler<T> handler) {
+		return executeRequest(createGetRequest(path, parameters), handler);
+	}
+
+	/**
+	 * Creates a get request, urlencoding the given parameters.
+	 * 
+	 * @param path
+	 * 		the path (relative to the url) to issue the request on
+	 * @param parameters
+	 * 		a map where the keys are paramternames and the values are the values.
+	 * @return
+	 * 		the request
+	 */
+	private HttpGet createGetRequest(String path, Map<String, String> parameters) {
 		URI requestTarget;
 		try {
 			URIBuilder builder = new URIBuilder(url + path);
@@ -242,10 +835,14 @@ public class JsonHTTPClientWrapper {
 			throw new RuntimeException(e);
 		}
 		HttpGet getReq = new HttpGet(requestTarget);
-		return executeRequest(getReq);
+		getReq.addHeader("Accept", "application/json");
+		return getReq;
 	}
 
 
+	/**
+	 * @return the shared http client, must not be closed by the caller.
+	 */
 	public CloseableHttpClient getHttpClient() {
 		return client;
 	}
@@ -0,0 +1,295 @@
+package rocks.inspectit.releaseplugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import rocks.inspectit.releaseplugin.JIRAMetadataCache.Function;
+
+/**
+ *
+ * Search index over the names of JIRA metadata elements (e.g. versions or fields).
+ * Used for answering search-as-you-type requests of the UI, so that the complete lists do not have to be sent to the browser.
+ *
+ * Matches are ranked as follows: exact matches first, followed by names starting with the query,
+ * names containing a word starting with the query and finally names sharing trigrams with the query.
+ *
+ * Instances are immutable and therefore thread safe.
+ *
+ * @author Jonas Kunz
+ *
+ * @param <T> the type of the indexed elements
+ */
+public class MetadataSearchIndex<T> {
+
+	/**
+	 * Score of an exact (case insensitive) match.
+	 */
+	private static final int SCORE_EXACT = 3000;
+	/**
+	 * Score of a name starting with the query.
+	 */
+	private static final int SCORE_PREFIX = 2000;
+	/**
+	 * Score of a name containing a word starting with the query.
+	 */
+	private static final int SCORE_WORD_PREFIX = 1000;
+	/**
+	 * Maximum score of a trigram match, the actual score is proportional to the number of shared trigrams.
+	 */
+	private static final int SCORE_TRIGRAM = 100;
+
+	/**
+	 * Minimum fraction of the trigrams of the query which have to be present in a name to consider it as a match.
+	 */
+	private static final double MIN_TRIGRAM_OVERLAP = 0.5;
+
+	/**
+	 * The indexed elements.
+	 */
+	private final List<T> elements;
+
+	/**
+	 * The lower case names of the indexed elements, in the same order as {@link #elements}.
+	 */
+	private final String[] names;
+
+	/**
+	 * Sorted array of all searchable prefixes: the full names and the name suffixes starting at a word boundary.
+	 */
+	private final String[] prefixKeys;
+
+	/**
+	 * The element index of each entry of {@link #prefixKeys}.
+	 */
+	private final int[] prefixElements;
+
+	/**
+	 * Maps each trigram to the indices of the elements whose name contains it.
+	 */
+	private final Map<String, int[]> trigrams;
+
+	/**
+	 * Builds a new index over the given elements.
+	 * @param elements the elements to index
+	 * @param nameExtractor function returning the name under which an element can be found
+	 */
+	public MetadataSearchIndex(List<T> elements, Function<T, String> nameExtractor) {
+		this.elements = Collections.unmodifiableList(new ArrayList<T>(elements));
+		names = new String[elements.size()];
+
+		final List<String> keys = new ArrayList<String>();
+		final List<Integer> keyElements = new ArrayList<Integer>();
+		Map<String, List<Integer>> trigramLists = new HashMap<String, List<Integer>>();
+
+		for (int i = 0; i < names.length; i++) {
+			String name = normalize(nameExtractor.apply(elements.get(i)));
+			names[i] = name;
+
+			for (int pos = 0; pos < name.length(); pos++) {
+				boolean wordStart = pos == 0 || !Character.isLetterOrDigit(name.charAt(pos - 1));
+				if (wordStart && Character.isLetterOrDigit(name.charAt(pos))) {
+					keys.add(name.substring(pos));
+					keyElements.add(i);
+				}
+			}
+
+			for (String trigram : extractTrigrams(name)) {
+				List<Integer> postings = trigramLists.get(trigram);
+				if (postings == null) {
+					postings = new ArrayList<Integer>();
+					trigramLists.put(trigram, postings);
+				}
+				postings.add(i);
+			}
+		}
+
+		Integer[] order = new Integer[keys.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return keys.get(a).compareTo(keys.get(b));
+			}
+		});
+		prefixKeys = new String[order.length];
+		prefixElements = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			prefixKeys[i] = keys.get(order[i]);
+			prefixElements[i] = keyElements.get(order[i]);
+		}
+
+		trigrams = new HashMap<String, int[]>();
+		for (Map.Entry<String, List<Integer>> entry : trigramLists.entrySet()) {
+			List<Integer> postings = entry.getValue();
+			int[] postingsArray = new int[postings.size()];
+			for (int i = 0; i < postingsArray.length; i++) {
+				postingsArray[i] = postings.get(i);
+			}
+			trigrams.put(entry.getKey(), postingsArray);
+		}
+	}
+
+	/**
+	 * @return the number of indexed elements
+	 */
+	public int size() {
+		return elements.size();
+	}
+
+	/**
+	 * Searches for the best matches for the given query.
+	 *
+	 * @param query
+	 * 		the text entered so far, an empty query matches all elements
+	 * @param limit
+	 * 		the maximum number of results to return
+	 * @param filter
+	 * 		filter deciding which elements may be returned, can be null
+	 * @return
+	 * 		the best matching elements, ordered by relevance
+	 */
+	public List<T> search(String query, int limit, Function<T, Boolean> filter) {
+		List<T> result = new ArrayList<T>();
+		String normalizedQuery = normalize(query);
+
+		if (normalizedQuery.isEmpty()) {
+			for (T element : elements) {
+				if (result.size() >= limit) {
+					break;
+				}
+				if (filter == null || filter.apply(element)) {
+					result.add(element);
+				}
+			}
+			return result;
+		}
+
+		final Map<Integer, Integer> scores = new HashMap<Integer, Integer>();
+		collectPrefixMatches(normalizedQuery, scores);
+		collectTrigramMatches(normalizedQuery, scores);
+
+		List<Integer> candidates = new ArrayList<Integer>(scores.keySet());
+		Collections.sort(candidates, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int cmp = scores.get(b).compareTo(scores.get(a));
+				if (cmp == 0) {
+					cmp = Integer.compare(names[a].length(), names[b].length());
+				}
+				if (cmp == 0) {
+					cmp = names[a].compareTo(names[b]);
+				}
+				return cmp;
+			}
+		});
+
+		for (Integer candidate : candidates) {
+			if (result.size() >= limit) {
+				break;
+			}
+			T element = elements.get(candidate);
+			if (filter == null || filter.apply(element)) {
+				result.add(element);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Scores all elements whose name or one of whose words starts with the query.
+	 * @param query the normalized query
+	 * @param scores the map to store the scores in
+	 */
+	private void collectPrefixMatches(String query, Map<Integer, Integer> scores) {
+		int pos = Arrays.binarySearch(prefixKeys, query);
+		if (pos < 0) {
+			pos = -pos - 1;
+		}
+		while (pos < prefixKeys.length && prefixKeys[pos].startsWith(query)) {
+			int element = prefixElements[pos];
+			int score;
+			if (names[element].equals(query)) {
+				score = SCORE_EXACT;
+			} else if (names[element].startsWith(query)) {
+				score = SCORE_PREFIX;
+			} else {
+				score = SCORE_WORD_PREFIX;
+			}
+			updateScore(scores, element, score);
+			pos++;
+		}
+	}
+
+	/**
+	 * Scores all elements sharing enough trigrams with the query.
+	 * @param query the normalized query
+	 * @param scores the map to store the scores in
+	 */
+	private void collectTrigramMatches(String query, Map<Integer, Integer> scores) {
+		Set<String> queryTrigrams = extractTrigrams(query);
+		if (queryTrigrams.isEmpty()) {
+			return;
+		}
+		Map<Integer, Integer> hits = new HashMap<Integer, Integer>();
+		for (String trigram : queryTrigrams) {
+			int[] postings = trigrams.get(trigram);
+			if (postings != null) {
+				for (int element : postings) {
+					Integer count = hits.get(element);
+					hits.put(element, count == null ? 1 : count + 1);
+				}
+			}
+		}
+		for (Map.Entry<Integer, Integer> hit : hits.entrySet()) {
+			double overlap = hit.getValue() / (double) queryTrigrams.size();
+			if (overlap >= MIN_TRIGRAM_OVERLAP) {
+				updateScore(scores, hit.getKey(), (int) (overlap * SCORE_TRIGRAM));
+			}
+		}
+	}
+
+	/**
+	 * Stores the given score for the element, if it is higher than the current score.
+	 * @param scores the scores
+	 * @param element the index of the element
+	 * @param score the new score
+	 */
+	private static void updateScore(Map<Integer, Integer> scores, int element, int score) {
+		Integer current = scores.get(element);
+		if (current == null || current < score) {
+			scores.put(element, score);
+		}
+	}
+
+	/**
+	 * Extracts all distinct trigrams of the given text.
+	 * @param text the normalized text
+	 * @return the trigrams
+	 */
+	private static Set<String> extractTrigrams(String text) {
+		Set<String> result = new LinkedHashSet<String>();
+		for (int i = 0; i + 3 <= text.length(); i++) {
+			result.add(text.substring(i, i + 3));
+		}
+		return result;
+	}
+
+	/**
+	 * Normalizes names and queries for case insensitive matching.
+	 * @param text the text to normalize, can be null
+	 * @return the normalized text
+	 */
+	private static String normalize(String text) {
+		return text == null ? "" : text.trim().toLowerCase(Locale.ENGLISH);
+	}
+}
@@ -0,0 +1,80 @@
+package rocks.inspectit.releaseplugin;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Utility class for building the data sent to /version POST and PUT requests to create or update project versions.
+ * Only the properties which have been set are sent, all others remain unchanged on updates.
+ * See the JIRA Rest API documentation for more information.
+ * 
+ * @author Jonas Kunz
+ *
+ */
+public class VersionInputBuilder {
+
+	/**
+	 * The format of release dates expected by JIRA.
+	 */
+	private static final String RELEASE_DATE_FORMAT = "yyyy-MM-dd";
+
+	/**
+	 * The properties set so far.
+	 */
+	private JsonObject data;
+
+	/**
+	 * Constructor.
+	 * @param projectKey the key of the project the version belongs to
+	 */
+	public VersionInputBuilder(String projectKey) {
+		data = new JsonObject();
+		data.addProperty("project", projectKey);
+	}
+
+	/**
+	 * @param name the name of the version
+	 */
+	public void setName(String name) {
+		data.addProperty("name", name);
+	}
+
+	/**
+	 * @param description the description of the version
+	 */
+	public void setDescription(String description) {
+		data.addProperty("description", description);
+	}
+
+	/**
+	 * @param archived true, if the version shall be archived
+	 */
+	public void setArchived(boolean archived) {
+		data.addProperty("archived", archived);
+	}
+
+	/**
+	 * @param released true, if the version shall be marked as released
+	 */
+	public void setReleased(boolean released) {
+		data.addProperty("released", released);
+	}
+
+	/**
+	 * @param releaseDate the release date, only the day is considered
+	 */
+	public void setReleaseDate(Date releaseDate) {
+		data.addProperty("releaseDate", new SimpleDateFormat(RELEASE_DATE_FORMAT).format(releaseDate));
+	}
+
+	/**
+	 * Returns the data to send with the request.
+	 * @return the finished request
+	 */
+	public JsonElement getRequestData() {
+		return data;
+	}
+}
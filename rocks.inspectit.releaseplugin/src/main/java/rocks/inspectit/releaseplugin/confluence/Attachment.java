@@ -0,0 +1,122 @@
+package rocks.inspectit.releaseplugin.confluence;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ *
+ * The latest version of a file attached to a Confluence page as returned by <code>/rest/api/content/{id}/child/attachment</code>.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class Attachment {
+
+	/**
+	 * Prefix of the attachment comment holding the MD5 hash of the uploaded file.
+	 * Confluence does not expose a checksum of attachments, so the plugin stores it in the comment on upload.
+	 */
+	public static final String MD5_COMMENT_PREFIX = "md5:";
+
+	/**
+	 * The id of the attachment, e.g. <code>att1234</code>.
+	 */
+	private final String id;
+
+	/**
+	 * The file name of the attachment.
+	 */
+	private final String title;
+
+	/**
+	 * The size of the latest version in bytes, -1 if unknown.
+	 */
+	private final long fileSize;
+
+	/**
+	 * The comment of the latest version, can be null.
+	 */
+	private final String comment;
+
+	/**
+	 * Creates a new attachment.
+	 * @param id the id
+	 * @param title the file name
+	 * @param fileSize the size in bytes, -1 if unknown
+	 * @param comment the comment, can be null
+	 */
+	public Attachment(String id, String title, long fileSize, String comment) {
+		this.id = id;
+		this.title = title;
+		this.fileSize = fileSize;
+		this.comment = comment;
+	}
+
+	/**
+	 * Reads an attachment object.
+	 * @param reader the reader positioned at the beginning of the object
+	 * @return the attachment
+	 * @throws IOException if reading fails
+	 */
+	public static Attachment read(JsonReader reader) throws IOException {
+		String id = null;
+		String title = null;
+		long fileSize = -1;
+		String comment = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String property = reader.nextName();
+			if ("id".equals(property)) {
+				id = reader.nextString();
+			} else if ("title".equals(property)) {
+				title = reader.nextString();
+			} else if ("extensions".equals(property)) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String extension = reader.nextName();
+					if ("fileSize".equals(extension) && reader.peek() == JsonToken.NUMBER) {
+						fileSize = reader.nextLong();
+					} else if ("comment".equals(extension) && reader.peek() == JsonToken.STRING) {
+						comment = reader.nextString();
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new Attachment(id, title, fileSize, comment);
+	}
+
+	/**
+	 * Checks whether the latest version of this attachment has the given content.
+	 * @param length the length of the file in bytes
+	 * @param md5 the hex encoded MD5 hash of the file
+	 * @return true, if the size matches and the version was uploaded by this plugin with the same hash
+	 */
+	public boolean hasContent(long length, String md5) {
+		return fileSize == length && comment != null && comment.equalsIgnoreCase(MD5_COMMENT_PREFIX + md5);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	public String getComment() {
+		return comment;
+	}
+
+}
@@ -0,0 +1,166 @@
+package rocks.inspectit.releaseplugin.confluence;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ *
+ * A Confluence page as returned by <code>/rest/api/content</code> with the version and the content hash property expanded.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class Page {
+
+	/**
+	 * The key of the page property holding the hash of the content published by this plugin.
+	 */
+	public static final String CONTENT_HASH_PROPERTY = "release-helper-content-hash";
+
+	/**
+	 * The expansions required for reading a page including its version and content hash.
+	 */
+	public static final String EXPAND = "version,metadata.properties." + CONTENT_HASH_PROPERTY;
+
+	/**
+	 * The id of the page.
+	 */
+	private final long id;
+
+	/**
+	 * The title of the page.
+	 */
+	private final String title;
+
+	/**
+	 * The version number of the page.
+	 */
+	private final int version;
+
+	/**
+	 * The hash of the content as stored in the page property, null if the page has not been published by this plugin.
+	 */
+	private final String contentHash;
+
+	/**
+	 * The version number of the content hash property, 0 if the property does not exist.
+	 */
+	private final int contentHashVersion;
+
+	/**
+	 * Creates a new page.
+	 * @param id the id
+	 * @param title the title
+	 * @param version the version number
+	 * @param contentHash the stored hash of the content, can be null
+	 * @param contentHashVersion the version number of the hash property, 0 if it does not exist
+	 */
+	public Page(long id, String title, int version, String contentHash, int contentHashVersion) {
+		this.id = id;
+		this.title = title;
+		this.version = version;
+		this.contentHash = contentHash;
+		this.contentHashVersion = contentHashVersion;
+	}
+
+	/**
+	 * Reads a content object.
+	 * @param reader the reader positioned at the beginning of the object
+	 * @return the page
+	 * @throws IOException if reading fails
+	 */
+	public static Page read(JsonReader reader) throws IOException {
+		long id = -1;
+		String title = null;
+		int version = 0;
+		String contentHash = null;
+		int contentHashVersion = 0;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String property = reader.nextName();
+			if ("id".equals(property)) {
+				id = Long.parseLong(reader.nextString());
+			} else if ("title".equals(property)) {
+				title = reader.nextString();
+			} else if ("version".equals(property)) {
+				version = readVersionNumber(reader);
+			} else if ("metadata".equals(property)) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if ("properties".equals(reader.nextName())) {
+						reader.beginObject();
+						while (reader.hasNext()) {
+							if (CONTENT_HASH_PROPERTY.equals(reader.nextName())) {
+								reader.beginObject();
+								while (reader.hasNext()) {
+									String hashProperty = reader.nextName();
+									if ("value".equals(hashProperty) && reader.peek() == JsonToken.STRING) {
+										contentHash = reader.nextString();
+									} else if ("version".equals(hashProperty)) {
+										contentHashVersion = readVersionNumber(reader);
+									} else {
+										reader.skipValue();
+									}
+								}
+								reader.endObject();
+							} else {
+								reader.skipValue();
+							}
+						}
+						reader.endObject();
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new Page(id, title, version, contentHash, contentHashVersion);
+	}
+
+	/**
+	 * Reads the number of a version object.
+	 * @param reader the reader positioned at the beginning of the version object
+	 * @return the version number
+	 * @throws IOException if reading fails
+	 */
+	private static int readVersionNumber(JsonReader reader) throws IOException {
+		int number = 0;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if ("number".equals(reader.nextName())) {
+				number = reader.nextInt();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return number;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public int getContentHashVersion() {
+		return contentHashVersion;
+	}
+
+}
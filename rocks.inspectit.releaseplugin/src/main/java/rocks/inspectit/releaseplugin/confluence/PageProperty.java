@@ -0,0 +1,92 @@
+package rocks.inspectit.releaseplugin.confluence;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+/**
+ *
+ * A content property of a Confluence page as returned by <code>/rest/api/content/{id}/property/{key}</code>.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class PageProperty {
+
+	/**
+	 * The key of the property.
+	 */
+	private final String key;
+
+	/**
+	 * The value of the property.
+	 */
+	private final JsonElement value;
+
+	/**
+	 * The version number of the property, required for updating it.
+	 */
+	private final int version;
+
+	/**
+	 * Creates a new property.
+	 * @param key the key
+	 * @param value the value
+	 * @param version the version number
+	 */
+	public PageProperty(String key, JsonElement value, int version) {
+		this.key = key;
+		this.value = value;
+		this.version = version;
+	}
+
+	/**
+	 * Reads a property object.
+	 * @param reader the reader positioned at the beginning of the object
+	 * @return the property
+	 * @throws IOException if reading fails
+	 */
+	public static PageProperty read(JsonReader reader) throws IOException {
+		String key = null;
+		JsonElement value = null;
+		int version = 0;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String property = reader.nextName();
+			if ("key".equals(property)) {
+				key = reader.nextString();
+			} else if ("value".equals(property)) {
+				value = new JsonParser().parse(reader);
+			} else if ("version".equals(property)) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if ("number".equals(reader.nextName())) {
+						version = reader.nextInt();
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new PageProperty(key, value, version);
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public JsonElement getValue() {
+		return value;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+}
@@ -0,0 +1,52 @@
+package rocks.inspectit.releaseplugin.confluence;
+
+/**
+ *
+ * A page to publish as part of a page tree.
+ * The parent is given by title, it is either another page of the same tree or an existing page of the space.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class PageSpec {
+
+	/**
+	 * The title of the page.
+	 */
+	private final String title;
+
+	/**
+	 * The title of the parent page, null for publishing the page at the root of the space.
+	 */
+	private final String parentTitle;
+
+	/**
+	 * The html content of the page.
+	 */
+	private final String htmlContent;
+
+	/**
+	 * Creates a new page specification.
+	 * @param title the title of the page
+	 * @param parentTitle the title of the parent page, null for the root of the space
+	 * @param htmlContent the html content of the page
+	 */
+	public PageSpec(String title, String parentTitle, String htmlContent) {
+		this.title = title;
+		this.parentTitle = parentTitle;
+		this.htmlContent = htmlContent;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getParentTitle() {
+		return parentTitle;
+	}
+
+	public String getHtmlContent() {
+		return htmlContent;
+	}
+
+}
@@ -0,0 +1,75 @@
+package rocks.inspectit.releaseplugin.confluence;
+
+import rocks.inspectit.releaseplugin.ConfluenceAccessTool.UpsertOutcome;
+
+/**
+ *
+ * The result of publishing a single page of a page tree.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class PublishedPage {
+
+	/**
+	 * The title of the page.
+	 */
+	private final String title;
+
+	/**
+	 * The id of the page.
+	 */
+	private final long pageID;
+
+	/**
+	 * What has been done.
+	 */
+	private final UpsertOutcome outcome;
+
+	/**
+	 * The depth of the page within the tree, 0 for pages whose parent is not part of the tree.
+	 */
+	private final int depth;
+
+	/**
+	 * The time taken for publishing the page in milliseconds.
+	 */
+	private final long durationMillis;
+
+	/**
+	 * Creates a new result.
+	 * @param title the title of the page
+	 * @param pageID the id of the page
+	 * @param outcome what has been done
+	 * @param depth the depth of the page within the tree
+	 * @param durationMillis the time taken in milliseconds
+	 */
+	public PublishedPage(String title, long pageID, UpsertOutcome outcome, int depth, long durationMillis) {
+		this.title = title;
+		this.pageID = pageID;
+		this.outcome = outcome;
+		this.depth = depth;
+		this.durationMillis = durationMillis;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public long getPageID() {
+		return pageID;
+	}
+
+	public UpsertOutcome getOutcome() {
+		return outcome;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+}
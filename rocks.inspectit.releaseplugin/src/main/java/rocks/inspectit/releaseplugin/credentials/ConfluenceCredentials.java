@@ -4,31 +4,15 @@ import hudson.Extension;
 import hudson.security.ACL;
 import hudson.util.FormValidation;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-
 import javax.annotation.Nonnull;
 
 import jenkins.model.Jenkins;
 
-import org.apache.http.HttpHost;
-import org.apache.http.HttpResponse;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.UsernamePasswordCredentials;
-import org.apache.http.client.AuthCache;
-import org.apache.http.client.CredentialsProvider;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.impl.auth.BasicScheme;
-import org.apache.http.impl.client.BasicAuthCache;
-import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
 
+import rocks.inspectit.releaseplugin.http.ConnectionSettings;
+
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.CredentialsNameProvider;
 import com.cloudbees.plugins.credentials.CredentialsScope;
@@ -67,6 +51,22 @@ public class ConfluenceCredentials extends BaseStandardCredentials implements St
 	 */
 	@Nonnull
 	private final String urlPassword;
+	/**
+	 * True, if compressed responses shall be requested. Null for credentials created before this option existed, which means true.
+	 */
+	private final Boolean compressResponses;
+	/**
+	 * True, if request bodies shall be sent gzip compressed.
+	 */
+	private final boolean compressRequests;
+	/**
+	 * The connect timeout in seconds. Null for credentials created before this option existed, which means the default.
+	 */
+	private final Integer connectTimeoutSeconds;
+	/**
+	 * The response timeout in seconds. Null for credentials created before this option existed, which means the default.
+	 */
+	private final Integer responseTimeoutSeconds;
 	
 	/**
 	 * Constructor, usually only called by Jenkins.
@@ -76,13 +76,22 @@ public class ConfluenceCredentials extends BaseStandardCredentials implements St
 	 * @param url the confluence url
 	 * @param urlUsername the username used for confluence
 	 * @param urlPassword the password used for confluence
+	 * @param compressResponses true, if compressed responses shall be requested
+	 * @param compressRequests true, if request bodies shall be sent gzip compressed
+	 * @param connectTimeoutSeconds the maximum time for establishing a connection, 0 if infinite
+	 * @param responseTimeoutSeconds the maximum time of inactivity while waiting for a response, 0 if infinite
 	 */
 	@DataBoundConstructor
-	public ConfluenceCredentials(CredentialsScope scope, String id, String description, String url, String urlUsername, String urlPassword) {
+	public ConfluenceCredentials(CredentialsScope scope, String id, String description, String url, String urlUsername, String urlPassword,
+			boolean compressResponses, boolean compressRequests, int connectTimeoutSeconds, int responseTimeoutSeconds) {
 		super(scope, id, description);
 		this.url = url;
 		this.urlUsername = urlUsername;
 		this.urlPassword = urlPassword;
+		this.compressResponses = compressResponses;
+		this.compressRequests = compressRequests;
+		this.connectTimeoutSeconds = connectTimeoutSeconds;
+		this.responseTimeoutSeconds = responseTimeoutSeconds;
 	}
 
 	public String getUrl() {
@@ -96,6 +105,29 @@ public class ConfluenceCredentials extends BaseStandardCredentials implements St
 	public String getUrlPassword() {
 		return urlPassword;
 	}
+
+	public boolean isCompressResponses() {
+		return compressResponses == null || compressResponses;
+	}
+
+	public boolean isCompressRequests() {
+		return compressRequests;
+	}
+
+	public int getConnectTimeoutSeconds() {
+		return connectTimeoutSeconds == null ? ConnectionSettings.DEFAULT_CONNECT_TIMEOUT_SECONDS : connectTimeoutSeconds;
+	}
+
+	public int getResponseTimeoutSeconds() {
+		return responseTimeoutSeconds == null ? ConnectionSettings.DEFAULT_RESPONSE_TIMEOUT_SECONDS : responseTimeoutSeconds;
+	}
+
+	/**
+	 * @return the connection settings to use when accessing the server with these credentials
+	 */
+	public ConnectionSettings getConnectionSettings() {
+		return new ConnectionSettings(isCompressResponses(), isCompressRequests(), getConnectTimeoutSeconds(), getResponseTimeoutSeconds());
+	}
 	
 	/**
 	 * Descriptor class.
@@ -119,7 +151,33 @@ public class ConfluenceCredentials extends BaseStandardCredentials implements St
          * @return a message, saying whether the details are correct or not (and possibly why)
          */
         public FormValidation doCheckUrl(@QueryParameter String value, @QueryParameter String urlUsername, @QueryParameter String urlPassword) {
-        	
+        	return checkConnection(value, urlUsername, urlPassword, ConnectionCheck.VALIDATION_WAIT_MILLIS);
+        }
+        
+        /**
+         * 
+         * Tests the connection on request of the user, waits until the result is available.
+         * 
+         * @param url the url
+         * @param urlUsername the username 
+         * @param urlPassword the password
+         * @return a message, saying whether the details are correct or not (and possibly why)
+         */
+        public FormValidation doTestConnection(@QueryParameter String url, @QueryParameter String urlUsername, @QueryParameter String urlPassword) {
+        	return checkConnection(url, urlUsername, urlPassword, ConnectionCheck.TEST_WAIT_MILLIS);
+        }
+        
+        /**
+         * 
+         * Checks whether confluence is accessible using the given data, the result of recent checks is reused.
+         * 
+         * @param value the url
+         * @param urlUsername the username 
+         * @param urlPassword the password
+         * @param waitMillis the maximum time to wait for the result
+         * @return a message, saying whether the details are correct or not (and possibly why)
+         */
+        private FormValidation checkConnection(String value, String urlUsername, String urlPassword, long waitMillis) {
         	if (value == null || value.isEmpty()) {
         		return FormValidation.warning("Please specify an URL");
         	}
@@ -129,75 +187,9 @@ public class ConfluenceCredentials extends BaseStandardCredentials implements St
         	if (urlPassword == null || urlPassword.isEmpty()) {
         		return FormValidation.warning("Please specify an password");
         	}
-        	String message = testConfluenceConnection(value, urlUsername, urlPassword);
-        	if (message == null) {
-            	return FormValidation.ok("URL is accessible with the given credentials");
-        	} else {
-            	return FormValidation.warning(message);
-        		
-        	}
+        	//perform a fictional query
+        	return ConnectionCheck.validate(value, "/rest/api/space?spaceKey=rdsfsdfsdf", urlUsername, urlPassword, "Invalid Credentials or URL", waitMillis);
         }
-        
-        /**
-         * 
-         * Tries to establish a connection to confluence using the given data.
-         * Returns an error message if the connection could not be established
-         * 
-         * @param url confluence url
-         * @param user the username for the given url
-         * @param password the password
-         * @return
-         * 		null, if the connection could be established, an error message otherwise.
-         */
-        private String testConfluenceConnection(String url, String user, String password) {
-    		CredentialsProvider credsProvider = new BasicCredentialsProvider();
-    		credsProvider.setCredentials(AuthScope.ANY,
-    				new UsernamePasswordCredentials(user, password));
-    		CloseableHttpClient httpclient = HttpClients.custom()
-    				.setDefaultCredentialsProvider(credsProvider).build();
-
-    		
-
-    		URI uri;
-    		try {
-    			//perform a fictional query
-    			uri = new URIBuilder(url + "/rest/api/space?spaceKey=rdsfsdfsdf").build();
-    		} catch (URISyntaxException e) {
-    			return "Malformed URL: " + e.getMessage();    			
-    		}
-    		
-    		if (uri.getScheme() == null || uri.getHost() == null) {
-    			return "Malformed URL";
-    		}
-    		
-    		// Create AuthCache instance
-    		AuthCache authCache = new BasicAuthCache();
-    		// Generate BASIC scheme object and add it to the local auth cache
-    		BasicScheme basicAuth = new BasicScheme();
-    		HttpHost host = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
-    		authCache.put(host, basicAuth);
-
-    		// Add AuthCache to the execution context
-    		HttpClientContext context = HttpClientContext.create();
-    		context.setCredentialsProvider(credsProvider);
-    		context.setAuthCache(authCache);
-
-    		
-    		HttpGet httpGet = new HttpGet(uri);
-
-    		try {
-    			HttpResponse response = httpclient.execute(httpGet, context);
-    			httpclient.close();
-    			if (response.getStatusLine().getStatusCode() == 200) {
-    				return null;
-    			} else {
-    				return "Invalid Credentials or URL: " + response.getStatusLine();
-    				
-    			}
-    		} catch (IOException e) {
-    			return "Could not access the REST API under the given url: " + e.getClass().getName() + " - " + e.getMessage();
-    		} 
-    	}
 
     }
 
@@ -0,0 +1,245 @@
+package rocks.inspectit.releaseplugin.credentials;
+
+import hudson.util.FormValidation;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpHost;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicAuthCache;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+/**
+ *
+ * Checks whether a server is accessible with the credentials entered in a credentials form.
+ *
+ * The form validation is triggered on every change of a field, so the results are cached for a short time
+ * and the checks are executed on a small background pool. The validation only waits briefly for a check,
+ * if it takes longer a pending state is shown instead of blocking the request thread.
+ *
+ * @author Jonas Kunz
+ *
+ */
+final class ConnectionCheck {
+
+	/**
+	 * The connect, connection request and response timeout of a check.
+	 */
+	private static final int TIMEOUT_MILLIS = 5000;
+
+	/**
+	 * The time the form validation waits for a check before showing the pending state.
+	 */
+	static final long VALIDATION_WAIT_MILLIS = 1000;
+
+	/**
+	 * The time an explicit connection test waits for a check, covers all timeouts of the check.
+	 */
+	static final long TEST_WAIT_MILLIS = 3 * TIMEOUT_MILLIS + 1000;
+
+	/**
+	 * The time for which the result of a check is reused.
+	 */
+	private static final long RESULT_TTL_SECONDS = 30;
+
+	/**
+	 * The maximum number of checks executed at the same time.
+	 */
+	private static final int MAX_THREADS = 2;
+
+	/**
+	 * The maximum number of checks waiting for execution.
+	 */
+	private static final int MAX_QUEUED = 20;
+
+	/**
+	 * The results of recent checks, an empty string represents a successful check.
+	 * Indexed by url, path, user and the hash of the password, so that no password is kept in memory.
+	 */
+	private static final Cache<String, String> RESULTS = CacheBuilder.newBuilder()
+			.maximumSize(100)
+			.expireAfterWrite(RESULT_TTL_SECONDS, TimeUnit.SECONDS)
+			.build();
+
+	/**
+	 * The checks which are currently queued or running, identical checks are only executed once.
+	 */
+	private static final ConcurrentMap<String, Future<String>> PENDING = new ConcurrentHashMap<String, Future<String>>();
+
+	/**
+	 * The pool executing the checks.
+	 */
+	private static final ThreadPoolExecutor EXECUTOR;
+
+	/**
+	 * The client used for all checks, the credentials are passed per request.
+	 */
+	private static final CloseableHttpClient CLIENT = HttpClients.custom()
+			.setDefaultRequestConfig(RequestConfig.custom()
+					.setConnectTimeout(TIMEOUT_MILLIS)
+					.setConnectionRequestTimeout(TIMEOUT_MILLIS)
+					.setSocketTimeout(TIMEOUT_MILLIS)
+					.build())
+			.disableCookieManagement()
+			.build();
+
+	static {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		EXECUTOR = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(MAX_QUEUED),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Release Helper connection check " + threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		EXECUTOR.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Utility class.
+	 */
+	private ConnectionCheck() {
+	}
+
+	/**
+	 * Checks whether the given resource is accessible with the given credentials.
+	 *
+	 * @param url the url of the server
+	 * @param path the path of the resource to fetch, relative to the url
+	 * @param user the username
+	 * @param password the password
+	 * @param invalidMessage the message shown if the server responds with an error status
+	 * @param waitMillis the maximum time to wait for the result
+	 * @return the result of the check or a pending state if the check takes longer than the given time
+	 */
+	static FormValidation validate(final String url, final String path, final String user, final String password,
+			final String invalidMessage, long waitMillis) {
+		final String key = url + "\n" + path + "\n" + user + "\n" + Hashing.sha256().hashString(password, Charsets.UTF_8);
+		String message = RESULTS.getIfPresent(key);
+		if (message == null) {
+			FutureTask<String> check = new FutureTask<String>(new Callable<String>() {
+				@Override
+				public String call() {
+					try {
+						String result = testConnection(url, path, user, password, invalidMessage);
+						RESULTS.put(key, result);
+						return result;
+					} finally {
+						PENDING.remove(key);
+					}
+				}
+			});
+			Future<String> pending = PENDING.putIfAbsent(key, check);
+			if (pending == null) {
+				pending = check;
+				try {
+					EXECUTOR.execute(check);
+				} catch (RejectedExecutionException e) {
+					PENDING.remove(key);
+					return FormValidation.warning("Too many connection checks are running, please try again later.");
+				}
+			}
+			try {
+				message = pending.get(waitMillis, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				return FormValidation.ok("Checking the connection... Use 'Test Connection' to wait for the result.");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return FormValidation.ok("Checking the connection...");
+			} catch (ExecutionException e) {
+				return FormValidation.warning("Could not check the connection: " + e.getCause());
+			}
+		}
+		if (message.isEmpty()) {
+			return FormValidation.ok("URL is accessible with the given credentials");
+		} else {
+			return FormValidation.warning(message);
+		}
+	}
+
+	/**
+	 * Tries to fetch the given resource using the credentials.
+	 *
+	 * @param url the url of the server
+	 * @param path the path of the resource to fetch, relative to the url
+	 * @param user the username
+	 * @param password the password
+	 * @param invalidMessage the message returned if the server responds with an error status
+	 * @return an empty string if the resource is accessible, an error message otherwise
+	 */
+	private static String testConnection(String url, String path, String user, String password, String invalidMessage) {
+		URI uri;
+		try {
+			uri = new URIBuilder(url + path).build();
+		} catch (URISyntaxException e) {
+			return "Malformed URL: " + e.getMessage();
+		}
+
+		if (uri.getScheme() == null || uri.getHost() == null) {
+			return "Malformed URL";
+		}
+
+		CredentialsProvider credsProvider = new BasicCredentialsProvider();
+		credsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(user, password));
+		// Create AuthCache instance
+		AuthCache authCache = new BasicAuthCache();
+		// Generate BASIC scheme object and add it to the local auth cache
+		authCache.put(new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme()), new BasicScheme());
+
+		HttpClientContext context = HttpClientContext.create();
+		context.setCredentialsProvider(credsProvider);
+		context.setAuthCache(authCache);
+
+		try {
+			CloseableHttpResponse response = CLIENT.execute(new HttpGet(uri), context);
+			try {
+				if (response.getStatusLine().getStatusCode() == 200) {
+					return "";
+				} else {
+					return invalidMessage + ": " + response.getStatusLine();
+				}
+			} finally {
+				//make sure the connection is returned to the pool
+				EntityUtils.consumeQuietly(response.getEntity());
+				response.close();
+			}
+		} catch (IOException e) {
+			return "Could not access the REST API under the given url: " + e.getClass().getName() + " - " + e.getMessage();
+		}
+	}
+
+}
@@ -0,0 +1,366 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicAuthCache;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.util.EntityUtils;
+
+import com.google.gson.stream.JsonWriter;
+
+import rocks.inspectit.releaseplugin.http.JsonEntity.JsonWriterCallback;
+
+/**
+ *
+ * Authentication state shared by all connections of a user to a server.
+ *
+ * If the server supports it (like JIRA does), a session is created once via <code>/rest/auth/1/session</code>
+ * and the session cookie is sent with all further requests, instead of validating the password on every request.
+ * If the session expires, a new one is created transparently.
+ * If the server does not support sessions (like Confluence), preemptive basic authentication is used instead.
+ * The login is executed by the first request requiring it, concurrent requests wait for it without blocking requests which do not need it.
+ * If the login fails for a transient reason, basic authentication is used until the login is tried again.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public final class AuthSession {
+
+	/**
+	 * The path of the REST resource used for creating sessions, relative to the server url.
+	 */
+	private static final String SESSION_PATH = "/rest/auth/1/session";
+
+	/**
+	 * Name of the context attribute storing the session generation the context was created for.
+	 */
+	private static final String GENERATION_ATTRIBUTE = AuthSession.class.getName() + ".generation";
+
+	/**
+	 * The time after a failed login during which basic authentication is used, before the login is tried again.
+	 */
+	private static final long LOGIN_RETRY_MILLIS = 30000;
+
+	/**
+	 * All sessions created so far, indexed by server url and user.
+	 */
+	private static final ConcurrentHashMap<String, AuthSession> SESSIONS = new ConcurrentHashMap<String, AuthSession>();
+
+	/**
+	 * The possible authentication modes.
+	 */
+	private enum Mode {
+		/**
+		 * Not known yet whether the server supports sessions.
+		 */
+		UNKNOWN,
+		/**
+		 * Authentication via session cookie.
+		 */
+		SESSION,
+		/**
+		 * Preemptive basic authentication on every request.
+		 */
+		BASIC
+	}
+
+	/**
+	 * The transport to the server.
+	 */
+	private final HttpTransport transport;
+
+	/**
+	 * The url of the server.
+	 */
+	private final String url;
+
+	/**
+	 * The password used for authentication, used for detecting changed credentials.
+	 */
+	private final String password;
+
+	/**
+	 * Stores the session cookie.
+	 */
+	private final BasicCookieStore cookies = new BasicCookieStore();
+
+	/**
+	 * The auth cache making basic authentication preemptive.
+	 */
+	private final AuthCache authCache = new BasicAuthCache();
+
+	/**
+	 * The credentials of the user.
+	 */
+	private final CredentialsProvider credsProvider = new BasicCredentialsProvider();
+
+	/**
+	 * The current authentication mode.
+	 */
+	private Mode mode = Mode.UNKNOWN;
+
+	/**
+	 * True, if a valid session is believed to exist.
+	 */
+	private boolean loggedIn = false;
+
+	/**
+	 * Incremented whenever the session is invalidated, so that concurrent failures only cause a single new login.
+	 */
+	private int generation = 0;
+
+	/**
+	 * The login currently executed, null if no login is in progress.
+	 */
+	private FutureTask<Void> pendingLogin;
+
+	/**
+	 * The time in milliseconds since the epoch before which no login is tried after a failed login.
+	 */
+	private long retryLoginAtMillis = 0;
+
+	/**
+	 * Creates a new session, the login is performed on the first request.
+	 * @param transport the transport to the server
+	 * @param url the url of the server
+	 * @param user the username
+	 * @param password the password
+	 */
+	private AuthSession(HttpTransport transport, String url, String user, String password) {
+		this.transport = transport;
+		this.url = url;
+		this.password = password;
+		credsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(user, password));
+		authCache.put(transport.getTarget(), new BasicScheme());
+	}
+
+	/**
+	 * Returns the session of the given user to the given server, creating it if necessary.
+	 *
+	 * @param transport
+	 * 		the transport to the server
+	 * @param url
+	 * 		the url of the server
+	 * @param user
+	 * 		the username
+	 * @param password
+	 * 		the password
+	 * @return
+	 * 		the shared session
+	 */
+	public static AuthSession get(HttpTransport transport, String url, String user, String password) {
+		String key = url + " as " + user + (transport.getProxy() == null ? "" : " via " + transport.getProxy());
+		AuthSession session = SESSIONS.get(key);
+		if (session == null || !session.password.equals(password)) {
+			synchronized (SESSIONS) {
+				session = SESSIONS.get(key);
+				if (session == null || !session.password.equals(password)) {
+					session = new AuthSession(transport, url, user, password);
+					SESSIONS.put(key, session);
+				}
+			}
+		}
+		return session;
+	}
+
+	/**
+	 * Creates a context for executing a single request, logging in first if required.
+	 * The context shares the session cookie and the authentication cache of this session.
+	 * If another request is already logging in, the caller waits for that login, at most until its {@link Deadline}.
+	 *
+	 * @param settings
+	 * 		the settings of the connection executing the request, used for the login
+	 * @return
+	 * 		the authenticated context
+	 * @throws IOException
+	 * 		if the login executed by the caller failed due to a connection problem
+	 */
+	public HttpClientContext createContext(final ConnectionSettings settings) throws IOException {
+		while (true) {
+			FutureTask<Void> login;
+			boolean execute = false;
+			synchronized (this) {
+				if (mode == Mode.BASIC || loggedIn || System.currentTimeMillis() < retryLoginAtMillis) {
+					HttpClientContext context = HttpClientContext.create();
+					context.setCookieStore(cookies);
+					context.setCredentialsProvider(credsProvider);
+					if (!loggedIn) {
+						context.setAuthCache(authCache);
+					}
+					context.setAttribute(GENERATION_ATTRIBUTE, generation);
+					return context;
+				}
+				if (pendingLogin == null) {
+					pendingLogin = new FutureTask<Void>(new Callable<Void>() {
+						@Override
+						public Void call() throws IOException {
+							login(settings);
+							return null;
+						}
+					});
+					execute = true;
+				}
+				login = pendingLogin;
+			}
+			if (execute) {
+				try {
+					login.run();
+				} finally {
+					synchronized (this) {
+						pendingLogin = null;
+					}
+				}
+			}
+			awaitLogin(login, execute);
+		}
+	}
+
+	/**
+	 * Waits for a login to complete.
+	 *
+	 * @param login
+	 * 		the login
+	 * @param executed
+	 * 		true, if the login has been executed by the caller, so that its failure is thrown
+	 * @throws IOException
+	 * 		if the login executed by the caller failed due to a connection problem
+	 */
+	private void awaitLogin(FutureTask<Void> login, boolean executed) throws IOException {
+		Deadline deadline = Deadline.current();
+		try {
+			if (deadline.isLimited()) {
+				login.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS);
+			} else {
+				login.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (TimeoutException e) {
+			throw deadline.exceeded("POST " + SESSION_PATH);
+		} catch (ExecutionException e) {
+			//the waiting requests continue with the state left by the failed login
+			if (executed) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				} else if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Called when a request executed with the given context has been rejected as unauthorized.
+	 * Invalidates the session, so that the next context is created with a fresh login.
+	 *
+	 * @param context
+	 * 		the context of the rejected request
+	 * @return
+	 * 		true, if repeating the request with a new context might succeed
+	 */
+	public synchronized boolean invalidate(HttpClientContext context) {
+		if (mode != Mode.SESSION) {
+			return false;
+		}
+		Integer contextGeneration = context.getAttribute(GENERATION_ATTRIBUTE, Integer.class);
+		if (contextGeneration != null && contextGeneration == generation) {
+			generation++;
+			loggedIn = false;
+			cookies.clear();
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a new session. If the server does not support sessions, basic authentication is used from now on.
+	 * If the login fails for any other reason, basic authentication is used until the login is tried again after {@link #LOGIN_RETRY_MILLIS}.
+	 *
+	 * @param settings
+	 * 		the settings of the connection executing the login, null for the defaults
+	 * @throws IOException
+	 * 		if the server could not be reached
+	 */
+	private void login(ConnectionSettings settings) throws IOException {
+		if (settings == null) {
+			settings = ConnectionSettings.DEFAULT;
+		}
+		final UsernamePasswordCredentials creds = (UsernamePasswordCredentials) credsProvider.getCredentials(AuthScope.ANY);
+		HttpPost loginReq = new HttpPost(url + SESSION_PATH);
+		loginReq.addHeader("Accept", "application/json");
+		loginReq.setEntity(new JsonEntity(new JsonWriterCallback() {
+			@Override
+			public void write(JsonWriter writer) throws IOException {
+				writer.beginObject();
+				writer.name("username").value(creds.getUserName());
+				writer.name("password").value(creds.getPassword());
+				writer.endObject();
+			}
+		}));
+
+		HttpClientContext context = HttpClientContext.create();
+		context.setCookieStore(cookies);
+		Deadline deadline = Deadline.current();
+		context.setRequestConfig(RequestConfig.custom()
+				.setConnectTimeout(deadline.limitTimeout(settings.getConnectTimeoutMillis()))
+				.setConnectionRequestTimeout(deadline.limitTimeout(settings.getConnectTimeoutMillis()))
+				.setSocketTimeout(deadline.limitTimeout(settings.getResponseTimeoutMillis()))
+				.build());
+		CircuitBreaker breaker = transport.getCircuitBreaker();
+		//the limiter is acquired first, so that a call permitted by the breaker (e.g. the probe call) is always sent
+		deadline.acquire(transport.getLimiter(), "POST " + SESSION_PATH);
+		try {
+			breaker.acquire("POST " + SESSION_PATH);
+			CloseableHttpResponse response;
+			try {
+				response = transport.getClient().execute(loginReq, context);
+			} catch (IOException e) {
+				breaker.recordFailure();
+				synchronized (this) {
+					retryLoginAtMillis = System.currentTimeMillis() + LOGIN_RETRY_MILLIS;
+				}
+				throw e;
+			}
+			try {
+				int status = response.getStatusLine().getStatusCode();
+				breaker.record(status);
+				synchronized (this) {
+					if (status == HttpStatus.SC_OK) {
+						mode = Mode.SESSION;
+						loggedIn = true;
+					} else if (status == HttpStatus.SC_NOT_FOUND || status == HttpStatus.SC_METHOD_NOT_ALLOWED) {
+						//sessions are not supported
+						mode = Mode.BASIC;
+					} else {
+						//e.g. a wrong password, a captcha or an unavailable server, basic authentication is used until the next try
+						retryLoginAtMillis = System.currentTimeMillis() + LOGIN_RETRY_MILLIS;
+					}
+				}
+			} finally {
+				EntityUtils.consumeQuietly(response.getEntity());
+				response.close();
+			}
+		} finally {
+			transport.getLimiter().release();
+		}
+	}
+
+}
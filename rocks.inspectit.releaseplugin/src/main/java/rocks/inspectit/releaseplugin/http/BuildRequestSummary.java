@@ -0,0 +1,166 @@
+package rocks.inspectit.releaseplugin.http;
+
+import hudson.model.Action;
+import hudson.model.Run;
+
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * The REST requests issued by the build steps of a single build, grouped by endpoint.
+ *
+ * A build step starts a summary before accessing any server and finishes it at the end, the summary is then printed to the build log
+ * and merged into the summary attached to the build. All requests of the thread which started the summary are recorded in it.
+ * Summaries are serializable, so that requests issued on agents can be sent back and added to the summary of the build.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class BuildRequestSummary implements Action, Serializable {
+
+	/**
+	 * Serialization UID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The summary active for the current thread.
+	 */
+	private static final ThreadLocal<BuildRequestSummary> CURRENT = new ThreadLocal<BuildRequestSummary>();
+
+	/**
+	 * The metrics of the requests, indexed by host, method and path template.
+	 */
+	private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<String, EndpointMetrics>();
+
+	/**
+	 * The summary which was active when this summary was started, it is reactivated when this summary ends.
+	 */
+	private transient BuildRequestSummary previous;
+
+	/**
+	 * Starts a new summary for the current thread.
+	 * @return the new summary
+	 */
+	public static BuildRequestSummary start() {
+		BuildRequestSummary summary = new BuildRequestSummary();
+		summary.previous = CURRENT.get();
+		CURRENT.set(summary);
+		return summary;
+	}
+
+	/**
+	 * @return the summary active for the current thread, null if there is none
+	 */
+	public static BuildRequestSummary current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Records the requests of the current thread in this summary, e.g. of a worker thread executing requests on behalf of a build step.
+	 * @return the summary active before, to be passed to {@link #detach(BuildRequestSummary)}
+	 */
+	BuildRequestSummary attach() {
+		BuildRequestSummary previousSummary = CURRENT.get();
+		CURRENT.set(this);
+		return previousSummary;
+	}
+
+	/**
+	 * Reactivates the summary which was active before {@link #attach()} was called.
+	 * @param previousSummary the result of {@link #attach()}
+	 */
+	static void detach(BuildRequestSummary previousSummary) {
+		if (previousSummary == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previousSummary);
+		}
+	}
+
+	/**
+	 * Stops recording requests of the current thread in this summary.
+	 */
+	public void end() {
+		if (CURRENT.get() == this) {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+		previous = null;
+	}
+
+	/**
+	 * Ends this summary, prints it to the build log and adds it to the summary of the build.
+	 * @param build the build the requests were issued for
+	 * @param logger the build log
+	 */
+	public void finish(Run<?, ?> build, PrintStream logger) {
+		end();
+		if (endpoints.isEmpty()) {
+			return;
+		}
+		logger.println("REST requests of this step:");
+		for (EndpointMetrics endpoint : getEndpoints()) {
+			logger.println("  " + endpoint);
+		}
+		synchronized (build) {
+			BuildRequestSummary buildSummary = build.getAction(BuildRequestSummary.class);
+			if (buildSummary == null) {
+				build.addAction(this);
+			} else {
+				buildSummary.add(this);
+			}
+		}
+	}
+
+	/**
+	 * Adds all requests recorded by the given summary to this summary.
+	 * @param other the summary to add, can be null
+	 */
+	public void add(BuildRequestSummary other) {
+		if (other == null) {
+			return;
+		}
+		for (EndpointMetrics endpoint : other.endpoints.values()) {
+			getEndpoint(endpoint.getHost(), endpoint.getMethod(), endpoint.getPathTemplate()).add(endpoint);
+		}
+	}
+
+	/**
+	 * @param host the server
+	 * @param method the HTTP method
+	 * @param template the path template
+	 * @return the metrics of the given endpoint, created if necessary
+	 */
+	EndpointMetrics getEndpoint(String host, String method, String template) {
+		return RequestMetrics.getEndpoint(endpoints, host, method, template);
+	}
+
+	/**
+	 * @return the metrics of all endpoints accessed, ordered by host and path
+	 */
+	public List<EndpointMetrics> getEndpoints() {
+		return RequestMetrics.sorted(endpoints.values());
+	}
+
+	@Override
+	public String getIconFileName() {
+		return "network.png";
+	}
+
+	@Override
+	public String getDisplayName() {
+		return "REST Requests";
+	}
+
+	@Override
+	public String getUrlName() {
+		return "rest-requests";
+	}
+}
@@ -0,0 +1,238 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Circuit breaker protecting the builds from waiting for a server which is down, shared by all calls of this JVM to the server.
+ *
+ * After a configurable number of consecutive failures (connection problems or responses indicating that the server is unavailable)
+ * the breaker opens and all calls to the server fail immediately with a {@link CircuitOpenException} instead of waiting for their timeouts.
+ * After the configured open period, the breaker becomes half-open and lets a single probe call pass:
+ * if it succeeds, the breaker closes again, otherwise it stays open for another period.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public final class CircuitBreaker {
+
+	/**
+	 * The states of a breaker.
+	 */
+	public enum State {
+		/**
+		 * All calls are sent.
+		 */
+		CLOSED,
+		/**
+		 * All calls fail immediately.
+		 */
+		OPEN,
+		/**
+		 * A single probe call is sent, all other calls fail immediately.
+		 */
+		HALF_OPEN
+	}
+
+	/**
+	 * The breakers of all servers, indexed by host.
+	 */
+	private static final ConcurrentHashMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<String, CircuitBreaker>();
+
+	/**
+	 * The number of consecutive failures after which a breaker opens, 0 disables the breakers.
+	 */
+	private static volatile int failureThreshold = HttpTransportConfiguration.DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+
+	/**
+	 * The time an open breaker rejects all calls before a probe call is sent.
+	 */
+	private static volatile long openMillis = HttpTransportConfiguration.DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS * 1000L;
+
+	/**
+	 * The server protected by this breaker.
+	 */
+	private final String host;
+
+	/**
+	 * The current state.
+	 */
+	private State state = State.CLOSED;
+
+	/**
+	 * The number of failures since the last successful call.
+	 */
+	private int consecutiveFailures;
+
+	/**
+	 * The value of {@link System#nanoTime()} at which the breaker opened the last time.
+	 */
+	private long openedAtNanos;
+
+	/**
+	 * The value of {@link System#nanoTime()} at which the current probe call was started.
+	 */
+	private long probeStartedAtNanos;
+
+	/**
+	 * The number of times the breaker opened.
+	 */
+	private long timesOpened;
+
+	/**
+	 * The number of calls which failed immediately because the breaker was open.
+	 */
+	private long rejectedCalls;
+
+	/**
+	 * Creates a new closed breaker.
+	 * @param host the server protected by the breaker
+	 */
+	private CircuitBreaker(String host) {
+		this.host = host;
+	}
+
+	/**
+	 * Applies the thresholds of the {@link HttpTransportConfiguration} to all breakers.
+	 * @param threshold the number of consecutive failures after which a breaker opens, 0 disables the breakers
+	 * @param openSeconds the time an open breaker rejects all calls before a probe call is sent
+	 */
+	public static void configure(int threshold, int openSeconds) {
+		failureThreshold = Math.max(0, threshold);
+		openMillis = Math.max(1, openSeconds) * 1000L;
+	}
+
+	/**
+	 * @param host the server, e.g. jira.example.com:8080
+	 * @return the breaker shared by all calls to the server
+	 */
+	public static CircuitBreaker forHost(String host) {
+		CircuitBreaker breaker = BREAKERS.get(host);
+		if (breaker == null) {
+			CircuitBreaker newBreaker = new CircuitBreaker(host);
+			breaker = BREAKERS.putIfAbsent(host, newBreaker);
+			if (breaker == null) {
+				breaker = newBreaker;
+			}
+		}
+		return breaker;
+	}
+
+	/**
+	 * @return the breakers of all servers accessed so far, sorted by host
+	 */
+	public static List<CircuitBreaker> getAll() {
+		List<CircuitBreaker> breakers = new ArrayList<CircuitBreaker>(BREAKERS.values());
+		Collections.sort(breakers, new Comparator<CircuitBreaker>() {
+			@Override
+			public int compare(CircuitBreaker a, CircuitBreaker b) {
+				return a.host.compareTo(b.host);
+			}
+		});
+		return breakers;
+	}
+
+	/**
+	 * Checks whether a call may be sent to the server. If the open period has passed, the caller becomes the probe call.
+	 * Each permitted call has to be followed by a call to {@link #recordSuccess()}, {@link #recordFailure()} or {@link #record(int)}.
+	 * @param call the description of the call, e.g. its method and path
+	 * @throws CircuitOpenException if the call must not be sent
+	 */
+	public synchronized void acquire(String call) {
+		if (failureThreshold == 0 || state == State.CLOSED) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (state == State.OPEN && now - openedAtNanos >= TimeUnit.MILLISECONDS.toNanos(openMillis)) {
+			state = State.HALF_OPEN;
+			probeStartedAtNanos = now;
+			return;
+		}
+		if (state == State.HALF_OPEN && now - probeStartedAtNanos >= TimeUnit.MILLISECONDS.toNanos(openMillis)) {
+			//the previous probe never reported back
+			probeStartedAtNanos = now;
+			return;
+		}
+		rejectedCalls++;
+		long retryInSeconds = Math.max(0, TimeUnit.NANOSECONDS.toSeconds(openedAtNanos + TimeUnit.MILLISECONDS.toNanos(openMillis) - now));
+		throw new CircuitOpenException(host + " is considered unavailable after " + consecutiveFailures + " consecutive failures, " + call
+				+ " was not sent. The next attempt to reach the server is made in " + retryInSeconds + " s.");
+	}
+
+	/**
+	 * Records the outcome of a call which received a response.
+	 * Responses stating that the server or a gateway in front of it is unavailable count as failure.
+	 * @param statusCode the status code of the response
+	 */
+	public void record(int statusCode) {
+		if (statusCode == 502 || statusCode == 503 || statusCode == 504) {
+			recordFailure();
+		} else {
+			recordSuccess();
+		}
+	}
+
+	/**
+	 * Records a successful call, closing the breaker.
+	 */
+	public synchronized void recordSuccess() {
+		consecutiveFailures = 0;
+		state = State.CLOSED;
+	}
+
+	/**
+	 * Records a failed call, opening the breaker if the threshold has been reached or the probe call failed.
+	 */
+	public synchronized void recordFailure() {
+		consecutiveFailures++;
+		if (failureThreshold == 0) {
+			return;
+		}
+		if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+			state = State.OPEN;
+			openedAtNanos = System.nanoTime();
+			timesOpened++;
+		}
+	}
+
+	/**
+	 * @return the server protected by this breaker
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return the current state
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * @return the number of failures since the last successful call
+	 */
+	public synchronized int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	/**
+	 * @return the number of times the breaker opened
+	 */
+	public synchronized long getTimesOpened() {
+		return timesOpened;
+	}
+
+	/**
+	 * @return the number of calls which failed immediately because the breaker was open
+	 */
+	public synchronized long getRejectedCalls() {
+		return rejectedCalls;
+	}
+
+}
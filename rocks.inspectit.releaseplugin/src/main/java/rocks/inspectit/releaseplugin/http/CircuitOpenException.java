@@ -0,0 +1,26 @@
+package rocks.inspectit.releaseplugin.http;
+
+/**
+ *
+ * Signals that a remote call was not sent because the {@link CircuitBreaker} of the server is open,
+ * i.e. the server is considered to be unavailable after repeated failures.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class CircuitOpenException extends RuntimeException {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 4186703627945580519L;
+
+	/**
+	 * Creates a new exception.
+	 * @param message the description of the rejected call and the state of the breaker
+	 */
+	public CircuitOpenException(String message) {
+		super(message);
+	}
+
+}
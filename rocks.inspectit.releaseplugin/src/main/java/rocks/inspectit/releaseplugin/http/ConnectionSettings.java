@@ -0,0 +1,78 @@
+package rocks.inspectit.releaseplugin.http;
+
+/**
+ *
+ * Connection specific settings for accessing a server, usually taken from the credentials used for the server.
+ * In contrast to the {@link HttpTransportConfiguration}, these settings may differ between connections to the same server.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class ConnectionSettings {
+
+	/**
+	 * Default value of the connect timeout.
+	 */
+	public static final int DEFAULT_CONNECT_TIMEOUT_SECONDS = 10;
+
+	/**
+	 * Default value of the response timeout.
+	 */
+	public static final int DEFAULT_RESPONSE_TIMEOUT_SECONDS = 60;
+
+	/**
+	 * The settings used if nothing else has been configured.
+	 */
+	public static final ConnectionSettings DEFAULT = new ConnectionSettings(true, false, DEFAULT_CONNECT_TIMEOUT_SECONDS, DEFAULT_RESPONSE_TIMEOUT_SECONDS);
+
+	/**
+	 * True, if compressed (gzip or deflate) responses shall be requested from the server.
+	 */
+	private final boolean compressResponses;
+
+	/**
+	 * True, if request bodies shall be sent gzip compressed.
+	 */
+	private final boolean compressRequests;
+
+	/**
+	 * The maximum time for establishing a connection, 0 if infinite.
+	 */
+	private final int connectTimeoutMillis;
+
+	/**
+	 * The maximum time of inactivity while waiting for the response, 0 if infinite.
+	 */
+	private final int responseTimeoutMillis;
+
+	/**
+	 * Creates new settings.
+	 * @param compressResponses true, if compressed responses shall be requested
+	 * @param compressRequests true, if request bodies shall be sent gzip compressed
+	 * @param connectTimeoutSeconds the maximum time for establishing a connection, 0 if infinite
+	 * @param responseTimeoutSeconds the maximum time of inactivity while waiting for the response, 0 if infinite
+	 */
+	public ConnectionSettings(boolean compressResponses, boolean compressRequests, int connectTimeoutSeconds, int responseTimeoutSeconds) {
+		this.compressResponses = compressResponses;
+		this.compressRequests = compressRequests;
+		this.connectTimeoutMillis = Math.max(0, connectTimeoutSeconds) * 1000;
+		this.responseTimeoutMillis = Math.max(0, responseTimeoutSeconds) * 1000;
+	}
+
+	public boolean isCompressResponses() {
+		return compressResponses;
+	}
+
+	public boolean isCompressRequests() {
+		return compressRequests;
+	}
+
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public int getResponseTimeoutMillis() {
+		return responseTimeoutMillis;
+	}
+
+}
@@ -0,0 +1,231 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * The point in time until which all remote calls of a build step have to be completed.
+ *
+ * A build step starts a deadline together with its {@link BuildRequestSummary}, all calls issued by the thread which started it inherit it:
+ * the connect and response timeouts of each call are capped by the remaining time, retries are only performed if they can complete in time.
+ * As soon as the remaining time is too short for another call, the calls fail fast with a {@link DeadlineExceededException}
+ * reporting which endpoints consumed the time.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public final class Deadline {
+
+	/**
+	 * The deadline active for the current thread.
+	 */
+	private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+	/**
+	 * The deadline used if no deadline has been started, it never expires.
+	 */
+	private static final Deadline UNLIMITED = new Deadline(0, null);
+
+	/**
+	 * Calls are not started anymore if less time than this is left, as they would hardly complete in time.
+	 */
+	private static final long MIN_CALL_MILLIS = 1000;
+
+	/**
+	 * The maximum number of endpoints listed when the deadline is exceeded.
+	 */
+	private static final int REPORTED_ENDPOINTS = 5;
+
+	/**
+	 * The total time in milliseconds the calls of the step may take, 0 if unlimited.
+	 */
+	private final long budgetMillis;
+
+	/**
+	 * The value of {@link System#nanoTime()} at which the deadline expires.
+	 */
+	private final long expiresAtNanos;
+
+	/**
+	 * The summary recording the calls of the step, used for reporting where the time was spent, can be null.
+	 */
+	private final BuildRequestSummary summary;
+
+	/**
+	 * The deadline which was active when this deadline was started, it is reactivated when this deadline ends.
+	 */
+	private Deadline previous;
+
+	/**
+	 * Creates a new deadline starting now.
+	 * @param budgetMillis the total time the calls may take, 0 if unlimited
+	 * @param summary the summary recording the calls, can be null
+	 */
+	private Deadline(long budgetMillis, BuildRequestSummary summary) {
+		this.budgetMillis = Math.max(0, budgetMillis);
+		this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.budgetMillis);
+		this.summary = summary;
+	}
+
+	/**
+	 * Starts a new deadline for the current thread with the step timeout of the {@link HttpTransportConfiguration}.
+	 * @param summary the summary recording the calls of the step, can be null
+	 * @return the new deadline
+	 */
+	public static Deadline start(BuildRequestSummary summary) {
+		HttpTransportConfiguration config = HttpTransportConfiguration.get();
+		int timeoutSeconds = config == null ? HttpTransportConfiguration.DEFAULT_STEP_TIMEOUT_SECONDS : config.getStepTimeoutSeconds();
+		return start(Math.max(0, timeoutSeconds) * 1000L, summary);
+	}
+
+	/**
+	 * Starts a new deadline for the current thread.
+	 * @param budgetMillis the total time the calls may take starting now, 0 if unlimited
+	 * @param summary the summary recording the calls of the step, can be null
+	 * @return the new deadline
+	 */
+	public static Deadline start(long budgetMillis, BuildRequestSummary summary) {
+		Deadline deadline = new Deadline(budgetMillis, summary);
+		deadline.previous = CURRENT.get();
+		CURRENT.set(deadline);
+		return deadline;
+	}
+
+	/**
+	 * @return the deadline active for the current thread, a deadline which never expires if there is none
+	 */
+	public static Deadline current() {
+		Deadline deadline = CURRENT.get();
+		return deadline == null ? UNLIMITED : deadline;
+	}
+
+	/**
+	 * Applies this deadline to the calls of the current thread, e.g. of a worker thread executing calls on behalf of a build step.
+	 * @return the deadline active before, to be passed to {@link #detach(Deadline)}
+	 */
+	Deadline attach() {
+		Deadline previous = CURRENT.get();
+		CURRENT.set(this);
+		return previous;
+	}
+
+	/**
+	 * Reactivates the deadline which was active before {@link #attach()} was called.
+	 * @param previous the result of {@link #attach()}
+	 */
+	static void detach(Deadline previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Stops applying this deadline to the calls of the current thread.
+	 */
+	public void end() {
+		if (CURRENT.get() == this) {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+		previous = null;
+	}
+
+	/**
+	 * @return true, if this deadline expires at all
+	 */
+	public boolean isLimited() {
+		return budgetMillis > 0;
+	}
+
+	/**
+	 * @return the time left in milliseconds, {@link Long#MAX_VALUE} if unlimited
+	 */
+	public long getRemainingMillis() {
+		if (!isLimited()) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+	}
+
+	/**
+	 * Caps the given timeout of a single call by the remaining time.
+	 * @param timeoutMillis the configured timeout, 0 if infinite
+	 * @return the timeout to use, 0 if infinite
+	 */
+	public int limitTimeout(int timeoutMillis) {
+		if (!isLimited()) {
+			return timeoutMillis;
+		}
+		long remaining = Math.max(1, getRemainingMillis());
+		if (timeoutMillis <= 0) {
+			return (int) Math.min(Integer.MAX_VALUE, remaining);
+		}
+		return (int) Math.min(timeoutMillis, remaining);
+	}
+
+	/**
+	 * Checks whether enough time is left for starting another call.
+	 * @param call the description of the call, e.g. its method and path
+	 * @throws DeadlineExceededException if the call shall not be started anymore
+	 */
+	public void check(String call) {
+		if (getRemainingMillis() < MIN_CALL_MILLIS) {
+			throw exceeded(call);
+		}
+	}
+
+	/**
+	 * Waits until the given limiter allows starting another call, but at most until the deadline expires.
+	 * Each successful call has to be followed by a call to {@link RequestLimiter#release()}.
+	 * @param limiter the limiter of the server
+	 * @param call the description of the call, e.g. its method and path
+	 * @throws DeadlineExceededException if the deadline expired while waiting
+	 */
+	public void acquire(RequestLimiter limiter, String call) {
+		if (!isLimited()) {
+			limiter.acquire();
+		} else if (!limiter.tryAcquire(getRemainingMillis())) {
+			throw exceeded(call);
+		}
+	}
+
+	/**
+	 * Creates the exception reporting that the given call could not be completed in time.
+	 * @param call the description of the call, e.g. its method and path
+	 * @return the exception
+	 */
+	public DeadlineExceededException exceeded(String call) {
+		StringBuilder message = new StringBuilder();
+		message.append("The remote calls of this step exceeded their deadline of ").append(budgetMillis / 1000)
+				.append(" s, ").append(call).append(" could not be completed in time.");
+		if (summary != null) {
+			List<EndpointMetrics> endpoints = new ArrayList<EndpointMetrics>(summary.getEndpoints());
+			Collections.sort(endpoints, new Comparator<EndpointMetrics>() {
+				@Override
+				public int compare(EndpointMetrics a, EndpointMetrics b) {
+					return Long.compare(b.getLatencySumMillis(), a.getLatencySumMillis());
+				}
+			});
+			message.append(" Time consumed by the calls so far:");
+			for (EndpointMetrics endpoint : endpoints.subList(0, Math.min(REPORTED_ENDPOINTS, endpoints.size()))) {
+				message.append("\n  ").append(endpoint.getMethod()).append(' ').append(endpoint.getHost()).append(endpoint.getPathTemplate())
+						.append(": ").append(endpoint.getLatencySumMillis()).append(" ms in ").append(endpoint.getCount()).append(" calls, ")
+						.append(endpoint.getRetries()).append(" retries");
+			}
+			if (endpoints.size() > REPORTED_ENDPOINTS) {
+				message.append("\n  ... and ").append(endpoints.size() - REPORTED_ENDPOINTS).append(" more endpoints");
+			}
+		}
+		return new DeadlineExceededException(message.toString());
+	}
+
+}
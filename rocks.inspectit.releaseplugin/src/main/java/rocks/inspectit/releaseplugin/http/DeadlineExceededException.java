@@ -0,0 +1,26 @@
+package rocks.inspectit.releaseplugin.http;
+
+/**
+ *
+ * Signals that a remote call was not started or not completed because the {@link Deadline} of the build step has been reached.
+ * The message lists the endpoints which consumed the time of the step.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = -2651904853376142011L;
+
+	/**
+	 * Creates a new exception.
+	 * @param message the description of the call and the report of the consumed time
+	 */
+	public DeadlineExceededException(String message) {
+		super(message);
+	}
+
+}
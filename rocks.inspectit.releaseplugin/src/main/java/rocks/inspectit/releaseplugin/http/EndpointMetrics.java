@@ -0,0 +1,270 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Latency histogram and counters of the requests to a single REST endpoint,
+ * identified by the host, the HTTP method and the normalized path template.
+ *
+ * Recording only increments a few atomic counters, so it can be done for every request.
+ * The latencies are counted in fixed buckets, percentiles are therefore estimated by the upper bound of the bucket they fall into.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class EndpointMetrics implements Serializable {
+
+	/**
+	 * Serialization UID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The upper bounds of the latency buckets in milliseconds, a last bucket without upper bound is added implicitly.
+	 */
+	static final long[] LATENCY_BUCKETS_MILLIS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+
+	/**
+	 * The server the requests were sent to, including the port if not the default one.
+	 */
+	private final String host;
+
+	/**
+	 * The HTTP method of the requests.
+	 */
+	private final String method;
+
+	/**
+	 * The path of the requests with all identifiers replaced by placeholders, e.g. /rest/api/2/issue/{key}.
+	 */
+	private final String pathTemplate;
+
+	/**
+	 * The number of requests per latency bucket, not cumulative.
+	 */
+	private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS_MILLIS.length + 1);
+
+	/**
+	 * The number of completed requests.
+	 */
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * The sum of the latencies of all completed requests.
+	 */
+	private final AtomicLong latencySumMillis = new AtomicLong();
+
+	/**
+	 * The highest latency observed.
+	 */
+	private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+	/**
+	 * The number of request body bytes sent.
+	 */
+	private final AtomicLong requestBytes = new AtomicLong();
+
+	/**
+	 * The number of response body bytes received.
+	 */
+	private final AtomicLong responseBytes = new AtomicLong();
+
+	/**
+	 * The number of requests repeated because of a transient failure.
+	 */
+	private final AtomicLong retries = new AtomicLong();
+
+	/**
+	 * The number of requests per status code, 0 stands for requests which failed without a response.
+	 */
+	private final ConcurrentHashMap<Integer, AtomicLong> statusCodes = new ConcurrentHashMap<Integer, AtomicLong>();
+
+	/**
+	 * Creates empty metrics.
+	 * @param host the server the requests are sent to
+	 * @param method the HTTP method of the requests
+	 * @param pathTemplate the normalized path of the requests
+	 */
+	public EndpointMetrics(String host, String method, String pathTemplate) {
+		this.host = host;
+		this.method = method;
+		this.pathTemplate = pathTemplate;
+	}
+
+	/**
+	 * Records a completed request.
+	 * @param status the status code of the response, 0 if the request failed without a response
+	 * @param latencyMillis the time from sending the request until the response was consumed
+	 * @param sentBytes the number of request body bytes sent
+	 * @param receivedBytes the number of response body bytes received
+	 */
+	public void record(int status, long latencyMillis, long sentBytes, long receivedBytes) {
+		int bucket = 0;
+		while (bucket < LATENCY_BUCKETS_MILLIS.length && latencyMillis > LATENCY_BUCKETS_MILLIS[bucket]) {
+			bucket++;
+		}
+		latencyBuckets.incrementAndGet(bucket);
+		count.incrementAndGet();
+		latencySumMillis.addAndGet(latencyMillis);
+		updateMax(latencyMillis);
+		requestBytes.addAndGet(sentBytes);
+		responseBytes.addAndGet(receivedBytes);
+		getStatusCounter(status).incrementAndGet();
+	}
+
+	/**
+	 * Records that a request was repeated.
+	 */
+	public void recordRetry() {
+		retries.incrementAndGet();
+	}
+
+	/**
+	 * Adds all values recorded by the given metrics of the same endpoint to these metrics.
+	 * @param other the metrics to add
+	 */
+	public void add(EndpointMetrics other) {
+		for (int i = 0; i < latencyBuckets.length(); i++) {
+			latencyBuckets.addAndGet(i, other.latencyBuckets.get(i));
+		}
+		count.addAndGet(other.count.get());
+		latencySumMillis.addAndGet(other.latencySumMillis.get());
+		updateMax(other.maxLatencyMillis.get());
+		requestBytes.addAndGet(other.requestBytes.get());
+		responseBytes.addAndGet(other.responseBytes.get());
+		retries.addAndGet(other.retries.get());
+		for (Map.Entry<Integer, AtomicLong> status : other.statusCodes.entrySet()) {
+			getStatusCounter(status.getKey()).addAndGet(status.getValue().get());
+		}
+	}
+
+	/**
+	 * @param status the status code
+	 * @return the counter of the given status code, created if necessary
+	 */
+	private AtomicLong getStatusCounter(int status) {
+		AtomicLong counter = statusCodes.get(status);
+		if (counter == null) {
+			AtomicLong newCounter = new AtomicLong();
+			counter = statusCodes.putIfAbsent(status, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Raises the maximum latency to the given value if it is higher.
+	 * @param latencyMillis the latency
+	 */
+	private void updateMax(long latencyMillis) {
+		long max = maxLatencyMillis.get();
+		while (latencyMillis > max && !maxLatencyMillis.compareAndSet(max, latencyMillis)) {
+			max = maxLatencyMillis.get();
+		}
+	}
+
+	/**
+	 * Estimates a latency percentile from the histogram.
+	 * @param quantile the quantile between 0 and 1, e.g. 0.95
+	 * @return the upper bound of the bucket containing the percentile, capped at the highest observed latency
+	 */
+	public long getLatencyPercentileMillis(double quantile) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int i = 0; i < LATENCY_BUCKETS_MILLIS.length; i++) {
+			seen += latencyBuckets.get(i);
+			if (seen >= rank) {
+				return Math.min(LATENCY_BUCKETS_MILLIS[i], maxLatencyMillis.get());
+			}
+		}
+		return maxLatencyMillis.get();
+	}
+
+	/**
+	 * @param bucket the index of the bucket
+	 * @return the number of requests in the given bucket
+	 */
+	long getLatencyBucket(int bucket) {
+		return latencyBuckets.get(bucket);
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getPathTemplate() {
+		return pathTemplate;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getLatencySumMillis() {
+		return latencySumMillis.get();
+	}
+
+	public long getMaxLatencyMillis() {
+		return maxLatencyMillis.get();
+	}
+
+	public long getRequestBytes() {
+		return requestBytes.get();
+	}
+
+	public long getResponseBytes() {
+		return responseBytes.get();
+	}
+
+	public long getRetries() {
+		return retries.get();
+	}
+
+	/**
+	 * @return the number of requests per status code, ordered by the status code
+	 */
+	public SortedMap<Integer, Long> getStatusCodes() {
+		SortedMap<Integer, Long> result = new TreeMap<Integer, Long>();
+		for (Map.Entry<Integer, AtomicLong> status : statusCodes.entrySet()) {
+			result.put(status.getKey(), status.getValue().get());
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of requests which failed without a response or with a status of 400 or higher
+	 */
+	public long getErrors() {
+		long errors = 0;
+		for (Map.Entry<Integer, AtomicLong> status : statusCodes.entrySet()) {
+			if (status.getKey() == 0 || status.getKey() >= 400) {
+				errors += status.getValue().get();
+			}
+		}
+		return errors;
+	}
+
+	@Override
+	public String toString() {
+		return method + " " + host + pathTemplate + ": " + getCount() + " requests, " + getErrors() + " errors, " + getRetries() + " retries, "
+				+ "p50 " + getLatencyPercentileMillis(0.5) + " ms, p95 " + getLatencyPercentileMillis(0.95) + " ms, max " + getMaxLatencyMillis() + " ms, "
+				+ getRequestBytes() + " bytes sent, " + getResponseBytes() + " bytes received";
+	}
+}
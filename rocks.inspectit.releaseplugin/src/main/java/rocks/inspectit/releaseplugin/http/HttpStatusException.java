@@ -0,0 +1,40 @@
+package rocks.inspectit.releaseplugin.http;
+
+import org.apache.http.client.HttpResponseException;
+
+/**
+ *
+ * Signals that the server answered a request with a non successful status code.
+ * In addition to the status, the delay requested by the server via the <code>Retry-After</code> header is kept.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class HttpStatusException extends HttpResponseException {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 6163460373917386452L;
+
+	/**
+	 * The value of the Retry-After header of the response, null if it was not present.
+	 */
+	private final String retryAfter;
+
+	/**
+	 * Creates a new exception.
+	 * @param statusCode the status code of the response
+	 * @param reasonPhrase the reason phrase of the response
+	 * @param retryAfter the value of the Retry-After header, can be null
+	 */
+	public HttpStatusException(int statusCode, String reasonPhrase, String retryAfter) {
+		super(statusCode, reasonPhrase);
+		this.retryAfter = retryAfter;
+	}
+
+	public String getRetryAfter() {
+		return retryAfter;
+	}
+
+}
@@ -0,0 +1,321 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import jenkins.model.Jenkins;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ *
+ * Pooled, keep-alive HTTP transport to a single target server.
+ * Exactly one transport exists per server (and proxy), it is shared by all clients accessing this server.
+ * This way connections are reused across build steps and concurrent builds.
+ *
+ * The transport is configured using the {@link HttpTransportConfiguration}.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public final class HttpTransport {
+
+	/**
+	 * All transports which have been created so far, indexed by their key.
+	 */
+	private static final ConcurrentHashMap<String, HttpTransport> TRANSPORTS = new ConcurrentHashMap<String, HttpTransport>();
+
+	/**
+	 * The directory within the Jenkins home in which the response caches of all transports store responses not fitting into memory.
+	 */
+	private static final String CACHE_DIRECTORY = "release-helper-cache";
+
+	/**
+	 * The number of bytes per megabyte.
+	 */
+	private static final long BYTES_PER_MB = 1024 * 1024;
+
+	/**
+	 * The server this transport connects to.
+	 */
+	private final HttpHost target;
+
+	/**
+	 * The proxy used for connecting, can be null.
+	 */
+	private final String proxy;
+
+	/**
+	 * The pool of connections to the target.
+	 */
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	/**
+	 * The client executing the requests using the pooled connections.
+	 */
+	private final CloseableHttpClient client;
+
+	/**
+	 * The number of bytes transferred through this transport.
+	 */
+	private final TransferStatistics statistics = new TransferStatistics();
+
+	/**
+	 * Limits the load put on the server by all builds together.
+	 */
+	private final RequestLimiter limiter = new RequestLimiter(
+			HttpTransportConfiguration.DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST,
+			HttpTransportConfiguration.DEFAULT_MAX_REQUESTS_PER_SECOND_PER_HOST);
+
+	/**
+	 * Cache of responses which can be validated using conditional requests.
+	 */
+	private final ResponseCache responseCache = new ResponseCache();
+
+	/**
+	 * Coalesces identical GET requests in flight at the same time.
+	 */
+	private final RequestCoalescer coalescer = new RequestCoalescer();
+
+	/**
+	 * Set as soon as the server rejected a compressed request body, further requests are then sent uncompressed.
+	 */
+	private volatile boolean requestCompressionRejected = false;
+
+	/**
+	 * Creates a new transport.
+	 * @param target the server to connect to
+	 * @param proxy the proxy to use, can be null
+	 */
+	private HttpTransport(HttpHost target, String proxy) {
+		this.target = target;
+		this.proxy = proxy;
+
+		connectionManager = new PoolingHttpClientConnectionManager();
+		applySettings();
+
+		HttpClientBuilder clientFactory = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.evictExpiredConnections()
+				.evictIdleConnections((long) getIdleConnectionTimeoutSeconds(), TimeUnit.SECONDS)
+				.addInterceptorLast(new HttpRequestInterceptor() {
+					@Override
+					public void process(HttpRequest request, HttpContext context) {
+						if (request instanceof HttpEntityEnclosingRequest) {
+							HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) request;
+							if (entityRequest.getEntity() != null) {
+								HttpEntity entity = statistics.countSentRequest(entityRequest.getEntity());
+								RequestTimer timer = (RequestTimer) context.getAttribute(RequestTimer.CONTEXT_ATTRIBUTE);
+								entityRequest.setEntity(timer == null ? entity : timer.countSent(entity));
+							}
+						}
+					}
+				})
+				//executed before the content encoding is decoded
+				.addInterceptorFirst(new HttpResponseInterceptor() {
+					@Override
+					public void process(HttpResponse response, HttpContext context) {
+						if (response.getEntity() != null) {
+							HttpEntity entity = statistics.countReceivedResponse(response.getEntity());
+							RequestTimer timer = (RequestTimer) context.getAttribute(RequestTimer.CONTEXT_ATTRIBUTE);
+							response.setEntity(timer == null ? entity : timer.countReceived(entity));
+						}
+					}
+				})
+				//executed after the content encoding has been decoded
+				.addInterceptorLast(new HttpResponseInterceptor() {
+					@Override
+					public void process(HttpResponse response, HttpContext context) {
+						if (response.getEntity() != null) {
+							response.setEntity(statistics.countDecodedResponse(response.getEntity()));
+						}
+					}
+				});
+		if (proxy != null) {
+			clientFactory.setProxy(HttpHost.create(proxy));
+		}
+		client = clientFactory.build();
+	}
+
+	/**
+	 * Returns the transport to the server of the given url, creating it if necessary.
+	 *
+	 * @param url
+	 * 		the url of the server, only scheme, host and port are considered
+	 * @param proxy
+	 * 		the proxy to use, can be null
+	 * @return
+	 * 		the shared transport
+	 */
+	public static HttpTransport forUrl(String url, String proxy) {
+		URI uri = URI.create(url);
+		HttpHost target = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
+		String key = target.toURI() + (proxy == null ? "" : " via " + proxy);
+
+		HttpTransport transport = TRANSPORTS.get(key);
+		if (transport == null) {
+			synchronized (TRANSPORTS) {
+				transport = TRANSPORTS.get(key);
+				if (transport == null) {
+					transport = new HttpTransport(target, proxy);
+					TRANSPORTS.put(key, transport);
+				}
+			}
+		}
+		return transport;
+	}
+
+	/**
+	 * @return all transports which have been created so far
+	 */
+	public static List<HttpTransport> getAll() {
+		return new ArrayList<HttpTransport>(TRANSPORTS.values());
+	}
+
+	/**
+	 * Applies the current {@link HttpTransportConfiguration} to all existing transports.
+	 * The idle connection timeout only affects transports created afterwards.
+	 */
+	public static void reconfigureAll() {
+		for (HttpTransport transport : TRANSPORTS.values()) {
+			transport.applySettings();
+		}
+	}
+
+	/**
+	 * Applies the configured limits to the connection pool, the request limiter and the response cache.
+	 */
+	private void applySettings() {
+		HttpTransportConfiguration config = HttpTransportConfiguration.get();
+		int maxConnections = HttpTransportConfiguration.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+		int validateAfterInactivity = HttpTransportConfiguration.DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS;
+		int maxConcurrentRequests = HttpTransportConfiguration.DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST;
+		double maxRequestsPerSecond = HttpTransportConfiguration.DEFAULT_MAX_REQUESTS_PER_SECOND_PER_HOST;
+		long cacheBytes = HttpTransportConfiguration.DEFAULT_RESPONSE_CACHE_SIZE_MB * BYTES_PER_MB;
+		long cacheDiskBytes = 0;
+		File cacheDirectory = null;
+		if (config != null) {
+			maxConnections = Math.max(1, config.getMaxConnectionsPerHost());
+			validateAfterInactivity = config.getValidateAfterInactivityMillis();
+			maxConcurrentRequests = config.getMaxConcurrentRequestsPerHost();
+			maxRequestsPerSecond = config.getMaxRequestsPerSecondPerHost();
+			cacheBytes = Math.max(0, config.getResponseCacheSizeMB()) * BYTES_PER_MB;
+			cacheDiskBytes = Math.max(0, config.getResponseCacheDiskSizeMB()) * BYTES_PER_MB;
+			String directoryName = Hashing.sha1().hashString(target.toURI() + " via " + proxy, Charsets.UTF_8).toString();
+			cacheDirectory = new File(new File(Jenkins.getInstance().getRootDir(), CACHE_DIRECTORY), directoryName);
+		}
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnections);
+		connectionManager.setValidateAfterInactivity(validateAfterInactivity);
+		limiter.configure(maxConcurrentRequests, maxRequestsPerSecond);
+		responseCache.configure(cacheBytes, cacheDiskBytes, cacheDirectory);
+	}
+
+	/**
+	 * @return the configured idle connection timeout
+	 */
+	private static int getIdleConnectionTimeoutSeconds() {
+		HttpTransportConfiguration config = HttpTransportConfiguration.get();
+		if (config == null) {
+			return HttpTransportConfiguration.DEFAULT_IDLE_CONNECTION_TIMEOUT_SECONDS;
+		}
+		return Math.max(1, config.getIdleConnectionTimeoutSeconds());
+	}
+
+	/**
+	 * @return the client executing requests using the pooled connections. The client must not be closed by the caller.
+	 */
+	public CloseableHttpClient getClient() {
+		return client;
+	}
+
+	/**
+	 * @return the server this transport connects to
+	 */
+	public HttpHost getTarget() {
+		return target;
+	}
+
+	/**
+	 * @return the proxy used, can be null
+	 */
+	public String getProxy() {
+		return proxy;
+	}
+
+	/**
+	 * @return the number of bytes transferred through this transport
+	 */
+	public TransferStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * @return the limiter which has to be passed by all requests to the server, including requests not executed by this transport
+	 */
+	public RequestLimiter getLimiter() {
+		return limiter;
+	}
+
+	/**
+	 * @return the cache of responses which can be validated using conditional requests
+	 */
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * @return the coalescer of identical GET requests in flight at the same time
+	 */
+	public RequestCoalescer getCoalescer() {
+		return coalescer;
+	}
+
+	/**
+	 * @return the circuit breaker of the server, shared with all other clients accessing it
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return CircuitBreaker.forHost(target.toHostString());
+	}
+
+	/**
+	 * @return true, if the server has rejected a compressed request body
+	 */
+	public boolean isRequestCompressionRejected() {
+		return requestCompressionRejected;
+	}
+
+	/**
+	 * Remembers that the server does not accept compressed request bodies.
+	 */
+	public void rejectRequestCompression() {
+		requestCompressionRejected = true;
+	}
+
+	/**
+	 * @return the current state of the connection pool
+	 */
+	public PoolStats getPoolStats() {
+		return connectionManager.getTotalStats();
+	}
+
+}
@@ -0,0 +1,299 @@
+package rocks.inspectit.releaseplugin.http;
+
+import hudson.Extension;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+
+import org.kohsuke.stapler.StaplerRequest;
+
+/**
+ * Global configuration of the HTTP transport shared by all connections to JIRA and Confluence.
+ * The settings are applied per target server.
+ *
+ * @author Jonas Kunz
+ *
+ */
+@Extension
+public class HttpTransportConfiguration extends GlobalConfiguration {
+
+	/**
+	 * Default value of {@link #maxConnectionsPerHost}.
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+
+	/**
+	 * Default value of {@link #validateAfterInactivityMillis}.
+	 */
+	public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+	/**
+	 * Default value of {@link #idleConnectionTimeoutSeconds}.
+	 */
+	public static final int DEFAULT_IDLE_CONNECTION_TIMEOUT_SECONDS = 60;
+
+	/**
+	 * Default value of {@link #maxConcurrentRequestsPerHost}.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST = 10;
+
+	/**
+	 * Default value of {@link #maxRequestsPerSecondPerHost}.
+	 */
+	public static final double DEFAULT_MAX_REQUESTS_PER_SECOND_PER_HOST = 20;
+
+	/**
+	 * Default value of {@link #maxRetries}.
+	 */
+	public static final int DEFAULT_MAX_RETRIES = 3;
+
+	/**
+	 * Default value of {@link #initialRetryDelayMillis}.
+	 */
+	public static final int DEFAULT_INITIAL_RETRY_DELAY_MILLIS = 500;
+
+	/**
+	 * Default value of {@link #maxRetryDelayMillis}.
+	 */
+	public static final int DEFAULT_MAX_RETRY_DELAY_MILLIS = 30000;
+
+	/**
+	 * Default value of {@link #retryBudgetSeconds}.
+	 */
+	public static final int DEFAULT_RETRY_BUDGET_SECONDS = 300;
+
+	/**
+	 * Default value of {@link #stepTimeoutSeconds}.
+	 */
+	public static final int DEFAULT_STEP_TIMEOUT_SECONDS = 1800;
+
+	/**
+	 * Default value of {@link #circuitBreakerFailureThreshold}.
+	 */
+	public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+
+	/**
+	 * Default value of {@link #circuitBreakerOpenSeconds}.
+	 */
+	public static final int DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS = 30;
+
+	/**
+	 * Default value of {@link #responseCacheSizeMB}.
+	 */
+	public static final int DEFAULT_RESPONSE_CACHE_SIZE_MB = 16;
+
+	/**
+	 * Default value of {@link #responseCacheDiskSizeMB}.
+	 */
+	public static final int DEFAULT_RESPONSE_CACHE_DISK_SIZE_MB = 0;
+
+	/**
+	 * The maximum number of connections which may be opened concurrently to a single server.
+	 */
+	private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+
+	/**
+	 * Pooled connections which have been inactive for longer than this period are validated before being reused.
+	 */
+	private int validateAfterInactivityMillis = DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS;
+
+	/**
+	 * Pooled connections which have been idle for longer than this period are closed in the background.
+	 */
+	private int idleConnectionTimeoutSeconds = DEFAULT_IDLE_CONNECTION_TIMEOUT_SECONDS;
+
+	/**
+	 * The maximum number of requests executed concurrently on a single server by all builds together, 0 means unlimited.
+	 */
+	private int maxConcurrentRequestsPerHost = DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST;
+
+	/**
+	 * The maximum number of requests started per second on a single server by all builds together, 0 means unlimited.
+	 */
+	private double maxRequestsPerSecondPerHost = DEFAULT_MAX_REQUESTS_PER_SECOND_PER_HOST;
+
+	/**
+	 * The maximum number of times a request failing with a transient error is repeated.
+	 */
+	private int maxRetries = DEFAULT_MAX_RETRIES;
+
+	/**
+	 * The delay before the first retry of a request, doubled with each further retry.
+	 */
+	private int initialRetryDelayMillis = DEFAULT_INITIAL_RETRY_DELAY_MILLIS;
+
+	/**
+	 * The upper bound for the delay between two attempts of a request.
+	 */
+	private int maxRetryDelayMillis = DEFAULT_MAX_RETRY_DELAY_MILLIS;
+
+	/**
+	 * The total time a single build step may spend waiting for retries.
+	 */
+	private int retryBudgetSeconds = DEFAULT_RETRY_BUDGET_SECONDS;
+
+	/**
+	 * The total time all remote calls of a single build step may take, 0 means unlimited.
+	 */
+	private int stepTimeoutSeconds = DEFAULT_STEP_TIMEOUT_SECONDS;
+
+	/**
+	 * The number of consecutive failures after which all calls to a server fail immediately, 0 disables the circuit breakers.
+	 */
+	private int circuitBreakerFailureThreshold = DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+
+	/**
+	 * The time calls to an unavailable server fail immediately before a probe call is sent.
+	 */
+	private int circuitBreakerOpenSeconds = DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS;
+
+	/**
+	 * The memory per server used for caching responses which can be validated by conditional requests, 0 disables the cache.
+	 */
+	private int responseCacheSizeMB = DEFAULT_RESPONSE_CACHE_SIZE_MB;
+
+	/**
+	 * The disk space per server used for cached responses not fitting into memory, 0 disables the disk overflow.
+	 */
+	private int responseCacheDiskSizeMB = DEFAULT_RESPONSE_CACHE_DISK_SIZE_MB;
+
+	/**
+	 * Constructor, called by Jenkins.
+	 */
+	public HttpTransportConfiguration() {
+		load();
+		CircuitBreaker.configure(circuitBreakerFailureThreshold, circuitBreakerOpenSeconds);
+	}
+
+	/**
+	 * @return the configuration instance, or null if Jenkins is not available (e.g. on agents)
+	 */
+	public static HttpTransportConfiguration get() {
+		if (Jenkins.getInstance() == null) {
+			return null;
+		}
+		return GlobalConfiguration.all().get(HttpTransportConfiguration.class);
+	}
+
+	@Override
+	public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+		req.bindJSON(this, json);
+		save();
+		HttpTransport.reconfigureAll();
+		CircuitBreaker.configure(circuitBreakerFailureThreshold, circuitBreakerOpenSeconds);
+		return true;
+	}
+
+	public int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+	public int getValidateAfterInactivityMillis() {
+		return validateAfterInactivityMillis;
+	}
+
+	public void setValidateAfterInactivityMillis(int validateAfterInactivityMillis) {
+		this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+	}
+
+	public int getIdleConnectionTimeoutSeconds() {
+		return idleConnectionTimeoutSeconds;
+	}
+
+	public void setIdleConnectionTimeoutSeconds(int idleConnectionTimeoutSeconds) {
+		this.idleConnectionTimeoutSeconds = idleConnectionTimeoutSeconds;
+	}
+
+	public int getMaxConcurrentRequestsPerHost() {
+		return maxConcurrentRequestsPerHost;
+	}
+
+	public void setMaxConcurrentRequestsPerHost(int maxConcurrentRequestsPerHost) {
+		this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+	}
+
+	public double getMaxRequestsPerSecondPerHost() {
+		return maxRequestsPerSecondPerHost;
+	}
+
+	public void setMaxRequestsPerSecondPerHost(double maxRequestsPerSecondPerHost) {
+		this.maxRequestsPerSecondPerHost = maxRequestsPerSecondPerHost;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	public int getInitialRetryDelayMillis() {
+		return initialRetryDelayMillis;
+	}
+
+	public void setInitialRetryDelayMillis(int initialRetryDelayMillis) {
+		this.initialRetryDelayMillis = initialRetryDelayMillis;
+	}
+
+	public int getMaxRetryDelayMillis() {
+		return maxRetryDelayMillis;
+	}
+
+	public void setMaxRetryDelayMillis(int maxRetryDelayMillis) {
+		this.maxRetryDelayMillis = maxRetryDelayMillis;
+	}
+
+	public int getRetryBudgetSeconds() {
+		return retryBudgetSeconds;
+	}
+
+	public void setRetryBudgetSeconds(int retryBudgetSeconds) {
+		this.retryBudgetSeconds = retryBudgetSeconds;
+	}
+
+	public int getStepTimeoutSeconds() {
+		return stepTimeoutSeconds;
+	}
+
+	public void setStepTimeoutSeconds(int stepTimeoutSeconds) {
+		this.stepTimeoutSeconds = stepTimeoutSeconds;
+	}
+
+	public int getCircuitBreakerFailureThreshold() {
+		return circuitBreakerFailureThreshold;
+	}
+
+	public void setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+		this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+	}
+
+	public int getCircuitBreakerOpenSeconds() {
+		return circuitBreakerOpenSeconds;
+	}
+
+	public void setCircuitBreakerOpenSeconds(int circuitBreakerOpenSeconds) {
+		this.circuitBreakerOpenSeconds = circuitBreakerOpenSeconds;
+	}
+
+	public int getResponseCacheSizeMB() {
+		return responseCacheSizeMB;
+	}
+
+	public void setResponseCacheSizeMB(int responseCacheSizeMB) {
+		this.responseCacheSizeMB = responseCacheSizeMB;
+	}
+
+	public int getResponseCacheDiskSizeMB() {
+		return responseCacheDiskSizeMB;
+	}
+
+	public void setResponseCacheDiskSizeMB(int responseCacheDiskSizeMB) {
+		this.responseCacheDiskSizeMB = responseCacheDiskSizeMB;
+	}
+
+}
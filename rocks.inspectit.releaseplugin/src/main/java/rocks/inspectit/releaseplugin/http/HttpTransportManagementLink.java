@@ -0,0 +1,79 @@
+package rocks.inspectit.releaseplugin.http;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import jenkins.model.Jenkins;
+
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ *
+ * Page under "Manage Jenkins" showing the state of the connections to all JIRA and Confluence servers,
+ * e.g. the connection pools and the current load on the request limiters.
+ * The page also lists the metrics of all REST endpoints and exports them for Prometheus under the "prometheus" sub url.
+ *
+ * @author Jonas Kunz
+ *
+ */
+@Extension
+public class HttpTransportManagementLink extends ManagementLink {
+
+	@Override
+	public String getIconFileName() {
+		return "network.png";
+	}
+
+	@Override
+	public String getUrlName() {
+		return "release-helper-connections";
+	}
+
+	@Override
+	public String getDisplayName() {
+		return "Release Helper Connections";
+	}
+
+	@Override
+	public String getDescription() {
+		return "Shows the connections, request limits, availability, transferred data and request metrics of all JIRA, Confluence and GitHub servers accessed by builds.";
+	}
+
+	/**
+	 * @return the transports to all servers accessed so far
+	 */
+	public List<HttpTransport> getTransports() {
+		return HttpTransport.getAll();
+	}
+
+	/**
+	 * @return the circuit breakers of all servers accessed so far, including GitHub and InfluxDB
+	 */
+	public List<CircuitBreaker> getCircuitBreakers() {
+		return CircuitBreaker.getAll();
+	}
+
+	/**
+	 * @return the metrics of all REST endpoints accessed so far
+	 */
+	public List<EndpointMetrics> getEndpoints() {
+		return RequestMetrics.getAll();
+	}
+
+	/**
+	 * Exports the metrics of all REST endpoints in the Prometheus text format.
+	 * @param rsp the response to write to
+	 * @throws IOException if writing the response fails
+	 */
+	public void doPrometheus(StaplerResponse rsp) throws IOException {
+		Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+		rsp.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+		Writer out = rsp.getWriter();
+		RequestMetrics.writePrometheus(out);
+		out.flush();
+	}
+}
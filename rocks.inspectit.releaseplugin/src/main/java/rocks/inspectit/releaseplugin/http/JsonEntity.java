@@ -0,0 +1,119 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+
+import org.apache.http.Consts;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ *
+ * Request body writing JSON directly to the connection.
+ * The JSON is never serialized into an intermediate string, instead it is encoded as UTF-8 while being written
+ * and sent using chunked transfer encoding.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class JsonEntity extends AbstractHttpEntity {
+
+	/**
+	 * Gson instance shared by all entities, Gson is thread safe.
+	 */
+	public static final Gson GSON = new Gson();
+
+	/**
+	 * The content type of all JSON entities.
+	 */
+	private static final ContentType CONTENT_TYPE = ContentType.create("application/json", Consts.UTF_8);
+
+	/**
+	 *
+	 * Callback writing the JSON document of an entity.
+	 * As entities may be sent more than once (e.g. on retries), the callback has to be able to write the same document repeatedly.
+	 *
+	 * @author Jonas Kunz
+	 *
+	 */
+	public interface JsonWriterCallback {
+		/**
+		 * Writes the JSON document.
+		 * @param writer the writer to write the document to, must not be closed by the callback
+		 * @throws IOException if writing fails
+		 */
+		void write(JsonWriter writer) throws IOException;
+	}
+
+	/**
+	 * The callback writing the document.
+	 */
+	private final JsonWriterCallback callback;
+
+	/**
+	 * Creates an entity writing the given JSON tree.
+	 * @param element the JSON tree to send
+	 */
+	public JsonEntity(final JsonElement element) {
+		this(new JsonWriterCallback() {
+			@Override
+			public void write(JsonWriter writer) throws IOException {
+				GSON.toJson(element, writer);
+			}
+		});
+	}
+
+	/**
+	 * Creates an entity writing the document produced by the given callback.
+	 * @param callback the callback writing the document
+	 */
+	public JsonEntity(JsonWriterCallback callback) {
+		this.callback = callback;
+		setContentType(CONTENT_TYPE.toString());
+		setChunked(true);
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	@Override
+	public long getContentLength() {
+		return -1;
+	}
+
+	/**
+	 * Only intended for debugging purposes, as this buffers the whole document.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public InputStream getContent() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		writeTo(buffer);
+		return new ByteArrayInputStream(buffer.toByteArray());
+	}
+
+	@Override
+	public void writeTo(OutputStream outstream) throws IOException {
+		JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(outstream, Consts.UTF_8)));
+		callback.write(writer);
+		//only flush, the underlying stream is closed by the client
+		writer.flush();
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return false;
+	}
+
+}
@@ -0,0 +1,171 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.http.Consts;
+import org.apache.http.entity.AbstractHttpEntity;
+
+/**
+ *
+ * Request body uploading a single file as <code>multipart/form-data</code>, optionally together with some text fields.
+ * The file is streamed from its {@link ContentSource} directly to the connection and never loaded into memory.
+ * As the length of the file is known up front, the body is sent with a content length instead of chunked.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class MultipartFileEntity extends AbstractHttpEntity {
+
+	/**
+	 * The line separator of multipart bodies.
+	 */
+	private static final String CRLF = "\r\n";
+
+	/**
+	 * The size of the buffer used for copying the file.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 *
+	 * Provides the content of the uploaded file.
+	 * As entities may be sent more than once (e.g. on retries), the content has to be readable repeatedly.
+	 *
+	 * @author Jonas Kunz
+	 *
+	 */
+	public interface ContentSource {
+		/**
+		 * Opens a new stream reading the content from the beginning.
+		 * @return the stream, closed by the entity
+		 * @throws IOException if opening fails
+		 * @throws InterruptedException if the thread was interrupted while opening the stream
+		 */
+		InputStream open() throws IOException, InterruptedException;
+	}
+
+	/**
+	 * Everything in front of the file content: the text fields and the headers of the file part.
+	 */
+	private final byte[] head;
+
+	/**
+	 * Everything after the file content: the closing boundary.
+	 */
+	private final byte[] tail;
+
+	/**
+	 * The length of the file in bytes.
+	 */
+	private final long fileLength;
+
+	/**
+	 * The source of the file content.
+	 */
+	private final ContentSource source;
+
+	/**
+	 * Creates an entity uploading the given file.
+	 * @param fieldName the name of the form field holding the file
+	 * @param fileName the name of the file
+	 * @param mimeType the content type of the file
+	 * @param fileLength the length of the file in bytes
+	 * @param source the source of the file content
+	 * @param textFields additional text fields sent in front of the file, can be empty
+	 */
+	public MultipartFileEntity(String fieldName, String fileName, String mimeType, long fileLength, ContentSource source,
+			Map<String, String> textFields) {
+		this.fileLength = fileLength;
+		this.source = source;
+		String boundary = "----release-helper-" + UUID.randomUUID().toString().replace("-", "");
+
+		StringBuilder headBuilder = new StringBuilder();
+		for (Map.Entry<String, String> field : textFields.entrySet()) {
+			headBuilder.append("--").append(boundary).append(CRLF);
+			headBuilder.append("Content-Disposition: form-data; name=\"").append(escape(field.getKey())).append("\"").append(CRLF);
+			headBuilder.append("Content-Type: text/plain; charset=UTF-8").append(CRLF).append(CRLF);
+			headBuilder.append(field.getValue()).append(CRLF);
+		}
+		headBuilder.append("--").append(boundary).append(CRLF);
+		headBuilder.append("Content-Disposition: form-data; name=\"").append(escape(fieldName))
+				.append("\"; filename=\"").append(escape(fileName)).append("\"").append(CRLF);
+		headBuilder.append("Content-Type: ").append(mimeType).append(CRLF).append(CRLF);
+		head = headBuilder.toString().getBytes(Consts.UTF_8);
+		tail = (CRLF + "--" + boundary + "--" + CRLF).getBytes(Consts.ASCII);
+
+		setContentType("multipart/form-data; boundary=" + boundary);
+		setChunked(false);
+	}
+
+	/**
+	 * Escapes a value for use as quoted parameter of a <code>Content-Disposition</code> header.
+	 * @param value the value
+	 * @return the escaped value
+	 */
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\r", "").replace("\n", "");
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	@Override
+	public long getContentLength() {
+		return head.length + fileLength + tail.length;
+	}
+
+	/**
+	 * Only intended for debugging purposes, as this buffers the whole body.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public InputStream getContent() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		writeTo(buffer);
+		return new ByteArrayInputStream(buffer.toByteArray());
+	}
+
+	@Override
+	public void writeTo(OutputStream outstream) throws IOException {
+		outstream.write(head);
+		long written = 0;
+		InputStream in;
+		try {
+			in = source.open();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while opening the uploaded file.");
+		}
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				outstream.write(buffer, 0, read);
+				written += read;
+			}
+		} finally {
+			in.close();
+		}
+		if (written != fileLength) {
+			throw new IOException("The file changed while it was uploaded, expected " + fileLength + " bytes but read " + written + ".");
+		}
+		outstream.write(tail);
+		//only flush, the underlying stream is closed by the client
+		outstream.flush();
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return false;
+	}
+
+}
@@ -0,0 +1,258 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpEntity;
+
+import rocks.inspectit.releaseplugin.http.ResponseCache.CachedResponse;
+import rocks.inspectit.releaseplugin.http.ResponseCache.RecordingEntity;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ *
+ * Coalesces identical GET requests executed concurrently on a server (same URL and same credentials), so that only one of them is sent.
+ *
+ * The first request is executed as usual. If identical requests arrive before its response is read, they wait for it
+ * and its body is recorded while it is streamed to its consumer, so that they can read the recorded body instead of sending a request of their own.
+ * Without waiting requests the body is not recorded, so large responses are still streamed without being held in memory.
+ * Identical requests arriving after the response started to be read are executed on their own.
+ * As only requests which are in flight at the same time are coalesced, no stale responses are served.
+ *
+ * If the first request fails with an error response, the waiting requests fail with the same error.
+ * If it fails for any other reason or its body is too large to be shared, the waiting requests are executed on their own.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class RequestCoalescer {
+
+	/**
+	 * Bodies larger than this are not shared, the waiting requests are executed on their own instead.
+	 */
+	private static final long MAX_SHARED_BYTES = 8 * 1024 * 1024;
+
+	/**
+	 * The requests currently in flight, indexed by their key.
+	 */
+	private final ConcurrentHashMap<String, SharedCall> inFlight = new ConcurrentHashMap<String, SharedCall>();
+
+	/**
+	 * The number of requests which have been answered with the response of an identical request.
+	 */
+	private final AtomicLong coalescedRequests = new AtomicLong();
+
+	/**
+	 * Joins the identical request currently in flight or, if there is none, registers the caller as the request in flight.
+	 * If the response of the request in flight is already being read without recording it, the caller is neither leader nor waiting
+	 * and {@link Flight#await(Deadline, String)} returns null immediately.
+	 * @param key the key identifying identical requests, e.g. the credentials and the URL
+	 * @return the flight, {@link Flight#end()} has to be called as soon as it has been used
+	 */
+	public Flight join(String key) {
+		SharedCall call = new SharedCall();
+		SharedCall existing = inFlight.putIfAbsent(key, call);
+		if (existing == null) {
+			return new Flight(key, call, true);
+		}
+		if (existing.addWaiter()) {
+			return new Flight(key, existing, false);
+		}
+		return new Flight(key, null, false);
+	}
+
+	/**
+	 * @return the number of requests which have been answered with the response of an identical request
+	 */
+	public long getCoalescedRequests() {
+		return coalescedRequests.get();
+	}
+
+	/**
+	 * @return the number of distinct requests currently in flight
+	 */
+	public int getInFlightRequests() {
+		return inFlight.size();
+	}
+
+	/**
+	 *
+	 * A request in flight and the identical requests waiting for it.
+	 *
+	 * @author Jonas Kunz
+	 *
+	 */
+	private static final class SharedCall {
+
+		/**
+		 * Completed with the shared response, or with null if the waiting requests have to be executed on their own.
+		 */
+		private final SettableFuture<CachedResponse> response = SettableFuture.create();
+
+		/**
+		 * The number of requests waiting for the response.
+		 */
+		private int waiters = 0;
+
+		/**
+		 * Set as soon as the response is read, no further requests can wait for it from then on.
+		 */
+		private boolean reading = false;
+
+		/**
+		 * Registers a request waiting for the response.
+		 * @return true, if the request can wait, false if the response is already being read
+		 */
+		synchronized boolean addWaiter() {
+			if (reading) {
+				return false;
+			}
+			waiters++;
+			return true;
+		}
+
+		/**
+		 * Marks the response as being read, requests arriving from now on are executed on their own.
+		 * @return true, if requests are waiting for the response, so that it has to be recorded
+		 */
+		synchronized boolean startReading() {
+			reading = true;
+			return waiters > 0;
+		}
+	}
+
+	/**
+	 *
+	 * The participation of a single request in a flight of identical requests.
+	 *
+	 * @author Jonas Kunz
+	 *
+	 */
+	public final class Flight {
+
+		/**
+		 * The key of the request.
+		 */
+		private final String key;
+
+		/**
+		 * The request in flight, null if the request can neither lead nor wait.
+		 */
+		private final SharedCall call;
+
+		/**
+		 * True, if this request has to be executed and its response shared.
+		 */
+		private final boolean leader;
+
+		/**
+		 * Creates a new participation.
+		 * @param key the key of the request
+		 * @param call the request in flight, null if the request can neither lead nor wait
+		 * @param leader true, if the request has to be executed
+		 */
+		private Flight(String key, SharedCall call, boolean leader) {
+			this.key = key;
+			this.call = call;
+			this.leader = leader;
+		}
+
+		/**
+		 * @return true, if the caller has to execute the request and share its response, false if it can wait for the response
+		 */
+		public boolean isLeader() {
+			return leader;
+		}
+
+		/**
+		 * Has to be called by the leader before reading the body of the response.
+		 * Requests arriving from now on are executed on their own.
+		 * @return true, if requests are waiting for the response, so that the body has to be recorded and shared
+		 */
+		public boolean startReading() {
+			return call.startReading();
+		}
+
+		/**
+		 * Wraps the body of the response so that it is recorded for sharing while being read.
+		 * Only required if {@link #startReading()} returned true.
+		 * @param entity the body
+		 * @return the wrapper
+		 */
+		public RecordingEntity record(HttpEntity entity) {
+			return new RecordingEntity(entity, MAX_SHARED_BYTES);
+		}
+
+		/**
+		 * Passes the response of the executed request to the waiting requests.
+		 * @param sharedResponse the response
+		 */
+		public void share(CachedResponse sharedResponse) {
+			call.response.set(sharedResponse);
+		}
+
+		/**
+		 * Passes the failure of the executed request to the waiting requests.
+		 * Only error responses of the server are shared, for all other failures the waiting requests are executed on their own.
+		 * @param failure the failure
+		 */
+		public void fail(RuntimeException failure) {
+			if (failure.getCause() instanceof HttpStatusException) {
+				call.response.setException(failure);
+			} else {
+				call.response.set(null);
+			}
+		}
+
+		/**
+		 * Waits for the response of the executed request, at most until the given deadline.
+		 * @param deadline the deadline of the waiting request
+		 * @param call the description of the waiting request, e.g. its method and path
+		 * @return the shared response, null if the caller has to execute the request on its own
+		 * @throws RuntimeException the failure of the executed request, if it failed with an error response
+		 */
+		public CachedResponse await(Deadline deadline, String call) {
+			if (this.call == null) {
+				return null;
+			}
+			try {
+				CachedResponse shared;
+				if (deadline.isLimited()) {
+					shared = this.call.response.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS);
+				} else {
+					shared = this.call.response.get();
+				}
+				if (shared != null) {
+					coalescedRequests.incrementAndGet();
+				}
+				return shared;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (TimeoutException e) {
+				throw deadline.exceeded(call);
+			} catch (CancellationException e) {
+				return null;
+			} catch (ExecutionException e) {
+				coalescedRequests.incrementAndGet();
+				throw (RuntimeException) e.getCause();
+			}
+		}
+
+		/**
+		 * Ends the participation. If the caller executed the request, identical requests arriving from now on are executed again.
+		 */
+		public void end() {
+			if (leader) {
+				inFlight.remove(key, call);
+				//releases the waiting requests, if the response has neither been shared nor failed
+				call.response.set(null);
+			}
+		}
+	}
+}
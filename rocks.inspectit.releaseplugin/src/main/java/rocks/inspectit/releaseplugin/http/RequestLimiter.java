@@ -0,0 +1,279 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *
+ * Limits the load put on a single server by all builds together.
+ * Both the number of requests executed concurrently and the number of requests started per second are limited.
+ *
+ * Waiting requests are served in the order in which they arrived, so that concurrent builds queue fairly
+ * instead of single builds being starved.
+ *
+ * The rate is limited by a token bucket holding the permits of up to one second, so that short bursts after idle
+ * periods are not delayed. Guava's RateLimiter is not used, as it requires a newer Guava than the one of the Jenkins core.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class RequestLimiter {
+
+	/**
+	 * Fair lock guarding the concurrency state, waiting threads acquire it in arrival order.
+	 */
+	private final ReentrantLock lock = new ReentrantLock(true);
+
+	/**
+	 * Signalled whenever a request has finished.
+	 */
+	private final Condition requestFinished = lock.newCondition();
+
+	/**
+	 * The maximum number of concurrent requests, 0 means unlimited.
+	 */
+	private int maxConcurrentRequests;
+
+	/**
+	 * The number of requests currently being executed.
+	 */
+	private int activeRequests = 0;
+
+	/**
+	 * The number of requests currently waiting for their execution.
+	 */
+	private int waitingRequests = 0;
+
+	/**
+	 * The maximum number of requests started per second, 0 means unlimited.
+	 */
+	private double maxRequestsPerSecond;
+
+	/**
+	 * The number of requests which may be started without waiting, negative if requests have already reserved future permits.
+	 */
+	private double availablePermits;
+
+	/**
+	 * The time of the last update of {@link #availablePermits}, as returned by {@link System#nanoTime()}.
+	 */
+	private long permitsUpdatedNanos;
+
+	/**
+	 * The number of requests which have been started so far.
+	 */
+	private final AtomicLong totalRequests = new AtomicLong();
+
+	/**
+	 * The number of requests which had to wait before being started.
+	 */
+	private final AtomicLong delayedRequests = new AtomicLong();
+
+	/**
+	 * The total time in nanoseconds requests had to wait before being started.
+	 */
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+
+	/**
+	 * Creates a new limiter.
+	 * @param maxConcurrentRequests the maximum number of concurrent requests, 0 means unlimited
+	 * @param maxRequestsPerSecond the maximum number of requests started per second, 0 means unlimited
+	 */
+	public RequestLimiter(int maxConcurrentRequests, double maxRequestsPerSecond) {
+		configure(maxConcurrentRequests, maxRequestsPerSecond);
+	}
+
+	/**
+	 * Changes the limits, requests which are already waiting are subject to the new limits.
+	 * @param maxConcurrentRequests the maximum number of concurrent requests, 0 means unlimited
+	 * @param maxRequestsPerSecond the maximum number of requests started per second, 0 means unlimited
+	 */
+	public void configure(int maxConcurrentRequests, double maxRequestsPerSecond) {
+		lock.lock();
+		try {
+			this.maxConcurrentRequests = Math.max(0, maxConcurrentRequests);
+			double rate = Math.max(0, maxRequestsPerSecond);
+			if (rate > 0) {
+				if (this.maxRequestsPerSecond == 0) {
+					availablePermits = 1;
+					permitsUpdatedNanos = System.nanoTime();
+				} else {
+					refillPermits();
+					availablePermits = Math.min(availablePermits, Math.max(1, rate));
+				}
+			}
+			this.maxRequestsPerSecond = rate;
+			requestFinished.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds the permits which have accumulated since the last update to the bucket, at most the permits of one second.
+	 * Has to be called while holding the {@link #lock}.
+	 */
+	private void refillPermits() {
+		long now = System.nanoTime();
+		double refilled = (now - permitsUpdatedNanos) * maxRequestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		availablePermits = Math.min(Math.max(1, maxRequestsPerSecond), availablePermits + refilled);
+		permitsUpdatedNanos = now;
+	}
+
+	/**
+	 * Takes a permit from the bucket, reserving a future one if it is empty.
+	 * Has to be called while holding the {@link #lock}.
+	 * @param maxWaitNanos the maximum time to wait for the permit, negative to wait without limit
+	 * @return the time to wait before the request may be started, negative if the permit would not be available in time and has not been taken
+	 */
+	private long reservePermit(long maxWaitNanos) {
+		if (maxRequestsPerSecond <= 0) {
+			return 0;
+		}
+		refillPermits();
+		long waitNanos = 0;
+		if (availablePermits < 1) {
+			waitNanos = (long) ((1 - availablePermits) * TimeUnit.SECONDS.toNanos(1) / maxRequestsPerSecond);
+		}
+		if (maxWaitNanos >= 0 && waitNanos > maxWaitNanos) {
+			return -1;
+		}
+		availablePermits--;
+		return waitNanos;
+	}
+
+	/**
+	 * Blocks until the limits allow starting another request.
+	 * Each successful call has to be followed by a call to {@link #release()} as soon as the request has finished.
+	 */
+	public void acquire() {
+		tryAcquire(-1);
+	}
+
+	/**
+	 * Waits until the limits allow starting another request, but at most for the given time.
+	 * Each successful call has to be followed by a call to {@link #release()} as soon as the request has finished.
+	 * @param timeoutMillis the maximum time to wait, negative to wait without limit
+	 * @return true, if the request may be started, false if the time elapsed before
+	 */
+	public boolean tryAcquire(long timeoutMillis) {
+		long start = System.nanoTime();
+		long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		long rateWaitNanos;
+		lock.lock();
+		try {
+			waitingRequests++;
+			try {
+				while (maxConcurrentRequests > 0 && activeRequests >= maxConcurrentRequests) {
+					if (timeoutMillis < 0) {
+						requestFinished.await();
+					} else {
+						long remainingNanos = timeoutNanos - (System.nanoTime() - start);
+						if (remainingNanos <= 0) {
+							//pass on a signal which might have been meant for this request
+							requestFinished.signal();
+							return false;
+						}
+						requestFinished.awaitNanos(remainingNanos);
+					}
+				}
+			} finally {
+				waitingRequests--;
+			}
+			rateWaitNanos = reservePermit(timeoutMillis < 0 ? -1 : Math.max(0, timeoutNanos - (System.nanoTime() - start)));
+			if (rateWaitNanos < 0) {
+				requestFinished.signal();
+				return false;
+			}
+			activeRequests++;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} finally {
+			lock.unlock();
+		}
+		if (rateWaitNanos > 0) {
+			//the permit is reserved, so the wait happens outside of the lock without blocking later requests from queueing up
+			try {
+				TimeUnit.NANOSECONDS.sleep(rateWaitNanos);
+			} catch (InterruptedException e) {
+				release();
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+		long waited = System.nanoTime() - start;
+		totalRequests.incrementAndGet();
+		//waits below a millisecond are just the overhead of acquiring the lock
+		if (waited >= TimeUnit.MILLISECONDS.toNanos(1)) {
+			delayedRequests.incrementAndGet();
+			totalWaitNanos.addAndGet(waited);
+		}
+		return true;
+	}
+
+	/**
+	 * Signals that a request started after {@link #acquire()} has finished.
+	 */
+	public void release() {
+		lock.lock();
+		try {
+			activeRequests--;
+			requestFinished.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	/**
+	 * @return the maximum number of requests started per second, 0 if unlimited
+	 */
+	public double getMaxRequestsPerSecond() {
+		lock.lock();
+		try {
+			return maxRequestsPerSecond;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getActiveRequests() {
+		lock.lock();
+		try {
+			return activeRequests;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getWaitingRequests() {
+		lock.lock();
+		try {
+			return waitingRequests;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getTotalRequests() {
+		return totalRequests.get();
+	}
+
+	public long getDelayedRequests() {
+		return delayedRequests.get();
+	}
+
+	/**
+	 * @return the average time in milliseconds a delayed request had to wait
+	 */
+	public long getAverageDelayMillis() {
+		long delayed = delayedRequests.get();
+		return delayed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / delayed);
+	}
+}
@@ -0,0 +1,254 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ *
+ * Registry of the {@link EndpointMetrics} of all outbound REST requests of this JVM, e.g. to JIRA, Confluence and GitHub.
+ * Requests are grouped by host, method and path template. The path template is derived from the request path by replacing
+ * identifiers like ticket keys or numeric ids with placeholders, so that the number of endpoints stays small.
+ *
+ * The metrics can be exported in the Prometheus text format. Additionally, all requests are recorded
+ * in the {@link BuildRequestSummary} active for the current build step, if there is one.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public final class RequestMetrics {
+
+	/**
+	 * The metrics of all endpoints, indexed by host, method and path template.
+	 */
+	private static final ConcurrentHashMap<String, EndpointMetrics> ENDPOINTS = new ConcurrentHashMap<String, EndpointMetrics>();
+
+	/**
+	 * Path segments which are JIRA issue keys, e.g. ABC-123.
+	 */
+	private static final Pattern ISSUE_KEY = Pattern.compile("[A-Z][A-Z0-9_]*-[0-9]+");
+
+	/**
+	 * Path segments which are numeric ids.
+	 */
+	private static final Pattern NUMERIC_ID = Pattern.compile("[0-9]+");
+
+	/**
+	 * Path segments which are hashes or uuids, e.g. git commit ids.
+	 */
+	private static final Pattern HASH = Pattern.compile("[0-9a-fA-F-]{16,}");
+
+	/**
+	 * Utility class.
+	 */
+	private RequestMetrics() {
+	}
+
+	/**
+	 * Derives the path template of the given request path by replacing all identifiers with placeholders.
+	 * @param path the path of the request, may contain a query string
+	 * @return the path template, e.g. /rest/api/2/issue/{key} for /rest/api/2/issue/ABC-12
+	 */
+	public static String toPathTemplate(String path) {
+		if (path == null || path.isEmpty()) {
+			return "/";
+		}
+		int query = path.indexOf('?');
+		if (query >= 0) {
+			path = path.substring(0, query);
+		}
+		String[] segments = path.split("/", -1);
+		StringBuilder template = new StringBuilder();
+		for (int i = 0; i < segments.length; i++) {
+			String segment = segments[i];
+			if (i > 0) {
+				template.append('/');
+			}
+			if (ISSUE_KEY.matcher(segment).matches()) {
+				template.append("{key}");
+			} else if (NUMERIC_ID.matcher(segment).matches()) {
+				template.append("{id}");
+			} else if (HASH.matcher(segment).matches()) {
+				template.append("{hash}");
+			} else {
+				template.append(segment);
+			}
+		}
+		return template.toString();
+	}
+
+	/**
+	 * Starts measuring a request, the request is recorded in the summary of the current build step.
+	 * @param host the server the request is sent to
+	 * @param method the HTTP method of the request
+	 * @param path the path of the request, identifiers are replaced automatically
+	 * @return the timer which has to be finished as soon as the response has been consumed
+	 */
+	public static RequestTimer start(String host, String method, String path) {
+		return start(host, method, path, BuildRequestSummary.current());
+	}
+
+	/**
+	 * Starts measuring a request.
+	 * @param host the server the request is sent to
+	 * @param method the HTTP method of the request
+	 * @param path the path of the request, identifiers are replaced automatically
+	 * @param summary the summary of the build step issuing the request, can be null
+	 * @return the timer which has to be finished as soon as the response has been consumed
+	 */
+	public static RequestTimer start(String host, String method, String path, BuildRequestSummary summary) {
+		String template = toPathTemplate(path);
+		return new RequestTimer(getEndpoint(host, method, template), summary);
+	}
+
+	/**
+	 * Records that a request is repeated because of a transient failure.
+	 * @param host the server the request is sent to
+	 * @param method the HTTP method of the request
+	 * @param path the path of the request, identifiers are replaced automatically
+	 * @param summary the summary of the build step issuing the request, can be null
+	 */
+	public static void countRetry(String host, String method, String path, BuildRequestSummary summary) {
+		String template = toPathTemplate(path);
+		getEndpoint(host, method, template).recordRetry();
+		if (summary != null) {
+			summary.getEndpoint(host, method, template).recordRetry();
+		}
+	}
+
+	/**
+	 * @param host the server
+	 * @param method the HTTP method
+	 * @param template the path template
+	 * @return the metrics of the given endpoint, created if necessary
+	 */
+	private static EndpointMetrics getEndpoint(String host, String method, String template) {
+		return getEndpoint(ENDPOINTS, host, method, template);
+	}
+
+	/**
+	 * Looks up the metrics of an endpoint in the given map, creating them if necessary.
+	 * @param endpoints the map to look up the metrics in
+	 * @param host the server
+	 * @param method the HTTP method
+	 * @param template the path template
+	 * @return the metrics of the given endpoint
+	 */
+	static EndpointMetrics getEndpoint(ConcurrentHashMap<String, EndpointMetrics> endpoints, String host, String method, String template) {
+		String key = method + " " + host + template;
+		EndpointMetrics metrics = endpoints.get(key);
+		if (metrics == null) {
+			EndpointMetrics newMetrics = new EndpointMetrics(host, method, template);
+			metrics = endpoints.putIfAbsent(key, newMetrics);
+			if (metrics == null) {
+				metrics = newMetrics;
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * @return the metrics of all endpoints accessed since Jenkins was started, ordered by host and path
+	 */
+	public static List<EndpointMetrics> getAll() {
+		return sorted(ENDPOINTS.values());
+	}
+
+	/**
+	 * @param endpoints the metrics to sort
+	 * @return a copy of the given metrics, ordered by host, path and method
+	 */
+	static List<EndpointMetrics> sorted(Iterable<EndpointMetrics> endpoints) {
+		List<EndpointMetrics> result = new ArrayList<EndpointMetrics>();
+		for (EndpointMetrics endpoint : endpoints) {
+			result.add(endpoint);
+		}
+		Collections.sort(result, new Comparator<EndpointMetrics>() {
+			@Override
+			public int compare(EndpointMetrics a, EndpointMetrics b) {
+				int cmp = a.getHost().compareTo(b.getHost());
+				if (cmp == 0) {
+					cmp = a.getPathTemplate().compareTo(b.getPathTemplate());
+				}
+				if (cmp == 0) {
+					cmp = a.getMethod().compareTo(b.getMethod());
+				}
+				return cmp;
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Writes the metrics of all endpoints in the Prometheus text exposition format.
+	 * @param out the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public static void writePrometheus(Writer out) throws IOException {
+		List<EndpointMetrics> endpoints = getAll();
+
+		out.write("# HELP release_helper_http_request_duration_seconds Latency of outbound REST requests.\n");
+		out.write("# TYPE release_helper_http_request_duration_seconds histogram\n");
+		for (EndpointMetrics endpoint : endpoints) {
+			String labels = labels(endpoint);
+			long cumulative = 0;
+			for (int i = 0; i <= EndpointMetrics.LATENCY_BUCKETS_MILLIS.length; i++) {
+				cumulative += endpoint.getLatencyBucket(i);
+				String bound = i < EndpointMetrics.LATENCY_BUCKETS_MILLIS.length
+						? Double.toString(EndpointMetrics.LATENCY_BUCKETS_MILLIS[i] / 1000.0) : "+Inf";
+				out.write("release_helper_http_request_duration_seconds_bucket{" + labels + ",le=\"" + bound + "\"} " + cumulative + "\n");
+			}
+			out.write("release_helper_http_request_duration_seconds_sum{" + labels + "} " + (endpoint.getLatencySumMillis() / 1000.0) + "\n");
+			out.write("release_helper_http_request_duration_seconds_count{" + labels + "} " + endpoint.getCount() + "\n");
+		}
+
+		out.write("# HELP release_helper_http_responses_total Outbound REST requests by status code, 0 for requests failed without response.\n");
+		out.write("# TYPE release_helper_http_responses_total counter\n");
+		for (EndpointMetrics endpoint : endpoints) {
+			for (Map.Entry<Integer, Long> status : endpoint.getStatusCodes().entrySet()) {
+				out.write("release_helper_http_responses_total{" + labels(endpoint) + ",status=\"" + status.getKey() + "\"} " + status.getValue() + "\n");
+			}
+		}
+
+		out.write("# HELP release_helper_http_request_bytes_total Request body bytes sent.\n");
+		out.write("# TYPE release_helper_http_request_bytes_total counter\n");
+		for (EndpointMetrics endpoint : endpoints) {
+			out.write("release_helper_http_request_bytes_total{" + labels(endpoint) + "} " + endpoint.getRequestBytes() + "\n");
+		}
+
+		out.write("# HELP release_helper_http_response_bytes_total Response body bytes received.\n");
+		out.write("# TYPE release_helper_http_response_bytes_total counter\n");
+		for (EndpointMetrics endpoint : endpoints) {
+			out.write("release_helper_http_response_bytes_total{" + labels(endpoint) + "} " + endpoint.getResponseBytes() + "\n");
+		}
+
+		out.write("# HELP release_helper_http_retries_total Requests repeated because of a transient failure.\n");
+		out.write("# TYPE release_helper_http_retries_total counter\n");
+		for (EndpointMetrics endpoint : endpoints) {
+			out.write("release_helper_http_retries_total{" + labels(endpoint) + "} " + endpoint.getRetries() + "\n");
+		}
+	}
+
+	/**
+	 * @param endpoint the endpoint
+	 * @return the Prometheus labels identifying the endpoint, without braces
+	 */
+	private static String labels(EndpointMetrics endpoint) {
+		return "host=\"" + escape(endpoint.getHost()) + "\",method=\"" + escape(endpoint.getMethod())
+				+ "\",path=\"" + escape(endpoint.getPathTemplate()) + "\"";
+	}
+
+	/**
+	 * @param value the label value
+	 * @return the value escaped for the Prometheus text format
+	 */
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,114 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpEntity;
+
+/**
+ *
+ * Measures a single request and records it in the {@link EndpointMetrics} as soon as it is finished.
+ * Timers are created using {@link RequestMetrics#start(String, String, String)}.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public final class RequestTimer {
+
+	/**
+	 * The attribute under which the timer of a request is stored in the HTTP context,
+	 * so that the transport can count the transferred bytes.
+	 */
+	public static final String CONTEXT_ATTRIBUTE = RequestTimer.class.getName();
+
+	/**
+	 * The metrics of the endpoint the request is sent to.
+	 */
+	private final EndpointMetrics endpoint;
+
+	/**
+	 * The summary of the build step issuing the request, can be null.
+	 */
+	private final BuildRequestSummary summary;
+
+	/**
+	 * The time the request was started at.
+	 */
+	private final long startNanos = System.nanoTime();
+
+	/**
+	 * The number of request body bytes sent.
+	 */
+	private final AtomicLong sentBytes = new AtomicLong();
+
+	/**
+	 * The number of response body bytes received.
+	 */
+	private final AtomicLong receivedBytes = new AtomicLong();
+
+	/**
+	 * Set as soon as the request has been recorded, to record it only once.
+	 */
+	private final AtomicBoolean finished = new AtomicBoolean();
+
+	/**
+	 * Starts a new timer.
+	 * @param endpoint the metrics of the endpoint the request is sent to
+	 * @param summary the summary of the build step issuing the request, can be null
+	 */
+	RequestTimer(EndpointMetrics endpoint, BuildRequestSummary summary) {
+		this.endpoint = endpoint;
+		this.summary = summary;
+	}
+
+	/**
+	 * @param entity the request body as sent
+	 * @return a wrapper around the given entity counting the bytes written
+	 */
+	public HttpEntity countSent(HttpEntity entity) {
+		return new TransferStatistics.CountingEntity(entity, sentBytes);
+	}
+
+	/**
+	 * @param entity the response body as received
+	 * @return a wrapper around the given entity counting the bytes read
+	 */
+	public HttpEntity countReceived(HttpEntity entity) {
+		return new TransferStatistics.CountingEntity(entity, receivedBytes);
+	}
+
+	/**
+	 * @param bytes the number of request body bytes sent without a counting wrapper
+	 */
+	public void addSentBytes(long bytes) {
+		if (bytes > 0) {
+			sentBytes.addAndGet(bytes);
+		}
+	}
+
+	/**
+	 * @param bytes the number of response body bytes received without a counting wrapper
+	 */
+	public void addReceivedBytes(long bytes) {
+		if (bytes > 0) {
+			receivedBytes.addAndGet(bytes);
+		}
+	}
+
+	/**
+	 * Records the request. Only the first invocation has an effect.
+	 * @param status the status code of the response, 0 if the request failed without a response
+	 */
+	public void finish(int status) {
+		if (!finished.compareAndSet(false, true)) {
+			return;
+		}
+		long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		endpoint.record(status, latencyMillis, sentBytes.get(), receivedBytes.get());
+		if (summary != null) {
+			summary.getEndpoint(endpoint.getHost(), endpoint.getMethod(), endpoint.getPathTemplate())
+				.record(status, latencyMillis, sentBytes.get(), receivedBytes.get());
+		}
+	}
+}
@@ -0,0 +1,502 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ *
+ * Cache of GET responses carrying a validator (ETag or Last-Modified), used for turning repeated GETs into conditional requests.
+ * Cached responses are never served without asking the server: if the server answers with 304 Not Modified,
+ * the cached body is used instead of downloading it again.
+ *
+ * As JIRA and Confluence mark their REST responses as not cacheable, the cache does not follow the HTTP caching rules.
+ * This is safe, as every use of a cached response is validated by the server first.
+ *
+ * The bodies are kept in memory up to a configured size. The least recently used bodies exceeding it
+ * are moved to a directory on disk, if configured, otherwise they are dropped.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class ResponseCache {
+
+	/**
+	 * The logger of this class.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(ResponseCache.class.getName());
+
+	/**
+	 * The cached responses held in memory, in least recently used order.
+	 */
+	private final LinkedHashMap<String, CachedResponse> memory = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true);
+
+	/**
+	 * The sizes of the responses stored on disk, in least recently used order.
+	 */
+	private final LinkedHashMap<String, Long> disk = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+	/**
+	 * The total size of the bodies held in memory.
+	 */
+	private long memoryBytes = 0;
+
+	/**
+	 * The total size of the files on disk.
+	 */
+	private long diskBytes = 0;
+
+	/**
+	 * The maximum total size of the bodies held in memory, 0 disables the cache.
+	 */
+	private long maxMemoryBytes;
+
+	/**
+	 * The maximum total size of the files on disk, 0 disables the disk overflow.
+	 */
+	private long maxDiskBytes;
+
+	/**
+	 * The directory for the disk overflow, null if not available.
+	 */
+	private File directory;
+
+	/**
+	 * The number of requests answered from the cache after a 304 response.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * The number of conditional requests for which the server sent a new body.
+	 */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Configures the cache, shrinking it if necessary.
+	 * @param maxMemoryBytes the maximum total size of the bodies held in memory, 0 disables the cache
+	 * @param maxDiskBytes the maximum total size of the files on disk, 0 disables the disk overflow
+	 * @param directory the directory for the disk overflow, null if not available. All files in the directory are owned by this cache.
+	 */
+	public synchronized void configure(long maxMemoryBytes, long maxDiskBytes, File directory) {
+		if (directory == null ? this.directory != null : !directory.equals(this.directory)) {
+			clearDisk();
+			this.directory = directory;
+			//files left from an earlier run are not indexed, so they are removed as well
+			clearDisk();
+		}
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.maxDiskBytes = directory == null ? 0 : maxDiskBytes;
+		evict();
+	}
+
+	/**
+	 * @return true, if responses are cached at all
+	 */
+	public synchronized boolean isEnabled() {
+		return maxMemoryBytes > 0;
+	}
+
+	/**
+	 * Looks up the cached response for the given key.
+	 * @param key the key identifying the resource and the user
+	 * @return the cached response or null if there is none
+	 */
+	public synchronized CachedResponse get(String key) {
+		CachedResponse response = memory.get(key);
+		if (response == null && disk.containsKey(key)) {
+			response = readFromDisk(key);
+		}
+		return response;
+	}
+
+	/**
+	 * Stores a response, replacing an older version.
+	 * @param key the key identifying the resource and the user
+	 * @param response the response to store
+	 */
+	public synchronized void put(String key, CachedResponse response) {
+		if (response.getBody().length > maxMemoryBytes) {
+			return;
+		}
+		remove(key);
+		memory.put(key, response);
+		memoryBytes += response.getBody().length;
+		evict();
+	}
+
+	/**
+	 * Removes the response with the given key.
+	 * @param key the key identifying the resource and the user
+	 */
+	public synchronized void remove(String key) {
+		CachedResponse old = memory.remove(key);
+		if (old != null) {
+			memoryBytes -= old.getBody().length;
+		}
+		Long size = disk.remove(key);
+		if (size != null) {
+			diskBytes -= size;
+			getFile(key).delete();
+		}
+	}
+
+	/**
+	 * Records that a conditional request was answered with 304, so the cached body was used.
+	 */
+	public void countHit() {
+		hits.incrementAndGet();
+	}
+
+	/**
+	 * Records that a conditional request was answered with a new body.
+	 */
+	public void countMiss() {
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * Wraps the given response body so that it is recorded while being read.
+	 * @param entity the body to record
+	 * @return the wrapper, the recorded bytes are available after the body has been read completely
+	 */
+	public synchronized RecordingEntity record(HttpEntity entity) {
+		return new RecordingEntity(entity, maxMemoryBytes);
+	}
+
+	/**
+	 * Moves the least recently used responses from memory to disk and deletes the least recently used files, until both fit into their limits.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, CachedResponse>> inMemory = memory.entrySet().iterator();
+		while (memoryBytes > maxMemoryBytes && inMemory.hasNext()) {
+			Map.Entry<String, CachedResponse> eldest = inMemory.next();
+			inMemory.remove();
+			memoryBytes -= eldest.getValue().getBody().length;
+			if (eldest.getValue().getBody().length <= maxDiskBytes) {
+				writeToDisk(eldest.getKey(), eldest.getValue());
+			}
+		}
+		Iterator<Map.Entry<String, Long>> onDisk = disk.entrySet().iterator();
+		while (diskBytes > maxDiskBytes && onDisk.hasNext()) {
+			Map.Entry<String, Long> eldest = onDisk.next();
+			onDisk.remove();
+			diskBytes -= eldest.getValue();
+			getFile(eldest.getKey()).delete();
+		}
+	}
+
+	/**
+	 * Writes the given response to disk, failures are only logged.
+	 * @param key the key of the response
+	 * @param response the response
+	 */
+	private void writeToDisk(String key, CachedResponse response) {
+		File file = getFile(key);
+		try {
+			file.getParentFile().mkdirs();
+			DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+			try {
+				out.writeUTF(key);
+				writeNullable(out, response.getEtag());
+				writeNullable(out, response.getLastModified());
+				writeNullable(out, response.getContentType());
+				out.writeInt(response.getBody().length);
+				out.write(response.getBody());
+			} finally {
+				out.close();
+			}
+			disk.put(key, file.length());
+			diskBytes += file.length();
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Could not write cached response to " + file, e);
+			file.delete();
+		}
+	}
+
+	/**
+	 * Reads a response from disk, failures are only logged.
+	 * @param key the key of the response
+	 * @return the response, null if it could not be read
+	 */
+	private CachedResponse readFromDisk(String key) {
+		File file = getFile(key);
+		try {
+			DataInputStream in = new DataInputStream(new FileInputStream(file));
+			try {
+				if (!key.equals(in.readUTF())) {
+					return null;
+				}
+				String etag = readNullable(in);
+				String lastModified = readNullable(in);
+				String contentType = readNullable(in);
+				byte[] body = new byte[in.readInt()];
+				in.readFully(body);
+				return new CachedResponse(etag, lastModified, contentType, body);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Could not read cached response from " + file, e);
+			remove(key);
+			return null;
+		}
+	}
+
+	/**
+	 * @param out the stream to write to
+	 * @param value the value to write, can be null
+	 * @throws IOException if writing fails
+	 */
+	private static void writeNullable(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	/**
+	 * @param in the stream to read from
+	 * @return the value read, can be null
+	 * @throws IOException if reading fails
+	 */
+	private static String readNullable(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * @param key the key of a response
+	 * @return the file the response is stored in
+	 */
+	private File getFile(String key) {
+		return new File(directory, Hashing.sha1().hashString(key, Charsets.UTF_8).toString());
+	}
+
+	/**
+	 * Deletes all files of the disk overflow.
+	 */
+	private void clearDisk() {
+		disk.clear();
+		diskBytes = 0;
+		File[] files = directory == null ? null : directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public synchronized int getMemoryEntries() {
+		return memory.size();
+	}
+
+	public synchronized long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	public synchronized int getDiskEntries() {
+		return disk.size();
+	}
+
+	public synchronized long getDiskBytes() {
+		return diskBytes;
+	}
+
+	@Override
+	public String toString() {
+		return getHits() + " not modified, " + getMisses() + " modified, "
+				+ getMemoryEntries() + " responses (" + getMemoryBytes() + " bytes) in memory, "
+				+ getDiskEntries() + " responses (" + getDiskBytes() + " bytes) on disk";
+	}
+
+	/**
+	 *
+	 * A cached response body together with its validators.
+	 *
+	 * @author Jonas Kunz
+	 *
+	 */
+	public static final class CachedResponse {
+
+		/**
+		 * The ETag of the response, can be null.
+		 */
+		private final String etag;
+
+		/**
+		 * The Last-Modified date of the response, can be null.
+		 */
+		private final String lastModified;
+
+		/**
+		 * The content type of the body, can be null.
+		 */
+		private final String contentType;
+
+		/**
+		 * The decoded body.
+		 */
+		private final byte[] body;
+
+		/**
+		 * Creates a new cached response.
+		 * @param etag the ETag of the response, can be null
+		 * @param lastModified the Last-Modified date of the response, can be null
+		 * @param contentType the content type of the body, can be null
+		 * @param body the decoded body
+		 */
+		public CachedResponse(String etag, String lastModified, String contentType, byte[] body) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+			this.body = body;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		/**
+		 * @return the body as entity
+		 */
+		public HttpEntity toEntity() {
+			return new ByteArrayEntity(body, contentType == null ? null : ContentType.parse(contentType));
+		}
+	}
+
+	/**
+	 *
+	 * Entity wrapper keeping a copy of the bytes read, as long as they do not exceed a limit.
+	 * This way responses can be cached while they are streamed to the consumer.
+	 * When the stream is closed, the rest of the body is read and recorded as well.
+	 *
+	 * @author Jonas Kunz
+	 *
+	 */
+	public static final class RecordingEntity extends HttpEntityWrapper {
+
+		/**
+		 * The maximum number of bytes to record.
+		 */
+		private final long limit;
+
+		/**
+		 * The recorded bytes, null if the limit has been exceeded.
+		 */
+		private ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+		/**
+		 * Set as soon as the end of the body has been reached.
+		 */
+		private boolean complete = false;
+
+		/**
+		 * Creates a new wrapper.
+		 * @param wrappedEntity the entity to wrap
+		 * @param limit the maximum number of bytes to record
+		 */
+		RecordingEntity(HttpEntity wrappedEntity, long limit) {
+			super(wrappedEntity);
+			this.limit = limit;
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+			return new FilterInputStream(wrappedEntity.getContent()) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b < 0) {
+						complete = true;
+					} else {
+						record(new byte[] {(byte) b}, 0, 1);
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int read = super.read(b, off, len);
+					if (read < 0) {
+						complete = true;
+					} else {
+						record(b, off, read);
+					}
+					return read;
+				}
+
+				@Override
+				public void close() throws IOException {
+					//the rest of the body would be skipped by the connection otherwise
+					byte[] buffer = new byte[4096];
+					while (recorded != null && !complete && read(buffer, 0, buffer.length) >= 0) {
+						//keep reading
+					}
+					super.close();
+				}
+			};
+		}
+
+		/**
+		 * Records the given bytes, as long as the limit is not exceeded.
+		 * @param b the buffer
+		 * @param off the offset of the bytes in the buffer
+		 * @param len the number of bytes
+		 */
+		private void record(byte[] b, int off, int len) {
+			if (recorded != null) {
+				if (recorded.size() + len > limit) {
+					recorded = null;
+				} else {
+					recorded.write(b, off, len);
+				}
+			}
+		}
+
+		/**
+		 * @return the complete body, null if it has not been read completely or exceeded the limit
+		 */
+		public byte[] getRecordedBody() {
+			return complete && recorded != null ? recorded.toByteArray() : null;
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ *
+ * Decides whether and when a failed request is repeated.
+ *
+ * Requests failing with a transient error (connection problems, 502, 503, 504) are repeated if their method is idempotent.
+ * Requests rejected with 429 (too many requests) were not processed and are therefore repeated independent of their method.
+ * The delay between the attempts grows exponentially with random jitter, a delay requested by the server via <code>Retry-After</code> is respected.
+ *
+ * Each policy has a time budget for the delays before retries: as soon as the delays waited in total use it up, no more retries are performed.
+ * Time spent on successful requests does not count, so long running steps can still retry.
+ * A policy is therefore created per build step and shared by all requests of this step.
+ * In addition, no retry is performed which would start after the {@link Deadline} of the calling thread.
+ * The limits are taken from the {@link HttpTransportConfiguration}.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class RetryPolicy {
+
+	/**
+	 * Status codes indicating a transient server side problem.
+	 */
+	private static final Set<Integer> TRANSIENT_STATUS_CODES = new HashSet<Integer>(Arrays.asList(
+			HttpStatus.SC_BAD_GATEWAY, HttpStatus.SC_SERVICE_UNAVAILABLE, HttpStatus.SC_GATEWAY_TIMEOUT));
+
+	/**
+	 * Status code for "Too Many Requests", not defined in {@link HttpStatus}.
+	 */
+	public static final int SC_TOO_MANY_REQUESTS = 429;
+
+	/**
+	 * The HTTP methods which may be repeated without side effects.
+	 */
+	private static final Set<String> IDEMPOTENT_METHODS = new HashSet<String>(Arrays.asList(
+			"GET", "HEAD", "OPTIONS", "PUT", "DELETE"));
+
+	/**
+	 * The maximum number of retries of a single request.
+	 */
+	private final int maxRetries;
+
+	/**
+	 * The delay before the first retry, doubled for each further retry.
+	 */
+	private final long initialDelayMillis;
+
+	/**
+	 * The upper bound for the delay between two attempts.
+	 */
+	private final long maxDelayMillis;
+
+	/**
+	 * The total time in milliseconds which may be spent waiting before retries.
+	 */
+	private final long budgetMillis;
+
+	/**
+	 * The time in milliseconds spent waiting before retries so far, by all requests using this policy.
+	 */
+	private final AtomicLong spentMillis = new AtomicLong();
+
+	/**
+	 * Creates a new policy.
+	 * @param maxRetries the maximum number of retries of a single request
+	 * @param initialDelayMillis the delay before the first retry
+	 * @param maxDelayMillis the upper bound for the delay between two attempts
+	 * @param budgetMillis the total time which may be spent waiting before retries
+	 */
+	public RetryPolicy(int maxRetries, long initialDelayMillis, long maxDelayMillis, long budgetMillis) {
+		this.maxRetries = maxRetries;
+		this.initialDelayMillis = initialDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+		this.budgetMillis = budgetMillis;
+	}
+
+	/**
+	 * @return a new policy with the limits of the {@link HttpTransportConfiguration} and an unused budget.
+	 */
+	public static RetryPolicy fromConfiguration() {
+		HttpTransportConfiguration config = HttpTransportConfiguration.get();
+		if (config == null) {
+			return new RetryPolicy(HttpTransportConfiguration.DEFAULT_MAX_RETRIES,
+					HttpTransportConfiguration.DEFAULT_INITIAL_RETRY_DELAY_MILLIS,
+					HttpTransportConfiguration.DEFAULT_MAX_RETRY_DELAY_MILLIS,
+					HttpTransportConfiguration.DEFAULT_RETRY_BUDGET_SECONDS * 1000L);
+		}
+		return new RetryPolicy(Math.max(0, config.getMaxRetries()),
+				Math.max(0, config.getInitialRetryDelayMillis()),
+				Math.max(0, config.getMaxRetryDelayMillis()),
+				Math.max(0, config.getRetryBudgetSeconds()) * 1000L);
+	}
+
+	/**
+	 * Decides whether a failed request is repeated.
+	 *
+	 * @param method
+	 * 		the HTTP method of the failed request
+	 * @param statusCode
+	 * 		the status code of the response, null if no response was received
+	 * @param retryAfter
+	 * 		the value of the Retry-After header of the response, can be null
+	 * @param failure
+	 * 		the exception which caused the failure, if no response was received
+	 * @param retriesSoFar
+	 * 		the number of retries already performed for this request
+	 * @return
+	 * 		the delay in milliseconds before the request shall be repeated, -1 if it shall not be repeated
+	 */
+	public long getRetryDelay(String method, Integer statusCode, String retryAfter, Throwable failure, int retriesSoFar) {
+		if (retriesSoFar >= maxRetries) {
+			return -1;
+		}
+		boolean idempotent = IDEMPOTENT_METHODS.contains(method.toUpperCase());
+		boolean retryable;
+		if (statusCode != null) {
+			retryable = statusCode == SC_TOO_MANY_REQUESTS || (idempotent && TRANSIENT_STATUS_CODES.contains(statusCode));
+		} else {
+			retryable = idempotent && failure instanceof IOException && !(failure instanceof MalformedJsonException);
+		}
+		if (!retryable) {
+			return -1;
+		}
+
+		long delay = Math.min(maxDelayMillis, initialDelayMillis << Math.min(retriesSoFar, 20));
+		//randomized between half and the full delay, spreads the retries of concurrent builds
+		delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+		Long requestedDelay = parseRetryAfter(retryAfter);
+		if (requestedDelay != null) {
+			delay = Math.max(delay, requestedDelay);
+		}
+
+		if (spentMillis.get() + delay > budgetMillis || delay >= Deadline.current().getRemainingMillis()) {
+			return -1;
+		}
+		return delay;
+	}
+
+	/**
+	 * Decides whether a request failed with the given exception is repeated.
+	 *
+	 * @param method
+	 * 		the HTTP method of the failed request
+	 * @param failure
+	 * 		the failure, either a {@link HttpStatusException} or a connection problem
+	 * @param retriesSoFar
+	 * 		the number of retries already performed for this request
+	 * @return
+	 * 		the delay in milliseconds before the request shall be repeated, -1 if it shall not be repeated
+	 */
+	public long getRetryDelay(String method, Throwable failure, int retriesSoFar) {
+		if (failure instanceof HttpStatusException) {
+			HttpStatusException statusException = (HttpStatusException) failure;
+			return getRetryDelay(method, statusException.getStatusCode(), statusException.getRetryAfter(), null, retriesSoFar);
+		}
+		return getRetryDelay(method, null, null, failure, retriesSoFar);
+	}
+
+	/**
+	 * Waits before the next attempt.
+	 * @param delayMillis the delay as returned by {@link #getRetryDelay(String, Throwable, int)}
+	 */
+	public void waitForRetry(long delayMillis) {
+		long start = System.nanoTime();
+		try {
+			Thread.sleep(delayMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} finally {
+			recordRetryDelay(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+	}
+
+	/**
+	 * Charges a delay waited before a retry to the budget, for retries which are not delayed by {@link #waitForRetry(long)}.
+	 * @param delayMillis the delay in milliseconds
+	 */
+	public void recordRetryDelay(long delayMillis) {
+		spentMillis.addAndGet(delayMillis);
+	}
+
+	/**
+	 * Parses the value of a Retry-After header, which is either a number of seconds or a date.
+	 * @param retryAfter the header value, can be null
+	 * @return the requested delay in milliseconds, null if no valid value was given
+	 */
+	private static Long parseRetryAfter(String retryAfter) {
+		if (retryAfter == null || retryAfter.trim().isEmpty()) {
+			return null;
+		}
+		try {
+			return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000L);
+		} catch (NumberFormatException e) {
+			Date date = DateUtils.parseDate(retryAfter.trim());
+			if (date == null) {
+				return null;
+			}
+			return Math.max(0, date.getTime() - System.currentTimeMillis());
+		}
+	}
+}
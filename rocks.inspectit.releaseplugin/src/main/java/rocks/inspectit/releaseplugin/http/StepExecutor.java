@@ -0,0 +1,95 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * Executes independent remote calls of a build step concurrently.
+ *
+ * The tasks inherit the {@link Deadline} and the {@link BuildRequestSummary} of the calling thread,
+ * so that their calls are subject to the deadline of the step and show up in its summary.
+ * The load put on each server is still bounded by its {@link RequestLimiter}.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public final class StepExecutor {
+
+	/**
+	 * Utility class.
+	 */
+	private StepExecutor() {
+	}
+
+	/**
+	 * Executes the given tasks concurrently and waits until all of them have completed.
+	 * @param <T> the result type of the tasks
+	 * @param name the name of the worker threads, e.g. the name of the build step
+	 * @param tasks the tasks to execute
+	 * @param parallelism the maximum number of tasks executed at the same time
+	 * @return the results of the tasks, in the order of the tasks
+	 * @throws InterruptedException if the calling thread was interrupted while waiting, the tasks are cancelled
+	 * @throws RuntimeException the failure of the first failed task, after all other tasks have completed
+	 */
+	public static <T> List<T> invokeAll(final String name, List<? extends Callable<T>> tasks, int parallelism) throws InterruptedException {
+		if (tasks.isEmpty()) {
+			return new ArrayList<T>();
+		}
+		final Deadline deadline = Deadline.current();
+		final BuildRequestSummary summary = BuildRequestSummary.current();
+		List<Callable<T>> inheritingTasks = new ArrayList<Callable<T>>();
+		for (final Callable<T> task : tasks) {
+			inheritingTasks.add(new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					Deadline previousDeadline = deadline.attach();
+					BuildRequestSummary previousSummary = summary == null ? null : summary.attach();
+					try {
+						return task.call();
+					} finally {
+						if (summary != null) {
+							BuildRequestSummary.detach(previousSummary);
+						}
+						Deadline.detach(previousDeadline);
+					}
+				}
+			});
+		}
+
+		final AtomicInteger threadNumber = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, tasks.size())), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name + " worker " + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			List<Future<T>> futures = executor.invokeAll(inheritingTasks);
+			List<T> results = new ArrayList<T>();
+			for (Future<T> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw new RuntimeException(e.getCause());
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+package rocks.inspectit.releaseplugin.http;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+/**
+ *
+ * Counts the bytes transferred by a {@link HttpTransport}, both before and after compression.
+ * This allows to judge how effective the compression of request and response bodies is.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class TransferStatistics {
+
+	/**
+	 * The number of request body bytes before compression.
+	 */
+	private final AtomicLong requestBytesUncompressed = new AtomicLong();
+
+	/**
+	 * The number of request body bytes actually sent.
+	 */
+	private final AtomicLong requestBytesSent = new AtomicLong();
+
+	/**
+	 * The number of response body bytes actually received.
+	 */
+	private final AtomicLong responseBytesReceived = new AtomicLong();
+
+	/**
+	 * The number of response body bytes after decompression.
+	 */
+	private final AtomicLong responseBytesDecoded = new AtomicLong();
+
+	/**
+	 * @param entity the request body before compression
+	 * @return a wrapper around the given entity counting the bytes written as uncompressed request bytes
+	 */
+	public HttpEntity countUncompressedRequest(HttpEntity entity) {
+		return new CountingEntity(entity, requestBytesUncompressed);
+	}
+
+	/**
+	 * @param entity the request body as sent
+	 * @return a wrapper around the given entity counting the bytes written as sent request bytes
+	 */
+	HttpEntity countSentRequest(HttpEntity entity) {
+		return new CountingEntity(entity, requestBytesSent);
+	}
+
+	/**
+	 * @param entity the response body as received
+	 * @return a wrapper around the given entity counting the bytes read as received response bytes
+	 */
+	HttpEntity countReceivedResponse(HttpEntity entity) {
+		return new CountingEntity(entity, responseBytesReceived);
+	}
+
+	/**
+	 * @param entity the response body after decompression
+	 * @return a wrapper around the given entity counting the bytes read as decoded response bytes
+	 */
+	HttpEntity countDecodedResponse(HttpEntity entity) {
+		return new CountingEntity(entity, responseBytesDecoded);
+	}
+
+	public long getRequestBytesUncompressed() {
+		return requestBytesUncompressed.get();
+	}
+
+	public long getRequestBytesSent() {
+		return requestBytesSent.get();
+	}
+
+	public long getResponseBytesReceived() {
+		return responseBytesReceived.get();
+	}
+
+	public long getResponseBytesDecoded() {
+		return responseBytesDecoded.get();
+	}
+
+	@Override
+	public String toString() {
+		return "requests: " + getRequestBytesSent() + " bytes sent (" + getRequestBytesUncompressed() + " uncompressed), "
+				+ "responses: " + getResponseBytesReceived() + " bytes received (" + getResponseBytesDecoded() + " decoded)";
+	}
+
+	/**
+	 *
+	 * Entity wrapper counting the bytes read from or written by the wrapped entity.
+	 *
+	 * @author Jonas Kunz
+	 *
+	 */
+	static class CountingEntity extends HttpEntityWrapper {
+
+		/**
+		 * The counter to add the transferred bytes to.
+		 */
+		private final AtomicLong counter;
+
+		/**
+		 * Creates a new wrapper.
+		 * @param wrappedEntity the entity to wrap
+		 * @param counter the counter to add the transferred bytes to
+		 */
+		CountingEntity(HttpEntity wrappedEntity, AtomicLong counter) {
+			super(wrappedEntity);
+			this.counter = counter;
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+			return new FilterInputStream(wrappedEntity.getContent()) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b >= 0) {
+						counter.incrementAndGet();
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int read = super.read(b, off, len);
+					if (read > 0) {
+						counter.addAndGet(read);
+					}
+					return read;
+				}
+			};
+		}
+
+		@Override
+		public void writeTo(OutputStream outstream) throws IOException {
+			wrappedEntity.writeTo(new FilterOutputStream(outstream) {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					counter.incrementAndGet();
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					counter.addAndGet(len);
+				}
+			});
+		}
+	}
+}
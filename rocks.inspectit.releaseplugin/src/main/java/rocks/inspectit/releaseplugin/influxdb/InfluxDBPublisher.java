@@ -19,6 +19,7 @@ import hudson.util.ListBoxModel;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,10 @@ import org.influxdb.dto.Point;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 
+import rocks.inspectit.releaseplugin.http.CircuitBreaker;
+import rocks.inspectit.releaseplugin.http.CircuitOpenException;
+import rocks.inspectit.releaseplugin.http.Deadline;
+import rocks.inspectit.releaseplugin.http.DeadlineExceededException;
 import rocks.inspectit.releaseplugin.influxdb.InfluxContentParser.ContentLine;
 
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
@@ -103,6 +108,25 @@ public class InfluxDBPublisher extends Builder {
 
 	@Override
 	public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+		Deadline deadline = Deadline.start(null);
+		try {
+			return publish(build, listener);
+		} catch (DeadlineExceededException e) {
+			listener.getLogger().println(e.getMessage());
+			return false;
+		} finally {
+			deadline.end();
+		}
+	}
+
+	/**
+	 * Writes the points to InfluxDB, unless the {@link Deadline} of the step has been reached.
+	 * @param build the current build
+	 * @param listener the listener of the current build
+	 * @return true, if the build can continue
+	 * @throws IOException if the url of the database is malformed
+	 */
+	private boolean publish(AbstractBuild<?, ?> build, BuildListener listener) throws IOException {
 
 		StrSubstitutor varReplacer = getVariablesSubstitutor(build, listener);
 		PrintStream logger = listener.getLogger();
@@ -134,7 +158,26 @@ public class InfluxDBPublisher extends Builder {
 		 	batchPoints.point(point);
 		} 
    
-		influx.write(batchPoints);
+		Deadline.current().check("POST /write");
+		CircuitBreaker breaker = CircuitBreaker.forHost(new URL(dbUrl).getAuthority());
+		try {
+			breaker.acquire("POST /write");
+		} catch (CircuitOpenException e) {
+			logger.println(e.getMessage());
+			return false;
+		}
+		try {
+			influx.write(batchPoints);
+		} catch (RuntimeException e) {
+			//the client wraps connection problems, error responses prove that the server is available
+			if (e.getCause() instanceof IOException) {
+				breaker.recordFailure();
+			} else {
+				breaker.recordSuccess();
+			}
+			throw e;
+		}
+		breaker.recordSuccess();
 		
 		return true;
 	}
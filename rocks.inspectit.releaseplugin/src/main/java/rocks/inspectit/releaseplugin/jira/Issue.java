@@ -0,0 +1,97 @@
+package rocks.inspectit.releaseplugin.jira;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ *
+ * The parts of a JIRA issue used by the build steps: its key, summary and type.
+ * Requests returning issues should restrict the fields to {@link #FIELDS}.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class Issue {
+
+	/**
+	 * The fields read from the issue, as comma separated list for the <code>fields</code> parameter of the REST API.
+	 */
+	public static final String FIELDS = "summary,issuetype";
+
+	/**
+	 * The key of the issue, e.g. ABC-123.
+	 */
+	private final String key;
+
+	/**
+	 * The summary (title) of the issue.
+	 */
+	private final String summary;
+
+	/**
+	 * The type of the issue, can be null if the field was not requested.
+	 */
+	private final IssueType issueType;
+
+	/**
+	 * Creates a new issue.
+	 * @param key the key
+	 * @param summary the summary
+	 * @param issueType the type
+	 */
+	public Issue(String key, String summary, IssueType issueType) {
+		this.key = key;
+		this.summary = summary;
+		this.issueType = issueType;
+	}
+
+	/**
+	 * Reads an issue object.
+	 * @param reader the reader positioned at the beginning of the object
+	 * @return the issue
+	 * @throws IOException if reading fails
+	 */
+	public static Issue read(JsonReader reader) throws IOException {
+		String key = null;
+		String summary = null;
+		IssueType issueType = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String property = reader.nextName();
+			if ("key".equals(property)) {
+				key = JsonValues.nextString(reader);
+			} else if ("fields".equals(property)) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String field = reader.nextName();
+					if ("summary".equals(field)) {
+						summary = JsonValues.nextString(reader);
+					} else if ("issuetype".equals(field)) {
+						issueType = IssueType.read(reader);
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new Issue(key, summary, issueType);
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getSummary() {
+		return summary;
+	}
+
+	public IssueType getIssueType() {
+		return issueType;
+	}
+
+}
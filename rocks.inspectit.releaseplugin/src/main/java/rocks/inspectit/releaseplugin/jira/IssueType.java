@@ -0,0 +1,82 @@
+package rocks.inspectit.releaseplugin.jira;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ *
+ * The type of a JIRA issue (e.g. Bug or Task), as returned by <code>/rest/api/2/issuetype</code>.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class IssueType {
+
+	/**
+	 * The id of the type.
+	 */
+	private final String id;
+
+	/**
+	 * The name of the type.
+	 */
+	private final String name;
+
+	/**
+	 * True, if issues of this type are subtasks of another issue.
+	 */
+	private final boolean subtask;
+
+	/**
+	 * Creates a new issue type.
+	 * @param id the id
+	 * @param name the name
+	 * @param subtask true, if issues of this type are subtasks
+	 */
+	public IssueType(String id, String name, boolean subtask) {
+		this.id = id;
+		this.name = name;
+		this.subtask = subtask;
+	}
+
+	/**
+	 * Reads an issue type object.
+	 * @param reader the reader positioned at the beginning of the object
+	 * @return the issue type
+	 * @throws IOException if reading fails
+	 */
+	public static IssueType read(JsonReader reader) throws IOException {
+		String id = null;
+		String name = null;
+		boolean subtask = false;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String property = reader.nextName();
+			if ("id".equals(property)) {
+				id = JsonValues.nextString(reader);
+			} else if ("name".equals(property)) {
+				name = JsonValues.nextString(reader);
+			} else if ("subtask".equals(property)) {
+				subtask = JsonValues.nextBoolean(reader);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new IssueType(id, name, subtask);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isSubtask() {
+		return subtask;
+	}
+
+}
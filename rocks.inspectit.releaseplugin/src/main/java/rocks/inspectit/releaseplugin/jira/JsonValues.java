@@ -0,0 +1,50 @@
+package rocks.inspectit.releaseplugin.jira;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ *
+ * Helper methods for reading the values of JIRA responses, which may be null or missing.
+ *
+ * @author Jonas Kunz
+ *
+ */
+final class JsonValues {
+
+	/**
+	 * Utility class.
+	 */
+	private JsonValues() {
+	}
+
+	/**
+	 * Reads a string value.
+	 * @param reader the reader positioned at the value
+	 * @return the value, null if it is null
+	 * @throws IOException if reading fails
+	 */
+	static String nextString(JsonReader reader) throws IOException {
+		if (reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		return reader.nextString();
+	}
+
+	/**
+	 * Reads a boolean value.
+	 * @param reader the reader positioned at the value
+	 * @return the value, false if it is null
+	 * @throws IOException if reading fails
+	 */
+	static boolean nextBoolean(JsonReader reader) throws IOException {
+		if (reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return false;
+		}
+		return reader.nextBoolean();
+	}
+}
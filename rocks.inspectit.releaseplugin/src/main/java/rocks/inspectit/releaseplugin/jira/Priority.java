@@ -0,0 +1,68 @@
+package rocks.inspectit.releaseplugin.jira;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ *
+ * The priority of a JIRA issue, as returned by <code>/rest/api/2/priority</code>.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class Priority {
+
+	/**
+	 * The id of the priority.
+	 */
+	private final String id;
+
+	/**
+	 * The name of the priority.
+	 */
+	private final String name;
+
+	/**
+	 * Creates a new priority.
+	 * @param id the id
+	 * @param name the name
+	 */
+	public Priority(String id, String name) {
+		this.id = id;
+		this.name = name;
+	}
+
+	/**
+	 * Reads a priority object.
+	 * @param reader the reader positioned at the beginning of the object
+	 * @return the priority
+	 * @throws IOException if reading fails
+	 */
+	public static Priority read(JsonReader reader) throws IOException {
+		String id = null;
+		String name = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String property = reader.nextName();
+			if ("id".equals(property)) {
+				id = JsonValues.nextString(reader);
+			} else if ("name".equals(property)) {
+				name = JsonValues.nextString(reader);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new Priority(id, name);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+}
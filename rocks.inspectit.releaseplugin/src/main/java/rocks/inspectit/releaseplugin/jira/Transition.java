@@ -0,0 +1,68 @@
+package rocks.inspectit.releaseplugin.jira;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ *
+ * A workflow transition which can be performed on a JIRA issue, as returned by <code>/rest/api/2/issue/{key}/transitions</code>.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class Transition {
+
+	/**
+	 * The id of the transition.
+	 */
+	private final int id;
+
+	/**
+	 * The name of the transition.
+	 */
+	private final String name;
+
+	/**
+	 * Creates a new transition.
+	 * @param id the id
+	 * @param name the name
+	 */
+	public Transition(int id, String name) {
+		this.id = id;
+		this.name = name;
+	}
+
+	/**
+	 * Reads a transition object.
+	 * @param reader the reader positioned at the beginning of the object
+	 * @return the transition
+	 * @throws IOException if reading fails
+	 */
+	public static Transition read(JsonReader reader) throws IOException {
+		int id = -1;
+		String name = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String property = reader.nextName();
+			if ("id".equals(property)) {
+				id = Integer.parseInt(reader.nextString());
+			} else if ("name".equals(property)) {
+				name = JsonValues.nextString(reader);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new Transition(id, name);
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+}
@@ -0,0 +1,124 @@
+package rocks.inspectit.releaseplugin.jira;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ *
+ * A version of a JIRA project, as returned by <code>/rest/api/2/project/{key}/versions</code>.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class Version {
+
+	/**
+	 * The id of the version.
+	 */
+	private final String id;
+
+	/**
+	 * The name of the version, e.g. 1.0.
+	 */
+	private final String name;
+
+	/**
+	 * The description of the version, can be null.
+	 */
+	private final String description;
+
+	/**
+	 * True, if the version is archived.
+	 */
+	private final boolean archived;
+
+	/**
+	 * True, if the version is released.
+	 */
+	private final boolean released;
+
+	/**
+	 * The release date in the format yyyy-MM-dd, can be null.
+	 */
+	private final String releaseDate;
+
+	/**
+	 * Creates a new version.
+	 * @param id the id
+	 * @param name the name
+	 * @param description the description, can be null
+	 * @param archived true, if the version is archived
+	 * @param released true, if the version is released
+	 * @param releaseDate the release date, can be null
+	 */
+	public Version(String id, String name, String description, boolean archived, boolean released, String releaseDate) {
+		this.id = id;
+		this.name = name;
+		this.description = description;
+		this.archived = archived;
+		this.released = released;
+		this.releaseDate = releaseDate;
+	}
+
+	/**
+	 * Reads a version object.
+	 * @param reader the reader positioned at the beginning of the object
+	 * @return the version
+	 * @throws IOException if reading fails
+	 */
+	public static Version read(JsonReader reader) throws IOException {
+		String id = null;
+		String name = null;
+		String description = null;
+		boolean archived = false;
+		boolean released = false;
+		String releaseDate = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String property = reader.nextName();
+			if ("id".equals(property)) {
+				id = JsonValues.nextString(reader);
+			} else if ("name".equals(property)) {
+				name = JsonValues.nextString(reader);
+			} else if ("description".equals(property)) {
+				description = JsonValues.nextString(reader);
+			} else if ("archived".equals(property)) {
+				archived = JsonValues.nextBoolean(reader);
+			} else if ("released".equals(property)) {
+				released = JsonValues.nextBoolean(reader);
+			} else if ("releaseDate".equals(property)) {
+				releaseDate = JsonValues.nextString(reader);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new Version(id, name, description, archived, released, releaseDate);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public boolean isArchived() {
+		return archived;
+	}
+
+	public boolean isReleased() {
+		return released;
+	}
+
+	public String getReleaseDate() {
+		return releaseDate;
+	}
+
+}
@@ -0,0 +1,155 @@
+package rocks.inspectit.releaseplugin.releasenotes;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.text.StrSubstitutor;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import rocks.inspectit.releaseplugin.AbstractJIRAConfluenceAction;
+import rocks.inspectit.releaseplugin.ConfluenceAccessTool;
+import rocks.inspectit.releaseplugin.JIRAAccessTool;
+import rocks.inspectit.releaseplugin.confluence.PageSpec;
+import rocks.inspectit.releaseplugin.confluence.PublishedPage;
+import rocks.inspectit.releaseplugin.credentials.ConfluenceCredentials;
+import rocks.inspectit.releaseplugin.credentials.JIRAProjectCredentials;
+import rocks.inspectit.releaseplugin.http.StepExecutor;
+import rocks.inspectit.releaseplugin.jira.Issue;
+
+/**
+ *
+ * Tool for publishing a tree of pages listing tickets on confluence in a single step, e.g. a release page with one child page per module.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class ConfluencePageTreePublisher extends AbstractJIRAConfluenceAction {
+
+	/**
+	 * The maximum number of JQL queries and page writes executed at the same time.
+	 */
+	private static final int PUBLISH_THREADS = 4;
+
+	/**
+	 * The space under which the pages shall be published.
+	 */
+	private String spaceKey;
+	/**
+	 * Title of the parent page of all pages without an explicit parent, empty for the root of the space.
+	 */
+	private String parentPageTitle;
+	/**
+	 * The pages to publish.
+	 */
+	private List<PageTreeEntry> pages;
+
+	/**
+	 *
+	 * Databound constructor, called by Jenkins.
+	 *
+	 * @param jiraCredentialsID the jira credentials
+	 * @param confluenceCredentialsID the confluence credentials
+	 * @param spaceKey the space key
+	 * @param parentPageTitle the title of the parent page of all pages without an explicit parent
+	 * @param pages the pages to publish
+	 */
+	@DataBoundConstructor
+	public ConfluencePageTreePublisher(String jiraCredentialsID, String confluenceCredentialsID, String spaceKey,
+			String parentPageTitle, List<PageTreeEntry> pages) {
+		super(jiraCredentialsID, confluenceCredentialsID);
+		this.spaceKey = spaceKey;
+		this.parentPageTitle = parentPageTitle;
+		this.pages = pages == null ? new ArrayList<PageTreeEntry>() : pages;
+	}
+
+	public String getSpaceKey() {
+		return spaceKey;
+	}
+
+	public String getParentPageTitle() {
+		return parentPageTitle;
+	}
+
+	public List<PageTreeEntry> getPages() {
+		return pages;
+	}
+
+	@Override
+	protected boolean performStep(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+
+		StrSubstitutor varReplacer = getVariablesSubstitutor(build, listener);
+		PrintStream logger = listener.getLogger();
+
+		JIRAProjectCredentials jiraCred = getJiraCredentials();
+		ConfluenceCredentials confCred = getConfluenceCredentials();
+
+		final JIRAAccessTool jira = new JIRAAccessTool(jiraCred.getUrl(), jiraCred.getUrlUsername(), jiraCred.getUrlPassword(), null, jiraCred.getProjectKey(), getJiraCredentialsID(), jiraCred.getConnectionSettings());
+		ConfluenceAccessTool confluence = new ConfluenceAccessTool(confCred.getUrl(), confCred.getUrlUsername(), confCred.getUrlPassword(), null, confCred.getConnectionSettings());
+
+		String spaceKey = varReplacer.replace(this.spaceKey);
+		String rootParentTitle = StringUtils.defaultString(varReplacer.replace(this.parentPageTitle));
+
+		//the tickets of all pages are queried concurrently
+		List<Callable<PageSpec>> queries = new ArrayList<Callable<PageSpec>>();
+		for (PageTreeEntry page : pages) {
+			final String title = varReplacer.replace(page.getTitle());
+			String parentTitle = StringUtils.defaultString(varReplacer.replace(page.getParentTitle()));
+			final String finalParentTitle = parentTitle.isEmpty() ? rootParentTitle : parentTitle;
+			final String jqlFilter = varReplacer.replace(page.getJqlFilter());
+			queries.add(new Callable<PageSpec>() {
+				@Override
+				public PageSpec call() {
+					List<Issue> tickets = jira.getTicketsByJQL(jqlFilter);
+					return new PageSpec(title, finalParentTitle.isEmpty() ? null : finalParentTitle, jira.buildReleaseNotesHTML(tickets));
+				}
+			});
+		}
+		List<PageSpec> specs = StepExecutor.invokeAll("JIRA query", queries, PUBLISH_THREADS);
+
+		logger.println("Publishing " + specs.size() + " pages in space '" + spaceKey + "' on confluence.");
+		long start = System.currentTimeMillis();
+		List<PublishedPage> published = confluence.publishPageTree(specs, spaceKey, PUBLISH_THREADS);
+		for (PublishedPage page : published) {
+			logger.println(StringUtils.repeat("  ", page.getDepth()) + page.getTitle() + " (id " + page.getPageID() + "): "
+					+ page.getOutcome().toString().toLowerCase() + " in " + page.getDurationMillis() + " ms");
+		}
+		logger.println("Published the page tree in " + (System.currentTimeMillis() - start) + " ms.");
+
+		confluence.destroy();
+		jira.destroy();
+
+		return true;
+	}
+
+	/**
+	 * Descriptor class.
+	 * @author Jonas Kunz
+	 *
+	 */
+	@Extension
+	public static class DescriptorImpl extends AbstractJIRAConfluenceAction.DescriptorImpl {
+
+		/**
+		 * Constructor.
+		 */
+		public DescriptorImpl() {
+			super();
+			load();
+		}
+
+		@Override
+		public String getDisplayName() {
+			return "Publish a Page Tree on Confluence";
+		}
+
+	}
+
+}
@@ -1,23 +1,48 @@
 package rocks.inspectit.releaseplugin.releasenotes;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.text.StrSubstitutor;
 import org.kohsuke.stapler.DataBoundConstructor;
 
-import com.atlassian.jira.rest.client.api.domain.Issue;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
 
 import hudson.Extension;
+import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
 import rocks.inspectit.releaseplugin.AbstractJIRAConfluenceAction;
 import rocks.inspectit.releaseplugin.ConfluenceAccessTool;
+import rocks.inspectit.releaseplugin.ConfluenceAccessTool.UpsertResult;
 import rocks.inspectit.releaseplugin.JIRAAccessTool;
+import rocks.inspectit.releaseplugin.confluence.Attachment;
+import rocks.inspectit.releaseplugin.confluence.Page;
+import rocks.inspectit.releaseplugin.confluence.PageProperty;
 import rocks.inspectit.releaseplugin.credentials.ConfluenceCredentials;
 import rocks.inspectit.releaseplugin.credentials.JIRAProjectCredentials;
+import rocks.inspectit.releaseplugin.http.HttpStatusException;
+import rocks.inspectit.releaseplugin.http.MultipartFileEntity.ContentSource;
+import rocks.inspectit.releaseplugin.http.StepExecutor;
+import rocks.inspectit.releaseplugin.jira.Issue;
 
 /**
  * 
@@ -28,6 +53,27 @@ import rocks.inspectit.releaseplugin.credentials.JIRAProjectCredentials;
  */
 public class ConfluenceReleaseNotesPublisher extends AbstractJIRAConfluenceAction {
 	
+	/**
+	 * Default value of {@link #maxTicketsPerPage}.
+	 */
+	public static final int DEFAULT_MAX_TICKETS_PER_PAGE = 500;
+	/**
+	 * The maximum number of child pages written at the same time in sharding mode.
+	 */
+	private static final int SHARD_PUBLISH_THREADS = 4;
+	/**
+	 * The maximum size of the content of a child page in sharding mode, in characters of storage format.
+	 */
+	private static final int MAX_SHARD_HTML_CHARS = 200000;
+	/**
+	 * Added to the period queried for changed tickets in incremental mode, covers clock differences between Jenkins and JIRA.
+	 */
+	private static final int INCREMENTAL_MARGIN_MINUTES = 5;
+	/**
+	 * The maximum number of files uploaded at the same time.
+	 */
+	private static final int ATTACHMENT_UPLOAD_THREADS = 4;
+	
 	/**
 	 * The space under which the page shal lbe published.
 	 */
@@ -44,6 +90,26 @@ public class ConfluenceReleaseNotesPublisher extends AbstractJIRAConfluenceActio
 	 * Title of the parent page.
 	 */
 	private String parentPageTitle;
+	/**
+	 * If true, an existing page with the same title is updated instead of creating a new page.
+	 */
+	private boolean updateExistingPage;
+	/**
+	 * If true, the tickets are published on one child page per issue type, the page itself only lists the child pages.
+	 */
+	private boolean shardByIssueType;
+	/**
+	 * The maximum number of tickets per child page in sharding mode, larger issue types are split into multiple pages.
+	 */
+	private int maxTicketsPerPage;
+	/**
+	 * If true, the published tickets are stored with the page and only tickets changed since the last run are queried.
+	 */
+	private boolean incremental;
+	/**
+	 * File patterns of the files in the workspace to attach to the page, separated by comma.
+	 */
+	private String attachmentPatterns;
 	
 	
 
@@ -58,16 +124,27 @@ public class ConfluenceReleaseNotesPublisher extends AbstractJIRAConfluenceActio
 	 * @param jqlFilter the jql filter
 	 * @param pageTitle the title of the new page
 	 * @param parentPageTitle the title of the parent page
+	 * @param updateExistingPage true, if an existing page with the same title shall be updated
+	 * @param shardByIssueType true, if the tickets shall be published on one child page per issue type
+	 * @param maxTicketsPerPage the maximum number of tickets per child page
+	 * @param incremental true, if only the tickets changed since the last run shall be queried
+	 * @param attachmentPatterns the file patterns of the files to attach to the page
 	 */
 	@DataBoundConstructor
 	public ConfluenceReleaseNotesPublisher(String jiraCredentialsID,
 			String confluenceCredentialsID, String spaceKey, String jqlFilter,
-			String pageTitle, String parentPageTitle) {
+			String pageTitle, String parentPageTitle, boolean updateExistingPage,
+			boolean shardByIssueType, int maxTicketsPerPage, boolean incremental, String attachmentPatterns) {
 		super(jiraCredentialsID, confluenceCredentialsID);
 		this.spaceKey = spaceKey;
 		this.jqlFilter = jqlFilter;
 		this.pageTitle = pageTitle;
 		this.parentPageTitle = parentPageTitle;
+		this.updateExistingPage = updateExistingPage;
+		this.shardByIssueType = shardByIssueType;
+		this.maxTicketsPerPage = maxTicketsPerPage;
+		this.incremental = incremental;
+		this.attachmentPatterns = attachmentPatterns;
 	}
 
 	public String getSpaceKey() {
@@ -85,9 +162,29 @@ public class ConfluenceReleaseNotesPublisher extends AbstractJIRAConfluenceActio
 	public String getParentPageTitle() {
 		return parentPageTitle;
 	}
+	
+	public boolean isUpdateExistingPage() {
+		return updateExistingPage;
+	}
+	
+	public boolean isShardByIssueType() {
+		return shardByIssueType;
+	}
+	
+	public int getMaxTicketsPerPage() {
+		return maxTicketsPerPage > 0 ? maxTicketsPerPage : DEFAULT_MAX_TICKETS_PER_PAGE;
+	}
+	
+	public boolean isIncremental() {
+		return incremental;
+	}
+	
+	public String getAttachmentPatterns() {
+		return attachmentPatterns;
+	}
 
 	@Override
-	public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+	protected boolean performStep(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
 
 		
 		StrSubstitutor varReplacer = getVariablesSubstitutor(build, listener);
@@ -96,34 +193,74 @@ public class ConfluenceReleaseNotesPublisher extends AbstractJIRAConfluenceActio
 		JIRAProjectCredentials jiraCred = getJiraCredentials();
 		ConfluenceCredentials confCred = getConfluenceCredentials();
 		
-		JIRAAccessTool jira = new JIRAAccessTool(jiraCred.getUrl(), jiraCred.getUrlUsername(), jiraCred.getUrlPassword(),null, jiraCred.getProjectKey(), getJiraCredentialsID());
-		ConfluenceAccessTool confluence = new ConfluenceAccessTool(confCred.getUrl(), confCred.getUrlUsername(), confCred.getUrlPassword(), null);
+		JIRAAccessTool jira = new JIRAAccessTool(jiraCred.getUrl(), jiraCred.getUrlUsername(), jiraCred.getUrlPassword(),null, jiraCred.getProjectKey(), getJiraCredentialsID(), jiraCred.getConnectionSettings());
+		ConfluenceAccessTool confluence = new ConfluenceAccessTool(confCred.getUrl(), confCred.getUrlUsername(), confCred.getUrlPassword(), null, confCred.getConnectionSettings());
 
 		String jqlFilter = varReplacer.replace(this.jqlFilter);
 		String spaceKey = varReplacer.replace(this.spaceKey);
 		String pageTitle = varReplacer.replace(this.pageTitle);
 		String parentPageTitle = varReplacer.replace(this.parentPageTitle);
 		
-		List<Issue> tickets = jira.getTicketsByJQL(jqlFilter);
-		
-		logger.println("Publishing " + tickets.size() + " tickets on page '" + pageTitle + "' in space '" + spaceKey + "' on confluence.");
-		
-		String pageHTML = jira.buildReleaseNotesHTML(tickets);
+		long queryTime = System.currentTimeMillis();
+		Page page = null;
+		Map<String, PageProperty> publishedProperties = new HashMap<String, PageProperty>();
+		PublishedTickets published = null;
+		if (incremental) {
+			page = confluence.findPage(pageTitle, spaceKey);
+			published = page == null ? null : loadPublishedTickets(confluence, page.getId(), publishedProperties);
+			if (published != null && !published.getJql().equals(jqlFilter)) {
+				logger.println("The JQL filter has changed since the last run, all tickets are published again.");
+				published = null;
+			}
+		}
 		
-		Long parentPageID = null;
-		if (!parentPageTitle.isEmpty()) {
-			List<Long> results = confluence.getPageIDByTitle(parentPageTitle, spaceKey);		
-			if (results.size() == 0) {				
-				throw new RuntimeException("No page with title '" + parentPageTitle + "' found!");
+		List<Issue> tickets;
+		Set<String> affectedIssueTypes = null;
+		if (published == null) {
+			tickets = jira.getTicketsByJQL(jqlFilter);
+		} else {
+			long minutes = TimeUnit.MILLISECONDS.toMinutes(queryTime - published.getQueriedAtMillis()) + 1 + INCREMENTAL_MARGIN_MINUTES;
+			List<Issue> changed = jira.getTicketsByJQL(JIRAAccessTool.restrictJQL(jqlFilter, "updated >= -" + minutes + "m"));
+			List<Issue> unmatched = new ArrayList<Issue>();
+			String condition = JIRAAccessTool.getJQLCondition(jqlFilter);
+			//without condition the filter matches all tickets
+			if (!published.getTickets().isEmpty() && !condition.isEmpty()) {
+				unmatched = jira.getTicketsByJQL("project in (" + StringUtils.join(published.getProjectKeys(), ", ") + ") AND updated >= -" + minutes
+						+ "m AND NOT (" + condition + ")");
+			}
+			int removed = 0;
+			for (Issue ticket : unmatched) {
+				if (published.contains(ticket.getKey())) {
+					removed++;
+				}
 			}
-			if (results.size() > 1) {				
-				throw new RuntimeException("Multiple pages with title '" + parentPageTitle + "' found!");
+			affectedIssueTypes = new HashSet<String>();
+			tickets = published.merge(changed, unmatched, affectedIssueTypes);
+			logger.println(changed.size() + " tickets have been added or updated and " + removed + " tickets have been removed since the last run.");
+			//deleted or moved tickets show up in neither query, they are only noticed by the number of matching tickets
+			if (jira.countTicketsByJQL(jqlFilter) != tickets.size()) {
+				logger.println("Tickets have been deleted or moved since the last run, all tickets are published again.");
+				tickets = jira.getTicketsByJQL(jqlFilter);
+				affectedIssueTypes = null;
 			}
-			parentPageID = results.get(0);
 		}
 		
+		long pageID;
+		if (affectedIssueTypes != null && affectedIssueTypes.isEmpty()) {
+			logger.println("The release notes on page '" + pageTitle + "' are up to date.");
+			pageID = page.getId();
+		} else {
+			logger.println("Publishing " + tickets.size() + " tickets on page '" + pageTitle + "' in space '" + spaceKey + "' on confluence.");
+			pageID = publishBelowParent(jira, confluence, tickets, affectedIssueTypes, pageTitle, spaceKey, parentPageTitle, logger);
+		}
+		
+		if (incremental) {
+			storePublishedTickets(confluence, pageID, new PublishedTickets(jqlFilter, queryTime, tickets), publishedProperties, logger);
+		}
 		
-		confluence.createPage(pageTitle, pageHTML, spaceKey, parentPageID);
+		if (attachmentPatterns != null && !attachmentPatterns.trim().isEmpty()) {
+			attachFiles(confluence, build.getWorkspace().list(varReplacer.replace(attachmentPatterns)), pageID, logger);
+		}
 			
 
 		confluence.destroy();
@@ -132,6 +269,322 @@ public class ConfluenceReleaseNotesPublisher extends AbstractJIRAConfluenceActio
 		return true;
 	}
 
+	/**
+	 * Loads the tickets published by the last run from the properties of the page.
+	 * 
+	 * @param confluence the confluence connection
+	 * @param pageID the id of the page
+	 * @param properties filled with the properties read, indexed by key
+	 * @return the published tickets, null if they are missing or incomplete
+	 */
+	private PublishedTickets loadPublishedTickets(ConfluenceAccessTool confluence, long pageID, Map<String, PageProperty> properties) {
+		PageProperty main = confluence.getPageProperty(pageID, PublishedTickets.PROPERTY);
+		if (main == null) {
+			return null;
+		}
+		properties.put(main.getKey(), main);
+		List<String> hashes = PublishedTickets.getPartHashes(main.getValue());
+		if (hashes == null) {
+			return null;
+		}
+		List<JsonElement> parts = new ArrayList<JsonElement>();
+		for (int i = 0; i < hashes.size(); i++) {
+			PageProperty part = confluence.getPageProperty(pageID, PublishedTickets.getPartProperty(i));
+			if (part == null) {
+				return null;
+			}
+			properties.put(part.getKey(), part);
+			parts.add(part.getValue());
+		}
+		return PublishedTickets.fromJson(main.getValue(), parts);
+	}
+
+	/**
+	 * Stores the published tickets in the properties of the page, only the parts which have changed are written.
+	 * The main property is written last, so that it never refers to parts which have not been written.
+	 * If the tickets need more than {@link PublishedTickets#MAX_PARTS} parts, they are not stored and the next run publishes all tickets.
+	 * 
+	 * @param confluence the confluence connection
+	 * @param pageID the id of the page
+	 * @param published the tickets to store
+	 * @param properties the properties read by {@link #loadPublishedTickets(ConfluenceAccessTool, long, Map)}, indexed by key
+	 * @param logger the build log
+	 */
+	private void storePublishedTickets(ConfluenceAccessTool confluence, long pageID, PublishedTickets published,
+			Map<String, PageProperty> properties, PrintStream logger) {
+		List<JsonArray> parts = published.toParts();
+		if (parts.size() > PublishedTickets.MAX_PARTS) {
+			logger.println("Too many tickets to store them with the page, the next run publishes all tickets again.");
+			parts = null;
+		} else {
+			for (int i = 0; i < parts.size(); i++) {
+				String key = PublishedTickets.getPartProperty(i);
+				PageProperty existing = properties.containsKey(key) ? properties.get(key) : confluence.getPageProperty(pageID, key);
+				if (existing == null || !parts.get(i).equals(existing.getValue())) {
+					confluence.setPageProperty(pageID, key, parts.get(i), existing == null ? 0 : existing.getVersion());
+				}
+			}
+		}
+		PageProperty main = properties.containsKey(PublishedTickets.PROPERTY) ? properties.get(PublishedTickets.PROPERTY)
+				: confluence.getPageProperty(pageID, PublishedTickets.PROPERTY);
+		confluence.setPageProperty(pageID, PublishedTickets.PROPERTY, published.toJson(parts), main == null ? 0 : main.getVersion());
+	}
+
+	/**
+	 * Attaches the given files to the page, files whose content equals the latest version of the existing attachment are skipped.
+	 * The size and the MD5 hash of each file are computed on the node holding the workspace, the content is streamed from there
+	 * without being buffered. The files are uploaded concurrently.
+	 * 
+	 * @param confluence the confluence connection
+	 * @param files the files to attach
+	 * @param pageID the id of the page
+	 * @param logger the build log
+	 * @throws InterruptedException if the build is interrupted while the files are uploaded
+	 */
+	private void attachFiles(final ConfluenceAccessTool confluence, FilePath[] files, final long pageID, PrintStream logger) throws InterruptedException {
+		Map<String, Attachment> attachments = confluence.getAttachments(pageID);
+		Map<String, FilePath> filesByName = new LinkedHashMap<String, FilePath>();
+		for (FilePath file : files) {
+			if (filesByName.containsKey(file.getName())) {
+				logger.println("Skipping " + file.getRemote() + ", another file named '" + file.getName() + "' is already attached.");
+			} else {
+				filesByName.put(file.getName(), file);
+			}
+		}
+		
+		List<Callable<Boolean>> uploads = new ArrayList<Callable<Boolean>>();
+		for (final FilePath file : filesByName.values()) {
+			final Attachment existing = attachments.get(file.getName());
+			uploads.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					String mimeType = URLConnection.guessContentTypeFromName(file.getName());
+					if (mimeType == null) {
+						mimeType = "application/octet-stream";
+					}
+					return confluence.uploadAttachment(pageID, existing, file.getName(), mimeType, file.length(), file.digest(), new ContentSource() {
+						@Override
+						public InputStream open() throws IOException, InterruptedException {
+							return file.read();
+						}
+					});
+				}
+			});
+		}
+		
+		List<Boolean> uploaded = StepExecutor.invokeAll("Confluence attachment upload", uploads, ATTACHMENT_UPLOAD_THREADS);
+		int skipped = 0;
+		for (Boolean upload : uploaded) {
+			if (!upload) {
+				skipped++;
+			}
+		}
+		logger.println("Attached " + (uploaded.size() - skipped) + " files to page '" + pageID + "', " + skipped + " unchanged files were skipped.");
+	}
+
+	/**
+	 * Publishes the release notes below the given parent page.
+	 * If publishing fails, the parent page is resolved again in case the cached id of the parent page is stale.
+	 * 
+	 * @param jira the jira connection
+	 * @param confluence the confluence connection
+	 * @param tickets the tickets to publish
+	 * @param affectedIssueTypes the issue types whose tickets have changed since the last run, null if unknown
+	 * @param pageTitle the title of the page
+	 * @param spaceKey the space key
+	 * @param parentPageTitle the title of the parent page, empty for publishing at the root of the space
+	 * @param logger the build log
+	 * @return the id of the page
+	 * @throws InterruptedException if the build is interrupted while the child pages are published
+	 */
+	private long publishBelowParent(JIRAAccessTool jira, ConfluenceAccessTool confluence, List<Issue> tickets, Set<String> affectedIssueTypes,
+			String pageTitle, String spaceKey, String parentPageTitle, PrintStream logger) throws InterruptedException {
+		Long parentPageID = null;
+		if (!parentPageTitle.isEmpty()) {
+			parentPageID = resolveParentPage(confluence, parentPageTitle, spaceKey);
+		}
+		
+		try {
+			return publish(jira, confluence, tickets, affectedIssueTypes, pageTitle, spaceKey, parentPageID, logger);
+		} catch (RuntimeException e) {
+			if (parentPageID == null || !(e.getCause() instanceof HttpStatusException)) {
+				throw e;
+			}
+			//the cached id of the parent page may be stale, e.g. because the parent page has been recreated
+			confluence.invalidatePageID(parentPageTitle, spaceKey);
+			Long currentParentPageID = resolveParentPage(confluence, parentPageTitle, spaceKey);
+			if (currentParentPageID.equals(parentPageID)) {
+				throw e;
+			}
+			return publish(jira, confluence, tickets, affectedIssueTypes, pageTitle, spaceKey, currentParentPageID, logger);
+		}
+	}
+
+	/**
+	 * Resolves the id of the parent page.
+	 * 
+	 * @param confluence the confluence connection
+	 * @param parentPageTitle the title of the parent page
+	 * @param spaceKey the space key
+	 * @return the id of the parent page
+	 */
+	private Long resolveParentPage(ConfluenceAccessTool confluence, String parentPageTitle, String spaceKey) {
+		Long id = confluence.resolvePageID(parentPageTitle, spaceKey);
+		if (id == null) {
+			throw new RuntimeException("No page with title '" + parentPageTitle + "' found!");
+		}
+		return id;
+	}
+
+	/**
+	 * Publishes the release notes, either on a single page or sharded into child pages.
+	 * 
+	 * @param jira the jira connection
+	 * @param confluence the confluence connection
+	 * @param tickets the tickets to publish
+	 * @param affectedIssueTypes the issue types whose tickets have changed since the last run, null if unknown
+	 * @param pageTitle the title of the page
+	 * @param spaceKey the space key
+	 * @param parentPageID the id of the parent page, can be null
+	 * @param logger the build log
+	 * @return the id of the page
+	 * @throws InterruptedException if the build is interrupted while the child pages are published
+	 */
+	private long publish(JIRAAccessTool jira, ConfluenceAccessTool confluence, List<Issue> tickets, Set<String> affectedIssueTypes,
+			String pageTitle, String spaceKey, Long parentPageID, PrintStream logger) throws InterruptedException {
+		if (shardByIssueType) {
+			return publishShards(jira, confluence, tickets, affectedIssueTypes, pageTitle, spaceKey, parentPageID, logger);
+		} else {
+			return publishPage(confluence, pageTitle, jira.buildReleaseNotesHTML(tickets), spaceKey, parentPageID, logger);
+		}
+	}
+
+	/**
+	 * Publishes one child page per issue type below a summary page linking them.
+	 * Issue types with more tickets than {@link #getMaxTicketsPerPage()} or more content than {@link #MAX_SHARD_HTML_CHARS}
+	 * are split into multiple child pages, the first one is named after the issue type and the following ones are numbered.
+	 * All pages are only written if their content has changed, the child pages are written concurrently.
+	 * If the changed issue types are known, the child pages of all other issue types are not even read.
+	 * Child pages which are no longer produced are deleted if they have been written by this plugin and reported otherwise.
+	 * 
+	 * @param jira the jira connection
+	 * @param confluence the confluence connection
+	 * @param tickets the tickets to publish
+	 * @param affectedIssueTypes the issue types whose tickets have changed since the last run, null if unknown
+	 * @param pageTitle the title of the summary page, the child pages are named after it
+	 * @param spaceKey the space key
+	 * @param parentPageID the id of the parent page of the summary page, can be null
+	 * @param logger the build log
+	 * @return the id of the summary page
+	 * @throws InterruptedException if the build is interrupted while the child pages are published
+	 */
+	private long publishShards(final JIRAAccessTool jira, final ConfluenceAccessTool confluence, List<Issue> tickets, Set<String> affectedIssueTypes,
+			String pageTitle, final String spaceKey, Long parentPageID, PrintStream logger) throws InterruptedException {
+		String shardPrefix = pageTitle + " - ";
+		Set<String> producedTitles = new LinkedHashSet<String>();
+		Map<String, List<Issue>> shards = new LinkedHashMap<String, List<Issue>>();
+		StringBuilder summaryHTML = new StringBuilder();
+		summaryHTML.append("<p>").append(tickets.size()).append(" tickets</p><ul>");
+		for (Map.Entry<String, List<Issue>> group : jira.groupByIssueType(tickets).entrySet()) {
+			List<Issue> issues = group.getValue();
+			List<List<Issue>> parts = splitShard(jira, issues);
+			summaryHTML.append("<li>").append(StringEscapeUtils.escapeXml(group.getKey())).append(" (").append(issues.size()).append(" tickets)");
+			for (int part = 0; part < parts.size(); part++) {
+				//the titles must not depend on the number of parts, otherwise all pages of an issue type are renamed if it grows
+				String shardTitle = shardPrefix + group.getKey() + (part > 0 ? " (Part " + (part + 1) + ")" : "");
+				producedTitles.add(shardTitle);
+				if (affectedIssueTypes == null || affectedIssueTypes.contains(group.getKey())) {
+					shards.put(shardTitle, parts.get(part));
+				}
+				summaryHTML.append(part == 0 ? ": " : ", ")
+						.append("<ac:link><ri:page ri:content-title=\"").append(StringEscapeUtils.escapeXml(shardTitle)).append("\"/></ac:link>");
+			}
+			summaryHTML.append("</li>");
+		}
+		summaryHTML.append("</ul>");
+
+		UpsertResult summary = confluence.upsertPage(pageTitle, summaryHTML.toString(), spaceKey, parentPageID);
+		logger.println("Page '" + pageTitle + "': " + summary.getOutcome().name().toLowerCase());
+		final long summaryPageID = summary.getPageID();
+
+		final List<String> shardTitles = new ArrayList<String>(shards.keySet());
+		List<Callable<UpsertResult>> tasks = new ArrayList<Callable<UpsertResult>>();
+		for (final Map.Entry<String, List<Issue>> shard : shards.entrySet()) {
+			tasks.add(new Callable<UpsertResult>() {
+				@Override
+				public UpsertResult call() {
+					return confluence.upsertPage(shard.getKey(), jira.buildIssueListHTML(shard.getValue()), spaceKey, summaryPageID);
+				}
+			});
+		}
+		List<UpsertResult> results = StepExecutor.invokeAll("Confluence release notes", tasks, SHARD_PUBLISH_THREADS);
+		for (int i = 0; i < results.size(); i++) {
+			logger.println("Page '" + shardTitles.get(i) + "': " + results.get(i).getOutcome().name().toLowerCase());
+		}
+
+		for (Page child : confluence.getChildPages(summaryPageID)) {
+			if (child.getTitle().startsWith(shardPrefix) && !producedTitles.contains(child.getTitle())) {
+				if (child.getContentHash() != null) {
+					confluence.deletePage(child.getId());
+					confluence.invalidatePageID(child.getTitle(), spaceKey);
+					logger.println("Page '" + child.getTitle() + "': deleted, it is no longer produced");
+				} else {
+					logger.println("Page '" + child.getTitle() + "': no longer produced, not deleted as it has not been written by this plugin");
+				}
+			}
+		}
+		return summaryPageID;
+	}
+
+	/**
+	 * Splits the tickets of an issue type into the parts published on separate child pages.
+	 * A new part is started when either {@link #getMaxTicketsPerPage()} or {@link #MAX_SHARD_HTML_CHARS} would be exceeded.
+	 * 
+	 * @param jira the jira connection
+	 * @param issues the tickets of the issue type
+	 * @return the parts in the order of the tickets
+	 */
+	private List<List<Issue>> splitShard(JIRAAccessTool jira, List<Issue> issues) {
+		int maxTickets = getMaxTicketsPerPage();
+		List<List<Issue>> parts = new ArrayList<List<Issue>>();
+		int start = 0;
+		int chars = 0;
+		for (int i = 0; i < issues.size(); i++) {
+			int ticketChars = jira.buildIssueListHTML(Collections.singletonList(issues.get(i))).length();
+			if (i > start && (i - start >= maxTickets || chars + ticketChars > MAX_SHARD_HTML_CHARS)) {
+				parts.add(issues.subList(start, i));
+				start = i;
+				chars = 0;
+			}
+			chars += ticketChars;
+		}
+		if (start < issues.size()) {
+			parts.add(issues.subList(start, issues.size()));
+		}
+		return parts;
+	}
+
+	/**
+	 * Creates or updates the release notes page.
+	 * 
+	 * @param confluence the confluence connection
+	 * @param pageTitle the title of the page
+	 * @param pageHTML the content of the page
+	 * @param spaceKey the space key
+	 * @param parentPageID the id of the parent page, can be null
+	 * @param logger the build log
+	 * @return the id of the page
+	 */
+	private long publishPage(ConfluenceAccessTool confluence, String pageTitle, String pageHTML, String spaceKey, Long parentPageID, PrintStream logger) {
+		if (updateExistingPage || incremental) {
+			UpsertResult result = confluence.upsertPage(pageTitle, pageHTML, spaceKey, parentPageID);
+			logger.println("Page '" + pageTitle + "': " + result.getOutcome().name().toLowerCase());
+			return result.getPageID();
+		} else {
+			return confluence.createPage(pageTitle, pageHTML, spaceKey, parentPageID);
+		}
+	}
+
 
 
 
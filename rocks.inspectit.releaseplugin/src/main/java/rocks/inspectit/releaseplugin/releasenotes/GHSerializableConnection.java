@@ -10,12 +10,16 @@ import static org.jenkinsci.plugins.github.config.GitHubServerConfig.withHost;
 import static org.jenkinsci.plugins.github.internal.GitHubClientCacheOps.toCacheDir;
 import static org.jenkinsci.plugins.github.util.FluentIterableWrapper.from;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.HttpURLConnection;
 import java.net.Proxy;
 import java.net.SocketAddress;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import jenkins.model.Jenkins;
 
@@ -26,11 +30,23 @@ import org.kohsuke.github.GitHubBuilder;
 import org.kohsuke.github.HttpConnector;
 import org.kohsuke.github.RateLimitHandler;
 
+import rocks.inspectit.releaseplugin.http.CircuitBreaker;
+import rocks.inspectit.releaseplugin.http.CircuitOpenException;
+import rocks.inspectit.releaseplugin.http.Deadline;
+import rocks.inspectit.releaseplugin.http.DeadlineExceededException;
+import rocks.inspectit.releaseplugin.http.RequestMetrics;
+import rocks.inspectit.releaseplugin.http.RequestTimer;
+
 import com.cloudbees.jenkins.GitHubRepositoryName;
 import com.cloudbees.jenkins.GitHubWebHook;
 import com.squareup.okhttp.Cache;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.OkUrlFactory;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
 
 public class GHSerializableConnection implements Serializable{
 
@@ -39,6 +55,13 @@ public class GHSerializableConnection implements Serializable{
 	 */
 	private static final long serialVersionUID = -5248990998725615329L;
 	
+	/**
+	 * The clients of this JVM, indexed by their proxy.
+	 * A connection is serialized for every call to an agent, so the clients are shared to build them only once per agent
+	 * and to reuse their connection pools across uploads.
+	 */
+	private static final ConcurrentMap<Proxy, OkHttpClient> CLIENTS = new ConcurrentHashMap<Proxy, OkHttpClient>();
+	
 	private String accessToken;
 	private String apiUrl;
 	
@@ -90,12 +113,64 @@ public class GHSerializableConnection implements Serializable{
 		return totalRepoName;
 	}
 	
-	private HttpConnector buildConnector() {
+	/**
+	 * Uploads a file as asset of a release with a single request, without loading the release through the GitHub API.
+	 * 
+	 * @param uploadUrl the upload url of the release as returned by GitHub, may still contain the url template
+	 * @param file the file to upload
+	 * @param mimeType the content type of the file
+	 * @throws IOException if the upload fails
+	 */
+	public void uploadAsset(String uploadUrl, File file, String mimeType) throws IOException {
+		//the upload url is returned as template, e.g. ".../assets{?name,label}"
+		int templateStart = uploadUrl.indexOf('{');
+		if (templateStart != -1) {
+			uploadUrl = uploadUrl.substring(0, templateStart);
+		}
+		String url = uploadUrl + "?name=" + URLEncoder.encode(file.getName(), "UTF-8").replace("+", "%20");
+		
+		Request request = new Request.Builder()
+				.url(url)
+				.header("Authorization", "token " + accessToken)
+				.header("Accept", "application/vnd.github.v3+json")
+				.post(RequestBody.create(MediaType.parse(mimeType), file))
+				.build();
+		Response response = getClient().newCall(request).execute();
+		try {
+			if (!response.isSuccessful()) {
+				throw new IOException("GitHub rejected the asset " + file.getName() + ": " + response.code() + " " + response.message()
+						+ " - " + response.body().string());
+			}
+		} finally {
+			response.body().close();
+		}
+	}
+	
+	/**
+	 * @return the shared client of this JVM for the proxy of this connection
+	 */
+	private OkHttpClient getClient() {
 		Proxy proxy = Proxy.NO_PROXY;
 		if(proxySocketAdress != null) {
 			proxy = new Proxy(proxyType, proxySocketAdress);
 		}
-		OkHttpClient client = new OkHttpClient().setProxy(proxy);
+		OkHttpClient client = CLIENTS.get(proxy);
+		if (client == null) {
+			client = new OkHttpClient().setProxy(proxy);
+			//application interceptors are not supported by the url factory
+			client.networkInterceptors().add(new DeadlineInterceptor());
+			client.networkInterceptors().add(new CircuitBreakerInterceptor());
+			client.networkInterceptors().add(new MetricsInterceptor());
+			OkHttpClient existing = CLIENTS.putIfAbsent(proxy, client);
+			if (existing != null) {
+				client = existing;
+			}
+		}
+		return client;
+	}
+	
+	private HttpConnector buildConnector() {
+		OkHttpClient client = getClient();
 		//Use default caching
 		/*
         if (config.getClientCacheSize() > 0) {
@@ -107,6 +182,78 @@ public class GHSerializableConnection implements Serializable{
         return new OkHttpConnector(new OkUrlFactory(client));
 	}
 	
+	/**
+	 * Records all requests to GitHub in the {@link RequestMetrics}.
+	 * As the connection may be used on an agent, the requests are recorded in the metrics of the JVM executing them.
+	 * The latency is measured until the response headers have been received, as the body is consumed by the GitHub API.
+	 */
+	private static class MetricsInterceptor implements Interceptor {
+
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			Request request = chain.request();
+			RequestTimer timer = RequestMetrics.start(request.url().getAuthority(), request.method(), request.url().getPath());
+			int status = 0;
+			try {
+				if (request.body() != null) {
+					timer.addSentBytes(request.body().contentLength());
+				}
+				Response response = chain.proceed(request);
+				status = response.code();
+				timer.addReceivedBytes(response.body().contentLength());
+				return response;
+			} finally {
+				timer.finish(status);
+			}
+		}
+	}
+
+	/**
+	 * Stops requests to GitHub from being sent once the {@link Deadline} of the calling thread has been reached.
+	 */
+	private static class DeadlineInterceptor implements Interceptor {
+
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			Request request = chain.request();
+			try {
+				Deadline.current().check(request.method() + " " + request.url().getPath());
+			} catch (DeadlineExceededException e) {
+				//the GitHub API only expects I/O errors from its connector
+				throw new IOException(e.getMessage(), e);
+			}
+			return chain.proceed(request);
+		}
+	}
+
+	/**
+	 * Lets all requests to GitHub pass the {@link CircuitBreaker} of the server, so that they fail immediately while GitHub is unavailable.
+	 * As the connection may be used on an agent, the breaker of the JVM executing the requests is used.
+	 */
+	private static class CircuitBreakerInterceptor implements Interceptor {
+
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			Request request = chain.request();
+			CircuitBreaker breaker = CircuitBreaker.forHost(request.url().getAuthority());
+			try {
+				breaker.acquire(request.method() + " " + request.url().getPath());
+			} catch (CircuitOpenException e) {
+				//the GitHub API only expects I/O errors from its connector
+				throw new IOException(e.getMessage(), e);
+			}
+			Response response;
+			try {
+				response = chain.proceed(request);
+			} catch (IOException e) {
+				breaker.recordFailure();
+				throw e;
+			}
+			breaker.record(response.code());
+			return response;
+		}
+	}
+
 	/**
      * Copy-paste due to class loading issues
      *
@@ -2,9 +2,9 @@ package rocks.inspectit.releaseplugin.releasenotes;
 
 import hudson.EnvVars;
 import hudson.Extension;
-import hudson.FilePath;
 import hudson.FilePath.FileCallable;
 import hudson.Launcher;
+import hudson.Util;
 import hudson.model.Action;
 import hudson.model.BuildListener;
 import hudson.model.ItemGroup;
@@ -14,6 +14,7 @@ import hudson.model.AbstractProject;
 import hudson.model.Computer;
 import hudson.model.Job;
 import hudson.model.ParametersAction;
+import hudson.model.TaskListener;
 import hudson.remoting.VirtualChannel;
 import hudson.security.ACL;
 import hudson.security.AccessControlled;
@@ -26,10 +27,13 @@ import hudson.util.ListBoxModel;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.Serializable;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import jenkins.model.Jenkins;
 
@@ -38,15 +42,18 @@ import org.jenkinsci.remoting.RoleChecker;
 import org.kohsuke.github.GHRelease;
 import org.kohsuke.github.GHReleaseBuilder;
 import org.kohsuke.github.GHRepository;
-import org.kohsuke.github.GitHub;
-import org.kohsuke.github.PagedIterable;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import rocks.inspectit.releaseplugin.JIRAAccessTool;
 import rocks.inspectit.releaseplugin.credentials.JIRAProjectCredentials;
+import rocks.inspectit.releaseplugin.http.BuildRequestSummary;
+import rocks.inspectit.releaseplugin.http.CircuitOpenException;
+import rocks.inspectit.releaseplugin.http.Deadline;
+import rocks.inspectit.releaseplugin.http.DeadlineExceededException;
+import rocks.inspectit.releaseplugin.http.StepExecutor;
+import rocks.inspectit.releaseplugin.jira.Issue;
 
-import com.atlassian.jira.rest.client.api.domain.Issue;
 import com.cloudbees.jenkins.GitHubRepositoryName;
 import com.cloudbees.jenkins.GitHubRepositoryNameContributor;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
@@ -61,6 +68,10 @@ import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
  */
 public class GithubReleasePublisher extends Notifier {
 	
+	/**
+	 * Default value of {@link #maxConcurrentUploads}.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT_UPLOADS = 4;
 
 	/**
 	 * represents an internal id of the chosen credentials to access JIRA.
@@ -96,6 +107,11 @@ public class GithubReleasePublisher extends Notifier {
 	 */
 	private String artifactPatterns;
 	
+	/**
+	 * The maximum number of assets uploaded at the same time.
+	 */
+	private int maxConcurrentUploads;
+	
 
 	
 
@@ -112,11 +128,12 @@ public class GithubReleasePublisher extends Notifier {
 	 * @param releaseName the name
 	 * @param isPrerelease prerelease flag
 	 * @param artifactPatterns name patterns
+	 * @param maxConcurrentUploads the maximum number of assets uploaded at the same time
 	 */
 	@DataBoundConstructor
 	public GithubReleasePublisher(String jiraCredentialsID, String jqlFilter,
 			String repoName, String releaseTag, String releaseName, boolean isPrerelease,
-			String artifactPatterns) {
+			String artifactPatterns, int maxConcurrentUploads) {
 		this.jiraCredentialsID = jiraCredentialsID;
 		this.jqlFilter = jqlFilter;
 		this.repoName = repoName;
@@ -124,6 +141,7 @@ public class GithubReleasePublisher extends Notifier {
 		this.isPrerelease = isPrerelease;
 		this.artifactPatterns = artifactPatterns;
 		this.releaseName = releaseName;
+		this.maxConcurrentUploads = maxConcurrentUploads;
 	}
 
 	
@@ -154,12 +172,42 @@ public class GithubReleasePublisher extends Notifier {
 		return artifactPatterns;
 	}
 
+	public int getMaxConcurrentUploads() {
+		return maxConcurrentUploads > 0 ? maxConcurrentUploads : DEFAULT_MAX_CONCURRENT_UPLOADS;
+	}
+
 
 
 
 
 	@Override
-	public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, final BuildListener listener) throws InterruptedException, IOException {
+	public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+		BuildRequestSummary requests = BuildRequestSummary.start();
+		Deadline deadline = Deadline.start(requests);
+		try {
+			return publishRelease(build, listener, requests);
+		} catch (DeadlineExceededException e) {
+			listener.getLogger().println(e.getMessage());
+			return false;
+		} catch (CircuitOpenException e) {
+			listener.getLogger().println(e.getMessage());
+			return false;
+		} finally {
+			deadline.end();
+			requests.finish(build, listener.getLogger());
+		}
+	}
+
+	/**
+	 * Creates the release and uploads the assets.
+	 * @param build the current build
+	 * @param listener the listener of the current build
+	 * @param requests the summary of the requests of this step, the requests issued for uploading the assets are added to it
+	 * @return true, if the build can continue
+	 * @throws InterruptedException if the build is interrupted
+	 * @throws IOException if accessing the workspace fails
+	 */
+	private boolean publishRelease(AbstractBuild<?, ?> build, final BuildListener listener, BuildRequestSummary requests) throws InterruptedException, IOException {
 
 		
 		StrSubstitutor varReplacer = getVariablesSubstitutor(build, listener);
@@ -167,7 +215,7 @@ public class GithubReleasePublisher extends Notifier {
 
 		JIRAProjectCredentials jiraCred = getJiraCredentials();
 		
-		JIRAAccessTool jira = new JIRAAccessTool(jiraCred.getUrl(), jiraCred.getUrlUsername(), jiraCred.getUrlPassword(),null, jiraCred.getProjectKey(), getJiraCredentialsID());
+		JIRAAccessTool jira = new JIRAAccessTool(jiraCred.getUrl(), jiraCred.getUrlUsername(), jiraCred.getUrlPassword(),null, jiraCred.getProjectKey(), getJiraCredentialsID(), jiraCred.getConnectionSettings());
 		
 		String jqlFilter = varReplacer.replace(this.jqlFilter);
 		String repoName = varReplacer.replace(this.repoName);
@@ -208,14 +256,22 @@ public class GithubReleasePublisher extends Notifier {
 			
 			GHSerializableConnection ghConnection = new GHSerializableConnection(repositoryName);
 			
-			final GHRelease rel = releaseBuilder.create();
-			for (FilePath path : build.getWorkspace().list(artifactPatterns)) {
-
-				logger.println("Uploading asset to release: " + path.getName());
-				path.act(new GHReleaseFileCallable(ghConnection,releaseName));
-			}
-			
+			GHRelease rel = releaseBuilder.create();
+			//the assets are found and uploaded by the node holding the workspace in a single call,
+			//it uploads directly to the created release without looking it up again
+			GHReleaseAssetsCallable uploadCallable = new GHReleaseAssetsCallable(ghConnection, rel.getId(), rel.getUploadUrl(),
+					artifactPatterns, getMaxConcurrentUploads(), listener);
+			AssetUploads uploads = build.getWorkspace().act(uploadCallable);
+			requests.add(uploads.requests);
 			
+			if (!uploads.failed.isEmpty()) {
+				logger.println(uploads.failed.size() + " of " + uploads.assetCount + " assets could not be uploaded to release " + releaseName + ":");
+				for (AssetUpload upload : uploads.failed) {
+					logger.println("  " + upload.fileName + ": " + upload.failure);
+				}
+				jira.destroy();
+				return false;
+			}
 		}
 		
 		
@@ -225,6 +281,79 @@ public class GithubReleasePublisher extends Notifier {
 		return true;
 	}
 
+	/**
+	 * @param bytes a number of bytes
+	 * @return the number formatted as megabytes
+	 */
+	private static String formatMegabytes(long bytes) {
+		return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+	}
+
+	/**
+	 * The result of uploading a single asset.
+	 */
+	private static final class AssetUpload implements Serializable {
+
+		/**
+		 * Serialization UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The name of the uploaded file.
+		 */
+		private final String fileName;
+
+		/**
+		 * The reason why the upload failed, null if it succeeded.
+		 */
+		private final String failure;
+
+		/**
+		 * Creates a new result.
+		 * @param fileName the name of the uploaded file
+		 * @param failure the reason why the upload failed
+		 */
+		private AssetUpload(String fileName, String failure) {
+			this.fileName = fileName;
+			this.failure = failure;
+		}
+	}
+
+	/**
+	 * The result of uploading all assets of a release, returned by the node holding the workspace.
+	 */
+	private static final class AssetUploads implements Serializable {
+
+		/**
+		 * Serialization UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The number of assets matching the patterns.
+		 */
+		private final int assetCount;
+
+		/**
+		 * The uploads which failed.
+		 */
+		private final List<AssetUpload> failed = new ArrayList<AssetUpload>();
+
+		/**
+		 * The requests issued for the uploads.
+		 */
+		private BuildRequestSummary requests;
+
+		/**
+		 * Creates a new result.
+		 * @param assetCount the number of assets matching the patterns
+		 */
+		private AssetUploads(int assetCount) {
+			this.assetCount = assetCount;
+		}
+	}
+
 	
 	
 	
@@ -295,19 +424,41 @@ public class GithubReleasePublisher extends Notifier {
 
 
 	/**
-	 * Uploads a file as an asset to a certain github release.
+	 * Finds the assets within the workspace and uploads them to a certain github release.
+	 * Executed on the node holding the workspace, so that only the progress is sent back to the build log.
+	 * Returns the requests issued for the uploads, as it might be executed on an agent.
 	 * @author Jonas Kunz
 	 */
-	private static final class GHReleaseFileCallable implements
-			FileCallable<Void> {
+	private static final class GHReleaseAssetsCallable implements
+			FileCallable<AssetUploads> {
 		
 		
 		GHSerializableConnection ghConnection;
 
 		/**
-		 * the release the file will be uploaded to.
+		 * the id of the release the file will be uploaded to.
 		 */
-		private final String releaseName;
+		private final long releaseID;
+		
+		/**
+		 * the upload url of the release the file will be uploaded to.
+		 */
+		private final String uploadUrl;
+		
+		/**
+		 * commas-seperated file patterns for the files to upload, relative to the workspace.
+		 */
+		private final String artifactPatterns;
+		
+		/**
+		 * The maximum number of assets uploaded at the same time.
+		 */
+		private final int maxConcurrentUploads;
+		
+		/**
+		 * The listener of the build, its log is forwarded to the master.
+		 */
+		private final TaskListener listener;
 		
 		/**
 		 * Serialization UID.
@@ -316,14 +467,21 @@ public class GithubReleasePublisher extends Notifier {
 
 		/**
 		 * Constructor.
-		 * @param host the repo host
-		 * @param username the repo owner
-		 * @param repoName the name of the repo
-		 * @param releaseName the name of the release
+		 * @param ghConnection the connection to GitHub
+		 * @param releaseID the id of the release
+		 * @param uploadUrl the upload url of the release
+		 * @param artifactPatterns the patterns of the files to upload
+		 * @param maxConcurrentUploads the maximum number of assets uploaded at the same time
+		 * @param listener the listener of the build
 		 */
-		private GHReleaseFileCallable(GHSerializableConnection ghConnection, String releaseName) {
-			this.releaseName = releaseName;
+		private GHReleaseAssetsCallable(GHSerializableConnection ghConnection, long releaseID, String uploadUrl,
+				String artifactPatterns, int maxConcurrentUploads, TaskListener listener) {
+			this.releaseID = releaseID;
+			this.uploadUrl = uploadUrl;
 			this.ghConnection = ghConnection;
+			this.artifactPatterns = artifactPatterns;
+			this.maxConcurrentUploads = maxConcurrentUploads;
+			this.listener = listener;
 		}
 
 		@Override
@@ -332,30 +490,72 @@ public class GithubReleasePublisher extends Notifier {
 		}
 
 		@Override
-		public Void invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
-			//connect to the repository fro mthis node
-			
-			GHRelease releaseToUploadTo = null;
+		public AssetUploads invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+			if (uploadUrl == null) {
+				throw new IOException("GitHub did not return an upload url for release " + releaseID);
+			}
+			final PrintStream logger = listener.getLogger();
 			
-			GitHub github = ghConnection.connect();
-			GHRepository repo = github.getRepository(ghConnection.getTotalRepositoryName());
+			//the scanner only descends into directories which can contain matches of the patterns
+			String[] fileNames = Util.createFileSet(workspace, artifactPatterns).getDirectoryScanner().getIncludedFiles();
+			List<Callable<AssetUpload>> uploads = new ArrayList<Callable<AssetUpload>>();
+			for (String fileName : fileNames) {
+				final File file = new File(workspace, fileName);
+				uploads.add(new Callable<AssetUpload>() {
+					@Override
+					public AssetUpload call() {
+						return upload(file, logger);
+					}
+				});
+			}
 			
-			PagedIterable<GHRelease> listReleases = repo.listReleases();
-			for (GHRelease release : listReleases) {
-				if (release.getName().equals(releaseName)) {
-					releaseToUploadTo = release;
+			if (fileNames.length > 0) {
+				logger.println("Uploading " + fileNames.length + " assets, up to " + maxConcurrentUploads + " at the same time.");
+			}
+			AssetUploads result = new AssetUploads(fileNames.length);
+			BuildRequestSummary requests = BuildRequestSummary.start();
+			//large assets can take far longer than the step deadline meant for API calls, each upload is only limited by its read timeout
+			Deadline deadline = Deadline.start(0, requests);
+			try {
+				for (AssetUpload upload : StepExecutor.invokeAll("GitHub asset upload", uploads, maxConcurrentUploads)) {
+					if (upload.failure != null) {
+						result.failed.add(upload);
+					}
 				}
+			} finally {
+				deadline.end();
+				requests.end();
 			}
-			
-			String mimeType = Files.probeContentType(f.toPath());
-			//if the mime type cannot be determined, use plain/text
-			//System.out.println(mimeType);
-			if (mimeType == null) {
-				mimeType = "text/plain";
+			result.requests = requests;
+			return result;
+		}
+
+		/**
+		 * Uploads the given file, logging its progress.
+		 * Failures are not thrown but returned, so that the other uploads continue.
+		 * @param f the file to upload
+		 * @param logger the build log
+		 * @return the result of the upload
+		 */
+		private AssetUpload upload(File f, PrintStream logger) {
+			long start = System.currentTimeMillis();
+			try {
+				long size = f.length();
+				logger.println("Uploading asset " + f.getName() + " (" + formatMegabytes(size) + ")...");
+				String mimeType = Files.probeContentType(f.toPath());
+				//if the mime type cannot be determined, use plain/text
+				if (mimeType == null) {
+					mimeType = "text/plain";
+				}
+				ghConnection.uploadAsset(uploadUrl, f, mimeType);
+				long durationMillis = Math.max(1, System.currentTimeMillis() - start);
+				logger.println("Uploaded asset " + f.getName() + " in " + (durationMillis / 1000) + " s ("
+						+ formatMegabytes(size * 1000 / durationMillis) + "/s).");
+				return new AssetUpload(f.getName(), null);
+			} catch (IOException | RuntimeException e) {
+				logger.println("Failed to upload asset " + f.getName() + ": " + e.getMessage());
+				return new AssetUpload(f.getName(), e.toString());
 			}
-			releaseToUploadTo.uploadAsset(f, mimeType);
-			
-			return null;
 		}
 	}
 
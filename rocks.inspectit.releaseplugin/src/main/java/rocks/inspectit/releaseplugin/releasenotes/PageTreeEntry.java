@@ -0,0 +1,72 @@
+package rocks.inspectit.releaseplugin.releasenotes;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ *
+ * Form for entering a single page of a page tree published by the {@link ConfluencePageTreePublisher}.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class PageTreeEntry extends AbstractDescribableImpl<PageTreeEntry> {
+
+	/**
+	 * Title of the page.
+	 */
+	private String title;
+	/**
+	 * Title of the parent page, either another page of the tree or an existing page. If empty, the root parent page of the step is used.
+	 */
+	private String parentTitle;
+	/**
+	 * The JQL filter of the tickets to list on the page.
+	 */
+	private String jqlFilter;
+
+	/**
+	 * Databound constructor, called by jenkins.
+	 * @param title the title of the page
+	 * @param parentTitle the title of the parent page
+	 * @param jqlFilter the jql filter
+	 */
+	@DataBoundConstructor
+	public PageTreeEntry(String title, String parentTitle, String jqlFilter) {
+		super();
+		this.title = title;
+		this.parentTitle = parentTitle;
+		this.jqlFilter = jqlFilter;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getParentTitle() {
+		return parentTitle;
+	}
+
+	public String getJqlFilter() {
+		return jqlFilter;
+	}
+
+	/**
+	 * Descriptor implementation.
+	 * @author Jonas Kunz
+	 *
+	 */
+	@Extension
+	public static class DescriptorImpl extends Descriptor<PageTreeEntry> {
+
+		@Override
+		public String getDisplayName() {
+			return "Page";
+		}
+
+	}
+
+}
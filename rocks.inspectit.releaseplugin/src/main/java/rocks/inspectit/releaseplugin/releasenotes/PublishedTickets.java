@@ -0,0 +1,261 @@
+package rocks.inspectit.releaseplugin.releasenotes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import rocks.inspectit.releaseplugin.jira.Issue;
+import rocks.inspectit.releaseplugin.jira.IssueType;
+
+/**
+ *
+ * The tickets published on a release notes page, stored as content properties of the page for incremental publishing.
+ * Each ticket is stored with all data shown on the page, so that the page can be rebuilt without querying the unchanged tickets again.
+ *
+ * As Confluence limits the size of a property value, the tickets are split into parts stored in separate properties.
+ * The main property holds the filter, the query time and the hashes of the parts, so that parts of different runs are never mixed.
+ *
+ * @author Jonas Kunz
+ *
+ */
+public class PublishedTickets {
+
+	/**
+	 * The key of the main page property, the parts are stored under this key followed by their number.
+	 */
+	public static final String PROPERTY = "release-helper-published-tickets";
+
+	/**
+	 * The maximum number of parts, if more are required the tickets are not stored.
+	 */
+	public static final int MAX_PARTS = 100;
+
+	/**
+	 * The maximum size of a part in bytes, Confluence rejects property values larger than 32 KB.
+	 */
+	private static final int MAX_PART_BYTES = 30000;
+
+	/**
+	 * The JQL filter which selected the tickets.
+	 */
+	private final String jql;
+
+	/**
+	 * The time at which the tickets were queried, in milliseconds since the epoch.
+	 */
+	private final long queriedAtMillis;
+
+	/**
+	 * The published tickets in the order of the page, indexed by key.
+	 */
+	private final Map<String, Issue> tickets = new LinkedHashMap<String, Issue>();
+
+	/**
+	 * Creates a new set of published tickets.
+	 * @param jql the JQL filter which selected the tickets
+	 * @param queriedAtMillis the time at which the tickets were queried
+	 * @param tickets the tickets
+	 */
+	public PublishedTickets(String jql, long queriedAtMillis, Collection<Issue> tickets) {
+		this.jql = jql;
+		this.queriedAtMillis = queriedAtMillis;
+		for (Issue ticket : tickets) {
+			this.tickets.put(ticket.getKey(), ticket);
+		}
+	}
+
+	/**
+	 * @param index the index of a part, starting at 0
+	 * @return the key of the page property holding the part
+	 */
+	public static String getPartProperty(int index) {
+		return PROPERTY + "-" + (index + 1);
+	}
+
+	/**
+	 * Reads the hashes of the parts from the value of the main property.
+	 * @param value the value of the main property
+	 * @return the hashes of the parts, null if the value is not valid (e.g. written by an incompatible version) or the tickets were not stored
+	 */
+	public static List<String> getPartHashes(JsonElement value) {
+		if (value == null || !value.isJsonObject()) {
+			return null;
+		}
+		JsonObject object = value.getAsJsonObject();
+		if (!object.has("jql") || !object.has("queriedAt") || !object.has("parts") || !object.get("parts").isJsonArray()) {
+			return null;
+		}
+		List<String> hashes = new ArrayList<String>();
+		for (JsonElement hash : object.getAsJsonArray("parts")) {
+			hashes.add(hash.getAsString());
+		}
+		return hashes;
+	}
+
+	/**
+	 * Reads the tickets from the values of the page properties.
+	 * @param value the value of the main property
+	 * @param parts the values of the parts, in the order of their hashes
+	 * @return the tickets, null if the values are not valid or a part does not belong to the main property
+	 */
+	public static PublishedTickets fromJson(JsonElement value, List<JsonElement> parts) {
+		List<String> hashes = getPartHashes(value);
+		if (hashes == null || hashes.size() != parts.size()) {
+			return null;
+		}
+		List<Issue> tickets = new ArrayList<Issue>();
+		for (int i = 0; i < parts.size(); i++) {
+			JsonElement part = parts.get(i);
+			if (part == null || !part.isJsonArray() || !hashes.get(i).equals(hashPart(part))) {
+				return null;
+			}
+			for (JsonElement element : part.getAsJsonArray()) {
+				JsonArray ticket = element.getAsJsonArray();
+				tickets.add(new Issue(ticket.get(0).getAsString(), ticket.get(2).getAsString(), new IssueType(null, ticket.get(1).getAsString(), false)));
+			}
+		}
+		JsonObject object = value.getAsJsonObject();
+		return new PublishedTickets(object.get("jql").getAsString(), object.get("queriedAt").getAsLong(), tickets);
+	}
+
+	/**
+	 * Splits the tickets into parts small enough to be stored as page property, each ticket is stored as array of key, issue type and summary.
+	 * @return the values of the parts in the order of the page
+	 */
+	public List<JsonArray> toParts() {
+		List<JsonArray> parts = new ArrayList<JsonArray>();
+		JsonArray part = new JsonArray();
+		int partBytes = 2;
+		for (Issue ticket : tickets.values()) {
+			JsonArray entry = new JsonArray();
+			entry.add(new JsonPrimitive(ticket.getKey()));
+			entry.add(new JsonPrimitive(ticket.getIssueType().getName()));
+			entry.add(new JsonPrimitive(ticket.getSummary() == null ? "" : ticket.getSummary()));
+			int entryBytes = entry.toString().getBytes(Charsets.UTF_8).length + 1;
+			if (part.size() > 0 && partBytes + entryBytes > MAX_PART_BYTES) {
+				parts.add(part);
+				part = new JsonArray();
+				partBytes = 2;
+			}
+			part.add(entry);
+			partBytes += entryBytes;
+		}
+		if (part.size() > 0) {
+			parts.add(part);
+		}
+		return parts;
+	}
+
+	/**
+	 * @param parts the parts as returned by {@link #toParts()}, null if the tickets could not be stored
+	 * @return the value of the main property
+	 */
+	public JsonElement toJson(List<JsonArray> parts) {
+		JsonObject object = new JsonObject();
+		object.addProperty("jql", jql);
+		object.addProperty("queriedAt", queriedAtMillis);
+		if (parts == null) {
+			object.add("parts", JsonNull.INSTANCE);
+		} else {
+			JsonArray hashes = new JsonArray();
+			for (JsonArray part : parts) {
+				hashes.add(new JsonPrimitive(hashPart(part)));
+			}
+			object.add("parts", hashes);
+		}
+		return object;
+	}
+
+	/**
+	 * @param part the value of a part
+	 * @return the hash identifying the content of the part
+	 */
+	private static String hashPart(JsonElement part) {
+		return Hashing.sha1().hashString(part.toString(), Charsets.UTF_8).toString();
+	}
+
+	/**
+	 * Applies the changes since the tickets were queried.
+	 * @param changed the tickets matching the filter which have been created or updated in the meantime
+	 * @param unmatched the tickets not matching the filter which have been updated in the meantime, published ones are removed
+	 * @param affectedIssueTypes filled with the issue types whose list of tickets has changed
+	 * @return the tickets to publish now, in the order of the page with new tickets appended
+	 */
+	public List<Issue> merge(List<Issue> changed, List<Issue> unmatched, Set<String> affectedIssueTypes) {
+		Map<String, Issue> merged = new LinkedHashMap<String, Issue>(tickets);
+		for (Issue ticket : unmatched) {
+			Issue removed = merged.remove(ticket.getKey());
+			if (removed != null) {
+				affectedIssueTypes.add(removed.getIssueType().getName());
+			}
+		}
+		for (Issue ticket : changed) {
+			Issue previous = merged.put(ticket.getKey(), ticket);
+			if (previous == null || !equal(previous.getSummary(), ticket.getSummary())
+					|| !previous.getIssueType().getName().equals(ticket.getIssueType().getName())) {
+				affectedIssueTypes.add(ticket.getIssueType().getName());
+				if (previous != null) {
+					affectedIssueTypes.add(previous.getIssueType().getName());
+				}
+			}
+		}
+		return new ArrayList<Issue>(merged.values());
+	}
+
+	/**
+	 * @param key the key of a ticket
+	 * @return true, if the ticket has been published
+	 */
+	public boolean contains(String key) {
+		return tickets.containsKey(key);
+	}
+
+	/**
+	 * @return the keys of the JIRA projects of the published tickets
+	 */
+	public Set<String> getProjectKeys() {
+		Set<String> projects = new LinkedHashSet<String>();
+		for (String key : tickets.keySet()) {
+			int separator = key.lastIndexOf('-');
+			if (separator > 0) {
+				projects.add(key.substring(0, separator));
+			}
+		}
+		return projects;
+	}
+
+	/**
+	 * Compares two nullable strings.
+	 * @param a the first string
+	 * @param b the second string
+	 * @return true, if both are null or equal
+	 */
+	private static boolean equal(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	public String getJql() {
+		return jql;
+	}
+
+	public long getQueriedAtMillis() {
+		return queriedAtMillis;
+	}
+
+	public Collection<Issue> getTickets() {
+		return tickets.values();
+	}
+
+}
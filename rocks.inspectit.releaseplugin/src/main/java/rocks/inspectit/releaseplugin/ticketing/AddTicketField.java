@@ -2,7 +2,6 @@ package rocks.inspectit.releaseplugin.ticketing;
 
 import java.io.PrintStream;
 import java.util.List;
-import java.util.Set;
 
 import org.apache.commons.lang.text.StrSubstitutor;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -12,12 +11,12 @@ import rocks.inspectit.releaseplugin.FieldMetadata;
 import rocks.inspectit.releaseplugin.IssueUpdateBuilder;
 import rocks.inspectit.releaseplugin.JIRAAccessTool;
 import rocks.inspectit.releaseplugin.JIRAMetadataCache;
+import rocks.inspectit.releaseplugin.JIRAMetadataCache.Function;
 import rocks.inspectit.releaseplugin.JIRAAccessTool.BuildingLambda;
 import hudson.Extension;
-import hudson.RelativePath;
 import hudson.model.AbstractDescribableImpl;
+import hudson.model.AutoCompletionCandidates;
 import hudson.model.Descriptor;
-import hudson.util.ComboBoxModel;
 
 public class AddTicketField  extends AbstractDescribableImpl<AddTicketField> {
 	private String fieldHumanReadableName;
@@ -63,21 +62,25 @@ public class AddTicketField  extends AbstractDescribableImpl<AddTicketField> {
 			return "Specify Field Value";
 		}
 		
-		 /**
-         * Combobox populating method.
-         * @param jiraCredentialsID the credentials used for access.
-         * @return a ComboBoxModel containing the JIRA values as suggestions
-         */
-        public ComboBoxModel doFillFieldHumanReadableNameItems(@RelativePath("../..") @QueryParameter String jiraCredentialsID) { 	
-        	ComboBoxModel result = new ComboBoxModel();
-        	for(FieldMetadata field : JIRAMetadataCache.getSingleton().getFieldMetadata(jiraCredentialsID)) {
-        		Set<String> allowedTypes = IssueUpdateBuilder.SUPPORTED_TYPES;
-        		if(field.isModifiable() && allowedTypes.contains(field.getElementType())) {
-                	result.add(field.getHumanReadableName());        			
-        		}        		
-        	}
-    		return result;
-        }
+		/**
+		 * Search-as-you-type method, returns the fields best matching the text entered so far.
+		 * @param value the text entered so far
+		 * @param jiraCredentialsID the credentials used for access.
+		 * @return the best matching fields as auto completion candidates
+		 */
+		public AutoCompletionCandidates doSearchFieldHumanReadableName(@QueryParameter String value, @QueryParameter String jiraCredentialsID) {
+			AutoCompletionCandidates result = new AutoCompletionCandidates();
+			List<FieldMetadata> matches = JIRAMetadataCache.getSingleton().searchFields(jiraCredentialsID, value, new Function<FieldMetadata, Boolean>() {
+				@Override
+				public Boolean apply(FieldMetadata field) {
+					return field.isModifiable() && IssueUpdateBuilder.SUPPORTED_TYPES.contains(field.getElementType());
+				}
+			});
+			for (FieldMetadata field : matches) {
+				result.add(field.getHumanReadableName());
+			}
+			return result;
+		}
 		
 	}
 
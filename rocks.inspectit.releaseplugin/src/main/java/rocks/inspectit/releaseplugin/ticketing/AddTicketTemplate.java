@@ -17,17 +17,14 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
 
 import rocks.inspectit.releaseplugin.FieldMetadata;
+import rocks.inspectit.releaseplugin.IssueInputBuilder;
 import rocks.inspectit.releaseplugin.IssueUpdateBuilder;
 import rocks.inspectit.releaseplugin.JIRAAccessTool;
 import rocks.inspectit.releaseplugin.JIRAMetadataCache;
 import rocks.inspectit.releaseplugin.JIRAAccessTool.BuildingLambda;
-
-import com.atlassian.jira.rest.client.api.domain.BasicIssueType;
-import com.atlassian.jira.rest.client.api.domain.BasicPriority;
-import com.atlassian.jira.rest.client.api.domain.Issue;
-import com.atlassian.jira.rest.client.api.domain.Version;
-import com.atlassian.jira.rest.client.api.domain.input.ComplexIssueInputFieldValue;
-import com.atlassian.jira.rest.client.api.domain.input.IssueInputBuilder;
+import rocks.inspectit.releaseplugin.jira.Issue;
+import rocks.inspectit.releaseplugin.jira.IssueType;
+import rocks.inspectit.releaseplugin.jira.Priority;
 
 /**
  * 
@@ -152,8 +149,8 @@ public class AddTicketTemplate extends AbstractDescribableImpl<AddTicketTemplate
 		final String description = varReplacer.replace(this.description);
 		String parentJQL = varReplacer.replace(this.parentJQL);
 
-		BasicIssueType issueType = jira.getIssueTypeByName(type);
-		final BasicPriority issuePriority = jira.getIssuePriorityByName(priority);
+		IssueType issueType = jira.getIssueTypeByName(type);
+		final Priority issuePriority = jira.getIssuePriorityByName(priority);
 		String parentKey = null;
 		
 		if (issueType.isSubtask()) {
@@ -209,11 +206,11 @@ public class AddTicketTemplate extends AbstractDescribableImpl<AddTicketTemplate
 					b.setPriority(issuePriority);
 				}
 				if (finalParentKey != null) {
-					b.setFieldValue("parent", ComplexIssueInputFieldValue.with("key", finalParentKey));
+					b.setParent(finalParentKey);
 					
 				}
 			}
-		}, issueType).getKey();
+		}, issueType);
 		
 		if(!fieldValues.isEmpty()) {
 			jira.updateTicket(ticketKey, new BuildingLambda<IssueUpdateBuilder>() {
@@ -61,7 +61,7 @@ public class JIRATicketEditor extends AbstractJIRAAction {
 	}
 
 	@Override
-	public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+	protected boolean performStep(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
 
 		StrSubstitutor varReplacer = getVariablesSubstitutor(build, listener);
 		PrintStream logger = listener.getLogger();
@@ -69,7 +69,7 @@ public class JIRATicketEditor extends AbstractJIRAAction {
 		JIRAProjectCredentials cred = getJiraCredentials();
 		
 		
-		JIRAAccessTool jira = new JIRAAccessTool(cred.getUrl(), cred.getUrlUsername(), cred.getUrlPassword(), null, cred.getProjectKey(), getJiraCredentialsID());
+		JIRAAccessTool jira = new JIRAAccessTool(cred.getUrl(), cred.getUrlUsername(), cred.getUrlPassword(), null, cred.getProjectKey(), getJiraCredentialsID(), cred.getConnectionSettings());
 
 		
 		for (ModifyTicketsTemplate temp : modifyTicketsTemplates) {
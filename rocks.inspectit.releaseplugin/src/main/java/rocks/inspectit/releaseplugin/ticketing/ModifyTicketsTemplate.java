@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -23,7 +24,6 @@ import org.kohsuke.stapler.DataBoundConstructor;
 
 import rocks.inspectit.releaseplugin.JIRAAccessTool;
 
-import com.atlassian.jira.rest.client.api.domain.Issue;
 import com.cloudbees.jenkins.GitHubRepositoryName;
 import com.cloudbees.jenkins.GitHubRepositoryNameContributor;
 
@@ -115,14 +115,14 @@ public class ModifyTicketsTemplate extends AbstractDescribableImpl<ModifyTickets
 	public void applyModifications(JIRAAccessTool jira, StrSubstitutor varReplacer, PrintStream logger, AbstractBuild<?, ?> build) {
 		
 		
-		Set<Issue> issuedToUpdate = new HashSet<>();
+		Set<String> issuedToUpdate = new LinkedHashSet<String>();
 		
 		
 		if ("JQL".equalsIgnoreCase(ticketSource)) {
 
 			String jql = varReplacer.replace(jqlFilter);
 			
-			issuedToUpdate.addAll(jira.getTicketsByJQL(jql));
+			issuedToUpdate.addAll(jira.getTicketKeysByJQL(jql));
 			logger.println("Updating " + issuedToUpdate.size() + " Tickets matching filter \"" + jql + "\"");
 			
 		} else if ("GHPullRequest".equalsIgnoreCase(ticketSource)) {
@@ -141,14 +141,14 @@ public class ModifyTicketsTemplate extends AbstractDescribableImpl<ModifyTickets
 				
 				String jql = buildJQLByTicketKeys(ticketKeys);
 				
-				issuedToUpdate.addAll(jira.getTicketsByJQL(jql));
+				issuedToUpdate.addAll(jira.getTicketKeysByJQL(jql));
 			}
 			
 		}
 		
-		for (Issue ticket : issuedToUpdate) {
+		for (String ticketKey : issuedToUpdate) {
 			for (TicketModification modification : modifications) {
-				modification.apply(ticket.getKey(), jira, varReplacer, logger);
+				modification.apply(ticketKey, jira, varReplacer, logger);
 			}
 				
 		}
@@ -9,11 +9,8 @@ import org.apache.commons.lang.text.StrSubstitutor;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import rocks.inspectit.releaseplugin.JIRAAccessTool;
+import rocks.inspectit.releaseplugin.jira.Transition;
 
-import com.atlassian.jira.rest.client.api.domain.Comment;
-import com.atlassian.jira.rest.client.api.domain.Issue;
-import com.atlassian.jira.rest.client.api.domain.Transition;
-import com.atlassian.jira.rest.client.api.domain.input.TransitionInput;
 import com.google.common.base.Optional;
 
 
@@ -91,9 +88,8 @@ public class PerformTransitionModification extends TicketModification {
 		String transitionName = varReplacer.replace(this.transitionName);
 		String comment = varReplacer.replace(Optional.fromNullable(this.comment).or(""));
 		
-		Issue issue = jira.getTicketByKey(ticketKey);
 		int id = -1;
-		for (Transition trans : jira.getAvailableTransitions(issue)) {
+		for (Transition trans : jira.getAvailableTransitions(ticketKey)) {
 			if (trans.getName().equalsIgnoreCase(transitionName)) {
 				id = trans.getId();
 			}
@@ -103,14 +99,7 @@ public class PerformTransitionModification extends TicketModification {
 			throw new RuntimeException("The transition with the name \"" + transitionName + "\" is either non existent or not accessible for the Ticket " + ticketKey);
 		}
 		
-		TransitionInput input;
-		if (comment.isEmpty()) {
-			input = new TransitionInput(id);
-		} else {
-			input = new TransitionInput(id, Comment.valueOf(comment));			
-		}
-		
-		jira.performTransition(issue, input);
+		jira.performTransition(ticketKey, id, comment.isEmpty() ? null : comment);
 		
 		
 	}
@@ -1,9 +1,8 @@
 package rocks.inspectit.releaseplugin.ticketing;
 
 import hudson.Extension;
-import hudson.RelativePath;
+import hudson.model.AutoCompletionCandidates;
 import hudson.model.Descriptor;
-import hudson.util.ComboBoxModel;
 
 import java.io.PrintStream;
 import java.util.Arrays;
@@ -19,6 +18,7 @@ import rocks.inspectit.releaseplugin.FieldMetadata;
 import rocks.inspectit.releaseplugin.IssueUpdateBuilder;
 import rocks.inspectit.releaseplugin.JIRAAccessTool;
 import rocks.inspectit.releaseplugin.JIRAMetadataCache;
+import rocks.inspectit.releaseplugin.JIRAMetadataCache.Function;
 import rocks.inspectit.releaseplugin.JIRAAccessTool.BuildingLambda;
 
 
@@ -74,23 +74,25 @@ public class SetFieldModification extends TicketModification {
 			return "Set Field Value";
 		}
 		
-		 /**
-         * Combobox populating method.
-         * @param jiraCredentialsID the credentials used for access.
-         * @return a ComboBoxModel containing the JIRA values as suggestions
-         */
-        public ComboBoxModel doFillFieldHumanReadableNameItems(@RelativePath("../..") @QueryParameter String jiraCredentialsID) { 	
-        	ComboBoxModel result = new ComboBoxModel();
-        	for(FieldMetadata field : JIRAMetadataCache.getSingleton().getFieldMetadata(jiraCredentialsID)) {
-        		Set<String> allowedTypes = IssueUpdateBuilder.SUPPORTED_TYPES;
-        		
-        		if(!field.isArray() && field.isModifiable() && allowedTypes.contains(field.getElementType())) {
-                	result.add(field.getHumanReadableName());        			
-        		}        		
-        	}
-    		
-    		return result;
-        }
+		/**
+		 * Search-as-you-type method, returns the fields best matching the text entered so far.
+		 * @param value the text entered so far
+		 * @param jiraCredentialsID the credentials used for access.
+		 * @return the best matching single-valued fields as auto completion candidates
+		 */
+		public AutoCompletionCandidates doSearchFieldHumanReadableName(@QueryParameter String value, @QueryParameter String jiraCredentialsID) {
+			AutoCompletionCandidates result = new AutoCompletionCandidates();
+			List<FieldMetadata> matches = JIRAMetadataCache.getSingleton().searchFields(jiraCredentialsID, value, new Function<FieldMetadata, Boolean>() {
+				@Override
+				public Boolean apply(FieldMetadata field) {
+					return !field.isArray() && field.isModifiable() && IssueUpdateBuilder.SUPPORTED_TYPES.contains(field.getElementType());
+				}
+			});
+			for (FieldMetadata field : matches) {
+				result.add(field.getHumanReadableName());
+			}
+			return result;
+		}
 		
 	}
 
@@ -28,6 +28,8 @@ import org.apache.commons.lang.text.StrSubstitutor;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 
+import rocks.inspectit.releaseplugin.http.Deadline;
+import rocks.inspectit.releaseplugin.http.DeadlineExceededException;
 import twitter4j.Status;
 import twitter4j.Twitter;
 import twitter4j.TwitterException;
@@ -50,6 +52,15 @@ import com.cloudbees.plugins.credentials.common.UsernamePasswordCredentials;
  */
 public class TwitterPublisher extends Builder {
 
+	/**
+	 * The connect timeout of the calls to twitter (the default of twitter4j), capped by the deadline of the step.
+	 */
+	private static final int TWITTER_CONNECT_TIMEOUT_MILLIS = 20000;
+
+	/**
+	 * The read timeout of the calls to twitter (the default of twitter4j), capped by the deadline of the step.
+	 */
+	private static final int TWITTER_READ_TIMEOUT_MILLIS = 120000;
 
 	private String tokenCredentialsID;
 	
@@ -81,6 +92,25 @@ public class TwitterPublisher extends Builder {
 
 	@Override
 	public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+		Deadline deadline = Deadline.start(null);
+		try {
+			return publish(build, listener);
+		} catch (DeadlineExceededException e) {
+			listener.getLogger().println(e.getMessage());
+			return false;
+		} finally {
+			deadline.end();
+		}
+	}
+
+	/**
+	 * Publishes the tweet, unless it is already present or the {@link Deadline} of the step has been reached.
+	 * The timeouts of the calls to twitter are capped by the time left until the deadline.
+	 * @param build the current build
+	 * @param listener the listener of the current build
+	 * @return true, if the build can continue
+	 */
+	private boolean publish(AbstractBuild<?, ?> build, BuildListener listener) {
 
 		StrSubstitutor varReplacer = getVariablesSubstitutor(build, listener);
 		PrintStream logger = listener.getLogger();
@@ -95,8 +125,11 @@ public class TwitterPublisher extends Builder {
                 CredentialsMatchers.withId(consumerCredentialsID)
         );
 		
+		Deadline deadline = Deadline.current();
 		ConfigurationBuilder cb = new ConfigurationBuilder();
 		cb.setDebugEnabled(true)
+		  .setHttpConnectionTimeout(deadline.limitTimeout(TWITTER_CONNECT_TIMEOUT_MILLIS))
+		  .setHttpReadTimeout(deadline.limitTimeout(TWITTER_READ_TIMEOUT_MILLIS))
 		  .setOAuthConsumerKey(consumerCred.getUsername())
 		  .setOAuthConsumerSecret(consumerCred.getPassword().getPlainText())
 		  .setOAuthAccessToken(tokenCred.getUsername())
@@ -107,6 +140,7 @@ public class TwitterPublisher extends Builder {
         String text =varReplacer.replace(this.tweetText);
         
         try {
+        	deadline.check("GET statuses/user_timeline");
 			for(Status stat : twitter.getUserTimeline()) {
 				if(stat.getText().equalsIgnoreCase(text)) {
 					logger.println("Tweet is already present, therefore skipping publishing.");
@@ -114,6 +148,7 @@ public class TwitterPublisher extends Builder {
 				}
 			}
 			logger.println("Publishing tweet.");
+			deadline.check("POST statuses/update");
 	        twitter.updateStatus(text);
 		} catch (TwitterException e) {
 			throw new RuntimeException("Could not itneract with twitter.", e);
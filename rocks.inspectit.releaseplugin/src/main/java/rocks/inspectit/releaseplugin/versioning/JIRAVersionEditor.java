@@ -51,13 +51,13 @@ public class JIRAVersionEditor extends AbstractJIRAAction {
 	}
 
 	@Override
-	public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+	protected boolean performStep(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
 
 		StrSubstitutor varReplacer = getVariablesSubstitutor(build, listener);
 		PrintStream logger = listener.getLogger();
 
 		JIRAProjectCredentials cred = getJiraCredentials();
-		JIRAAccessTool jira = new JIRAAccessTool(cred.getUrl(), cred.getUrlUsername(), cred.getUrlPassword(), null, cred.getProjectKey(), getJiraCredentialsID());
+		JIRAAccessTool jira = new JIRAAccessTool(cred.getUrl(), cred.getUrlUsername(), cred.getUrlPassword(), null, cred.getProjectKey(), getJiraCredentialsID(), cred.getConnectionSettings());
 
 		for (ModifyAddVersionTemplate mod : versionModifiactions) {
 			mod.applyModifications(jira, varReplacer, logger);
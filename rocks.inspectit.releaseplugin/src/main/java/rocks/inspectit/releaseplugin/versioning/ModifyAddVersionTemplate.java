@@ -1,6 +1,7 @@
 package rocks.inspectit.releaseplugin.versioning;
 
 import java.io.PrintStream;
+import java.util.Date;
 
 
 
@@ -10,6 +11,7 @@ import java.io.PrintStream;
 
 import hudson.Extension;
 import hudson.model.AbstractDescribableImpl;
+import hudson.model.AutoCompletionCandidates;
 import hudson.model.Descriptor;
 
 
@@ -19,8 +21,8 @@ import hudson.model.Descriptor;
 
 
 import org.apache.commons.lang.text.StrSubstitutor;
-import org.joda.time.DateTime;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
 
 
 
@@ -28,9 +30,10 @@ import org.kohsuke.stapler.DataBoundConstructor;
 
 
 
-import com.atlassian.jira.rest.client.api.domain.input.VersionInputBuilder;
 
 import rocks.inspectit.releaseplugin.JIRAAccessTool;
+import rocks.inspectit.releaseplugin.JIRAMetadataCache;
+import rocks.inspectit.releaseplugin.VersionInputBuilder;
 import rocks.inspectit.releaseplugin.JIRAAccessTool.BuildingLambda;
 
 /**
@@ -149,10 +152,10 @@ public class ModifyAddVersionTemplate extends AbstractDescribableImpl<ModifyAddV
 					b.setReleased(false);
 				} else if (releaseState.equals("released")) {
 					b.setReleased(true);
-					b.setReleaseDate(new DateTime());
+					b.setReleaseDate(new Date());
 					if (failOnJQL) {
 						String jql = "affectedVersion=\"" + versionName + "\" AND (" + failQuery + ")";
-						long numberOfOpenTickets = jira.getTicketsByJQL(jql).stream().count();
+						long numberOfOpenTickets = jira.getTicketKeysByJQL(jql).size();
 						if (numberOfOpenTickets > 0) {
 							throw new RuntimeException("Unable to release version " + versionName + ", because there are still "
 									+ numberOfOpenTickets + " matching the query '" + jql + "'");
@@ -175,6 +178,20 @@ public class ModifyAddVersionTemplate extends AbstractDescribableImpl<ModifyAddV
 		public String getDisplayName() {
 			return "Add / Modify JIRA Project Version";
 		}
+
+		/**
+		 * Search-as-you-type method, returns the versions best matching the text entered so far.
+		 * @param value the text entered so far
+		 * @param jiraCredentialsID the credentials used for access.
+		 * @return the best matching versions as auto completion candidates
+		 */
+		public AutoCompletionCandidates doSearchVersionName(@QueryParameter String value, @QueryParameter String jiraCredentialsID) {
+			AutoCompletionCandidates result = new AutoCompletionCandidates();
+			for (String version : JIRAMetadataCache.getSingleton().searchVersions(jiraCredentialsID, value)) {
+				result.add(version);
+			}
+			return result;
+		}
 		
 	}
 	
@@ -0,0 +1,60 @@
+/*
+ * Search-as-you-type support for text boxes with the CSS class "metadata-search".
+ *
+ * While the user types, the best matches are fetched from the URL given in the "searchUrl" attribute
+ * and offered as suggestions. The value of the field referenced by the (relative) "searchDependsOn"
+ * attribute, e.g. the selected JIRA credentials, is sent along with each request.
+ */
+Behaviour.specify("INPUT.metadata-search", "releaseplugin-metadata-search", 0, function(e) {
+	var suggestions = document.createElement("datalist");
+	suggestions.id = "metadata-search-" + (iota++);
+	e.parentNode.appendChild(suggestions);
+	e.setAttribute("list", suggestions.id);
+	e.setAttribute("autocomplete", "off");
+
+	var timer = null;
+	var lastQuery = null;
+
+	var search = function() {
+		var query = e.value;
+		if (query === lastQuery) {
+			return;
+		}
+		lastQuery = query;
+
+		var params = { value : query };
+		var dependsOn = e.getAttribute("searchDependsOn");
+		if (dependsOn) {
+			var dependency = findNearBy(e, dependsOn);
+			params[dependsOn.substring(dependsOn.lastIndexOf("/") + 1)] = dependency ? dependency.value : "";
+		}
+
+		new Ajax.Request(e.getAttribute("searchUrl"), {
+			method : "get",
+			parameters : params,
+			onSuccess : function(rsp) {
+				if (query !== e.value) {
+					// the user kept typing, a newer request is on its way
+					return;
+				}
+				var matches = JSON.parse(rsp.responseText).suggestions;
+				while (suggestions.firstChild) {
+					suggestions.removeChild(suggestions.firstChild);
+				}
+				for (var i = 0; i < matches.length; i++) {
+					var option = document.createElement("option");
+					option.value = matches[i].name;
+					suggestions.appendChild(option);
+				}
+			}
+		});
+	};
+
+	e.addEventListener("input", function() {
+		if (timer) {
+			clearTimeout(timer);
+		}
+		timer = setTimeout(search, 200);
+	});
+	e.addEventListener("focus", search);
+});